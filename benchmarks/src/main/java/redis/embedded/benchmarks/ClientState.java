@@ -0,0 +1,27 @@
+package redis.embedded.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import redis.clients.jedis.Jedis;
+
+/**
+ * One connection per benchmark thread to the server of {@link ServerState}.
+ */
+@State(Scope.Thread)
+public class ClientState {
+    Jedis jedis;
+
+    @Setup(Level.Trial)
+    public void connect(ServerState server) {
+        jedis = new Jedis("localhost", server.port());
+        jedis.connect();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        jedis.close();
+    }
+}
@@ -0,0 +1,78 @@
+package redis.embedded.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Hash and sorted set operations on structures of a configurable size.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class DataStructureBenchmark {
+    private static final String HASH = "bench:hash";
+    private static final String ZSET = "bench:zset";
+
+    @Param({"16", "1024"})
+    public int elements;
+
+    private String[] members;
+
+    @Setup(Level.Trial)
+    public void populate(ClientState client) {
+        client.jedis.del(HASH, ZSET);
+        members = new String[elements];
+        for (int i = 0; i < elements; i++) {
+            members[i] = "member:" + i;
+            client.jedis.hset(HASH, members[i], Integer.toString(i));
+            client.jedis.zadd(ZSET, i, members[i]);
+        }
+    }
+
+    @Benchmark
+    public Long hset(ClientState client) {
+        return client.jedis.hset(HASH, randomMember(), "value");
+    }
+
+    @Benchmark
+    public String hget(ClientState client) {
+        return client.jedis.hget(HASH, randomMember());
+    }
+
+    @Benchmark
+    public Map<String, String> hgetAll(ClientState client) {
+        return client.jedis.hgetAll(HASH);
+    }
+
+    @Benchmark
+    public Double zincrby(ClientState client) {
+        return client.jedis.zincrby(ZSET, 1, randomMember());
+    }
+
+    @Benchmark
+    public Set<String> zrangeByScore(ClientState client) {
+        final int from = ThreadLocalRandom.current().nextInt(elements);
+        return client.jedis.zrangeByScore(ZSET, from, from + 10);
+    }
+
+    @Benchmark
+    public Set<String> zrevrangeTop10(ClientState client) {
+        return client.jedis.zrevrange(ZSET, 0, 9);
+    }
+
+    private String randomMember() {
+        return members[ThreadLocalRandom.current().nextInt(elements)];
+    }
+}
@@ -0,0 +1,60 @@
+package redis.embedded.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.clients.jedis.Pipeline;
+
+import java.util.List;
+
+/**
+ * Pipelined SET/GET batches; each operation is one full batch.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PipelineBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int batchSize;
+
+    @Param({"16", "1024"})
+    public int valueSize;
+
+    private String[] keys;
+    private String value;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        keys = new String[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            keys[i] = "pipeline:" + i;
+        }
+        value = Servers.value(valueSize);
+    }
+
+    @Benchmark
+    public List<Object> pipelinedSet(ClientState client) {
+        final Pipeline pipeline = client.jedis.pipelined();
+        for (String key : keys) {
+            pipeline.set(key, value);
+        }
+        return pipeline.syncAndReturnAll();
+    }
+
+    @Benchmark
+    public List<Object> pipelinedGet(ClientState client) {
+        final Pipeline pipeline = client.jedis.pipelined();
+        for (String key : keys) {
+            pipeline.get(key);
+        }
+        return pipeline.syncAndReturnAll();
+    }
+}
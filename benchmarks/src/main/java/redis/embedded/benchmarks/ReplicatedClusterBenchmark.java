@@ -0,0 +1,80 @@
+package redis.embedded.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisSentinelPool;
+import redis.embedded.RedisCluster;
+import redis.embedded.RedisSentinelBuilder;
+import redis.embedded.util.JedisUtil;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes and reads through a sentinel-managed master with replicas attached, so the numbers include
+ * the cost of replication on the master.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ReplicatedClusterBenchmark {
+    private static final String MASTER_NAME = "bench";
+    private static final int KEY_COUNT = 1000;
+
+    @Param({"0", "2"})
+    public int slaves;
+
+    @Param({"16", "1024"})
+    public int valueSize;
+
+    private RedisCluster cluster;
+    private JedisSentinelPool pool;
+    private String value;
+
+    @Setup(Level.Trial)
+    public void start() {
+        cluster = RedisCluster.builder()
+                .withServerBuilder(Servers.serverBuilder())
+                .withSentinelBuilder(new RedisSentinelBuilder().redisExecProvider(Servers.execProvider()))
+                .ephemeral().sentinelCount(1).quorumSize(1)
+                .lifecycleParallelism(4)
+                .replicationGroup(MASTER_NAME, slaves)
+                .build();
+        cluster.start();
+        pool = new JedisSentinelPool(MASTER_NAME, JedisUtil.sentinelHosts(cluster));
+        value = Servers.value(valueSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        pool.destroy();
+        cluster.stop();
+    }
+
+    @Benchmark
+    public String set() {
+        try (Jedis jedis = pool.getResource()) {
+            return jedis.set(randomKey(), value);
+        }
+    }
+
+    @Benchmark
+    public String get() {
+        try (Jedis jedis = pool.getResource()) {
+            return jedis.get(randomKey());
+        }
+    }
+
+    private static String randomKey() {
+        return "key:" + ThreadLocalRandom.current().nextInt(KEY_COUNT);
+    }
+}
@@ -0,0 +1,34 @@
+package redis.embedded.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import redis.embedded.RedisServer;
+import redis.embedded.ports.EphemeralPortProvider;
+
+/**
+ * A single embedded server per fork, shared by all benchmark threads.
+ */
+@State(Scope.Benchmark)
+public class ServerState {
+    private RedisServer server;
+    private int port;
+
+    @Setup(Level.Trial)
+    public void start() {
+        port = new EphemeralPortProvider().next();
+        server = Servers.serverBuilder().port(port).build();
+        server.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        server.stop();
+    }
+
+    public int port() {
+        return port;
+    }
+}
@@ -0,0 +1,40 @@
+package redis.embedded.benchmarks;
+
+import redis.embedded.RedisExecProvider;
+import redis.embedded.RedisServerBuilder;
+import redis.embedded.readiness.PingReadiness;
+import redis.embedded.util.OsArchitecture;
+
+/**
+ * Server builders shared by all benchmarks. Set {@code -Dredis.executable=/path/to/redis-server}
+ * to benchmark a specific redis version instead of the bundled one.
+ */
+final class Servers {
+    static final String EXECUTABLE_PROPERTY = "redis.executable";
+
+    private Servers() {
+    }
+
+    static RedisServerBuilder serverBuilder() {
+        return new RedisServerBuilder()
+                .redisExecProvider(execProvider())
+                .readinessStrategy(new PingReadiness());
+    }
+
+    static RedisExecProvider execProvider() {
+        final RedisExecProvider provider = RedisExecProvider.defaultProvider();
+        final String executable = System.getProperty(EXECUTABLE_PROPERTY);
+        if (executable != null) {
+            provider.override(OsArchitecture.detect().os(), executable);
+        }
+        return provider;
+    }
+
+    static String value(int size) {
+        final StringBuilder value = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            value.append((char) ('a' + i % 26));
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,71 @@
+package redis.embedded.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * GET/SET round trips across a sweep of value sizes, and a GET/SET mix across read ratios.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class StringBenchmark {
+    private static final int KEY_COUNT = 1000;
+
+    @Param({"16", "1024", "16384"})
+    public int valueSize;
+
+    private String[] keys;
+    private String value;
+
+    @Setup(Level.Trial)
+    public void populate(ClientState client) {
+        keys = new String[KEY_COUNT];
+        value = Servers.value(valueSize);
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "key:" + i;
+            client.jedis.set(keys[i], value);
+        }
+    }
+
+    @Benchmark
+    public String get(ClientState client) {
+        return client.jedis.get(randomKey());
+    }
+
+    @Benchmark
+    public String set(ClientState client) {
+        return client.jedis.set(randomKey(), value);
+    }
+
+    @Benchmark
+    public String mixed(ClientState client, ReadMix mix) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final String key = keys[random.nextInt(KEY_COUNT)];
+        return random.nextInt(100) < mix.readPercent ? client.jedis.get(key) : client.jedis.set(key, value);
+    }
+
+    private String randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(KEY_COUNT)];
+    }
+
+    /**
+     * Read ratio of {@link #mixed}, kept out of the benchmark state so pure GET and SET runs are not repeated
+     * for every ratio.
+     */
+    @State(Scope.Benchmark)
+    public static class ReadMix {
+        @Param({"50", "90"})
+        public int readPercent;
+    }
+}
@@ -0,0 +1,34 @@
+package redis.embedded.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.clients.jedis.Transaction;
+
+import java.util.List;
+
+/**
+ * MULTI/EXEC blocks of increments, as used for counters updated atomically.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TransactionBenchmark {
+
+    @Param({"1", "10"})
+    public int commandsPerTransaction;
+
+    @Benchmark
+    public List<Object> multiExec(ClientState client) {
+        final Transaction transaction = client.jedis.multi();
+        for (int i = 0; i < commandsPerTransaction; i++) {
+            transaction.incr("counter:" + i);
+        }
+        return transaction.exec();
+    }
+}
@@ -1,130 +1,416 @@
 package redis.embedded;
 
+import com.google.common.base.Joiner;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.apache.commons.io.FileUtils;
 import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.exceptions.RedisBuildingException;
+import redis.embedded.ports.ReservingPortProvider;
+import redis.embedded.proxy.RedisProxy;
+import redis.embedded.readiness.LogPatternReadiness;
+import redis.embedded.shutdown.CommandShutdown;
+import redis.embedded.shutdown.SignalShutdown;
+import redis.embedded.util.OS;
+import redis.embedded.util.OsArchitecture;
+import redis.embedded.util.ProcessUtil;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
-import org.apache.commons.io.IOUtils;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 abstract class AbstractRedisInstance implements Redis {
+    static final long DEFAULT_STARTUP_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    static final long DEFAULT_SHUTDOWN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    private static final ShutdownStrategy FAILED_START_SHUTDOWN = new SignalShutdown();
+    private static final long LOG_DRAIN_TIMEOUT_MILLIS = 1000L;
+    private static final String SHARED_MEMORY_DIR = "/dev/shm";
+    private static final String[] TASKSET_LOCATIONS = {"/usr/bin/taskset", "/bin/taskset"};
+    private static final Pattern BIND_FAILURE_PATTERN = Pattern.compile(".*Address already in use.*");
+    static final File DEFAULT_WORKING_DIR_ROOT = defaultWorkingDirRoot();
+
     protected List<String> args = Collections.emptyList();
+    private ReadinessStrategy readinessStrategy = new LogPatternReadiness();
+    private long startupTimeoutMillis = DEFAULT_STARTUP_TIMEOUT_MILLIS;
+    private ShutdownStrategy shutdownStrategy = CommandShutdown.noSave();
+    private long shutdownTimeoutMillis = DEFAULT_SHUTDOWN_TIMEOUT_MILLIS;
+    private volatile long lastStopNanos = -1;
     private volatile boolean active = false;
 	private Process redisProcess;
-    private final int port;
+    private int port;
 
-    private ExecutorService executor;
+    private int logBufferLines = InstanceLog.DEFAULT_CAPACITY;
+    private File logDirectory;
+    private InstanceLog log;
+    private File workingDirRoot = DEFAULT_WORKING_DIR_ROOT;
+    private File workingDir;
+    private List<Integer> cpuAffinity = Collections.emptyList();
+    private InfoSampler infoSampler;
+    private RedisProxy proxy;
+    private PortProvider rebindPortProvider;
+    private int bindRetries;
 
     protected AbstractRedisInstance(int port) {
         this.port = port;
     }
 
+    void readinessStrategy(ReadinessStrategy readinessStrategy) {
+        this.readinessStrategy = readinessStrategy;
+    }
+
+    void startupTimeoutMillis(long startupTimeoutMillis) {
+        this.startupTimeoutMillis = startupTimeoutMillis;
+    }
+
+    void shutdownStrategy(ShutdownStrategy shutdownStrategy) {
+        this.shutdownStrategy = shutdownStrategy;
+    }
+
+    void shutdownTimeoutMillis(long shutdownTimeoutMillis) {
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+    }
+
+    void logging(int logBufferLines, File logDirectory) {
+        this.logBufferLines = logBufferLines;
+        this.logDirectory = logDirectory;
+    }
+
+    void workingDirRoot(File workingDirRoot) {
+        this.workingDirRoot = workingDirRoot;
+    }
+
+    /**
+     * Moves the instance to another port from the provider when it fails to start because its port is taken.
+     * Only safe for instances no other node refers to by port.
+     */
+    void retryOnBindFailure(PortProvider portProvider, int retries) {
+        if (!args.contains("--port")) {
+            throw new IllegalStateException("Instance has no --port argument to rebind");
+        }
+        this.rebindPortProvider = portProvider;
+        this.bindRetries = retries;
+    }
+
+    void cpuAffinity(List<Integer> cpus) {
+        if (!cpus.isEmpty() && taskset() == null) {
+            throw new RedisBuildingException("CPU affinity requires taskset, which was not found");
+        }
+        this.cpuAffinity = new ArrayList<Integer>(cpus);
+    }
+
+    /**
+     * CPUs the instance process is pinned to; empty when it may run on any CPU.
+     */
+    public List<Integer> cpuAffinity() {
+        return Collections.unmodifiableList(cpuAffinity);
+    }
+
+    void infoSampler(InfoSampler infoSampler) {
+        this.infoSampler = infoSampler;
+    }
+
+    /**
+     * {@code INFO} sampler of this instance, or {@code null} when sampling was not enabled on the builder.
+     */
+    public InfoSampler infoSampler() {
+        return infoSampler;
+    }
+
+    void proxy(RedisProxy proxy) {
+        this.proxy = proxy;
+    }
+
+    /**
+     * Proxy started in front of this instance, or {@code null} when none was configured on the builder.
+     * Clients that should see its network conditions connect to {@code proxy().port()} instead of the instance.
+     */
+    public RedisProxy proxy() {
+        return proxy;
+    }
+
     @Override
     public boolean isActive() {
         return active;
     }
 
+    boolean isProcessAlive() {
+        return active && !ProcessUtil.hasExited(redisProcess);
+    }
+
+    // fault injection for failover tests; the instance still counts as active until stop() is called
+    synchronized void killProcess() {
+        checkRunning();
+        ProcessUtil.kill(redisProcess);
+        try {
+            ProcessUtil.waitFor(redisProcess, shutdownTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    synchronized void pauseProcess() {
+        signalProcess("STOP");
+    }
+
+    synchronized void resumeProcess() {
+        signalProcess("CONT");
+    }
+
+    private void signalProcess(String signal) {
+        checkRunning();
+        final long pid = ProcessUtil.pid(redisProcess);
+        if (pid <= 0 || OsArchitecture.detect().os() == OS.WINDOWS || !ProcessUtil.signal(pid, signal)) {
+            throw new EmbeddedRedisException("Could not send SIG" + signal + " to " + instanceName());
+        }
+    }
+
+    private void checkRunning() {
+        if (!isProcessAlive()) {
+            throw new EmbeddedRedisException(instanceName() + " is not running");
+        }
+    }
+
 	@Override
     public synchronized void start() throws EmbeddedRedisException {
         if (active) {
             throw new EmbeddedRedisException("This redis server instance is already running...");
         }
+        for (int attempt = 0; ; attempt++) {
+            launch();
+            try {
+                awaitRedisServerReady();
+                break;
+            } catch (RuntimeException e) {
+                destroyProcess();
+                final boolean rebind = attempt < bindRetries && failedToBind();
+                deleteWorkingDir();
+                if (!rebind) {
+                    throw e;
+                }
+                rebind(rebindPortProvider.next());
+            }
+        }
+        active = true;
+        if (infoSampler != null) {
+            infoSampler.start(port);
+        }
+        if (proxy != null) {
+            startProxy();
+        }
+    }
+
+    private void startProxy() {
+        try {
+            proxy.start(port);
+        } catch (IOException e) {
+            stop();
+            throw new EmbeddedRedisException("Failed to start proxy in front of " + instanceName(), e);
+        }
+    }
+
+    private void launch() {
+        final InstanceLog newLog;
+        try {
+            workingDir = createWorkingDir();
+            beforeStart();
+            newLog = new InstanceLog(instanceName(), logBufferLines, logFile());
+        } catch (IOException e) {
+            deleteWorkingDir();
+            throw new EmbeddedRedisException("Failed to start Redis instance", e);
+        }
         try {
             redisProcess = createRedisProcessBuilder().start();
-            logErrors();
-            awaitRedisServerReady();
-            active = true;
         } catch (IOException e) {
+            newLog.close();
+            deleteWorkingDir();
             throw new EmbeddedRedisException("Failed to start Redis instance", e);
         }
+        log = newLog;
+        LogPump.INSTANCE.register(redisProcess, log);
+        InstanceRegistry.register(redisProcess, port, instanceName());
     }
 
-    private void logErrors() {
-        final InputStream errorStream = redisProcess.getErrorStream();
-        BufferedReader reader = new BufferedReader(new InputStreamReader(errorStream));
-        Runnable printReaderTask = new PrintReaderRunnable(reader);
-        executor = Executors.newSingleThreadExecutor();
-        executor.submit(printReaderTask);
+    private boolean failedToBind() {
+        try {
+            return log.awaitLine(BIND_FAILURE_PATTERN, 1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
     }
 
-    private void awaitRedisServerReady() throws IOException {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(redisProcess.getInputStream()));
-        try {
-            String outputLine;
-            do {
-                outputLine = reader.readLine();
-                if (outputLine == null) {
-                    //Something goes wrong. Stream is ended before server was activated.
-                    throw new RuntimeException("Can't start redis server. Check logs for details.");
-                }
-            } while (!outputLine.matches(redisReadyPattern()));
-        } finally {
-            IOUtils.closeQuietly(reader);
+    // settings may have added their own --port, and the last one wins, so every occurrence is rewritten
+    private void rebind(int newPort) {
+        for (int i = 1; i + 1 < args.size(); i++) {
+            if ("--port".equals(args.get(i))) {
+                args.set(i + 1, Integer.toString(newPort));
+            }
         }
+        ReservingPortProvider.release(port);
+        port = newPort;
     }
 
-    protected abstract String redisReadyPattern();
+    private File logFile() {
+        return logDirectory == null ? null : new File(logDirectory, instanceName().replace(':', '-') + ".log");
+    }
+
+    private void awaitRedisServerReady() {
+        readinessStrategy.awaitReady(redisProcess, log, port, redisReadyPattern(), startupTimeoutMillis);
+    }
+
+    /**
+     * Recent output (stdout and stderr) of the current, or last, run of this instance.
+     */
+    public List<String> recentLogLines() {
+        final InstanceLog current = log;
+        return current == null ? Collections.<String>emptyList() : current.recentLines();
+    }
+
+    protected abstract Pattern redisReadyPattern();
+
+    protected String instanceName() {
+        return "redis:" + port;
+    }
+
+    protected void beforeStart() throws IOException {
+    }
 
     private ProcessBuilder createRedisProcessBuilder() {
-        File executable = new File(args.get(0));
-        ProcessBuilder pb = new ProcessBuilder(args);
-        pb.directory(executable.getParentFile());
+        ProcessBuilder pb = new ProcessBuilder(commandLine());
+        pb.directory(workingDir);
         return pb;
     }
 
+    // taskset execs redis-server, so the pinned process is still the one we started
+    private List<String> commandLine() {
+        if (cpuAffinity.isEmpty()) {
+            return args;
+        }
+        final List<String> command = new ArrayList<String>();
+        command.add(taskset().getAbsolutePath());
+        command.add("-c");
+        command.add(Joiner.on(',').join(cpuAffinity));
+        command.addAll(args);
+        return command;
+    }
+
+    private static File taskset() {
+        for (String location : TASKSET_LOCATIONS) {
+            final File taskset = new File(location);
+            if (taskset.canExecute()) {
+                return taskset;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Private working directory of the current run, where {@code dump.rdb}, {@code appendonly.aof} and
+     * {@code nodes.conf} end up. Created on start and removed on stop; {@code null} while not running.
+     */
+    public File workingDirectory() {
+        return workingDir;
+    }
+
+    private File createWorkingDir() throws IOException {
+        final String prefix = "embedded-" + instanceName().replace(':', '-') + "-";
+        final File dir = File.createTempFile(prefix, "", workingDirRoot);
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IOException("Could not create working directory " + dir);
+        }
+        return dir;
+    }
+
+    private void deleteWorkingDir() {
+        if (workingDir != null) {
+            FileUtils.deleteQuietly(workingDir);
+            workingDir = null;
+        }
+    }
+
+    private static File defaultWorkingDirRoot() {
+        final File shm = new File(SHARED_MEMORY_DIR);
+        if (shm.isDirectory() && shm.canWrite()) {
+            return shm;
+        }
+        return new File(System.getProperty("java.io.tmpdir"));
+    }
+
     @Override
     public synchronized void stop() throws EmbeddedRedisException {
         if (active) {
-            if (executor != null && !executor.isShutdown()) {
-                executor.shutdown();
+            if (proxy != null) {
+                proxy.stop();
+            }
+            if (infoSampler != null) {
+                infoSampler.stop();
             }
-            redisProcess.destroy();
-            tryWaitFor();
+            shutdownProcess();
+            deleteWorkingDir();
+            ReservingPortProvider.release(port);
             active = false;
         }
     }
 
-    private void tryWaitFor() {
+    // a process which failed to start gets no chance to save anything
+    private void destroyProcess() {
+        FAILED_START_SHUTDOWN.shutdown(redisProcess, 0, shutdownTimeoutMillis);
+        InstanceRegistry.unregister(redisProcess);
+    }
+
+    private void shutdownProcess() {
+        final long started = System.nanoTime();
+        shutdownStrategy.shutdown(redisProcess, port, shutdownTimeoutMillis);
+        lastStopNanos = System.nanoTime() - started;
+        InstanceRegistry.unregister(redisProcess);
+        awaitLogDrained();
+    }
+
+    // so recentLogLines() holds the last words of the process once stop() returns
+    private void awaitLogDrained() {
         try {
-            redisProcess.waitFor();
+            log.awaitClosed(LOG_DRAIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
-            throw new EmbeddedRedisException("Failed to stop redis instance", e);
+            Thread.currentThread().interrupt();
         }
     }
 
+    /**
+     * Time the last {@code stop()} took to bring the process down, or {@code -1} if it was never stopped.
+     */
+    public long lastStopTime(TimeUnit unit) {
+        return lastStopNanos < 0 ? -1 : unit.convert(lastStopNanos, TimeUnit.NANOSECONDS);
+    }
+
     @Override
-    public List<Integer> ports() {
-        return Arrays.asList(port);
+    public ListenableFuture<Redis> startAsync() {
+        return startAsync(AsyncLifecycle.defaultExecutor());
     }
 
-    private static class PrintReaderRunnable implements Runnable {
-        private final BufferedReader reader;
+    @Override
+    public ListenableFuture<Redis> startAsync(Executor executor) {
+        return AsyncLifecycle.start(this, executor);
+    }
 
-        private PrintReaderRunnable(BufferedReader reader) {
-            this.reader = reader;
-        }
+    @Override
+    public ListenableFuture<Redis> stopAsync() {
+        return stopAsync(AsyncLifecycle.defaultExecutor());
+    }
 
-        public void run() {
-            try {
-                readLines();
-            } finally {
-                IOUtils.closeQuietly(reader);
-            }
-        }
+    @Override
+    public ListenableFuture<Redis> stopAsync(Executor executor) {
+        return AsyncLifecycle.stop(this, executor);
+    }
 
-        public void readLines() {
-            try {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    System.out.println(line);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+    @Override
+    public List<Integer> ports() {
+        if (port == 0) {
+            return Collections.emptyList();
         }
+        return Arrays.asList(port);
     }
 }
@@ -0,0 +1,133 @@
+package redis.embedded;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Options shared by the server and sentinel builders, applied to built instances by {@link #configure}.
+ */
+abstract class AbstractRedisInstanceBuilder<B extends AbstractRedisInstanceBuilder<B>> {
+    private File workingDirectoryRoot = AbstractRedisInstance.DEFAULT_WORKING_DIR_ROOT;
+    private ReadinessStrategy readinessStrategy;
+    private long startupTimeoutMillis = AbstractRedisInstance.DEFAULT_STARTUP_TIMEOUT_MILLIS;
+    private ShutdownStrategy shutdownStrategy;
+    private long shutdownTimeoutMillis = AbstractRedisInstance.DEFAULT_SHUTDOWN_TIMEOUT_MILLIS;
+    private int logBufferLines = InstanceLog.DEFAULT_CAPACITY;
+    private File logDirectory;
+    private List<Integer> cpuAffinity = Collections.emptyList();
+    private CpuSpread cpuSpread;
+    private long infoSamplingIntervalMillis;
+    private int infoSamplingCapacity = InfoSampler.DEFAULT_CAPACITY;
+
+    abstract B self();
+
+    /**
+     * Directory in which every instance creates its private working directory on start. Defaults to
+     * {@code /dev/shm} when available, so persistence files stay in memory, and the temp directory otherwise.
+     */
+    public B workingDirectory(File workingDirectoryRoot) {
+        this.workingDirectoryRoot = workingDirectoryRoot;
+        return self();
+    }
+
+    public B readinessStrategy(ReadinessStrategy readinessStrategy) {
+        this.readinessStrategy = readinessStrategy;
+        return self();
+    }
+
+    boolean hasReadinessStrategy() {
+        return readinessStrategy != null;
+    }
+
+    public B startupTimeout(long timeout, TimeUnit unit) {
+        this.startupTimeoutMillis = unit.toMillis(timeout);
+        return self();
+    }
+
+    /**
+     * How built instances are stopped; defaults to {@code SHUTDOWN NOSAVE} escalating to signals.
+     */
+    public B shutdownStrategy(ShutdownStrategy shutdownStrategy) {
+        this.shutdownStrategy = shutdownStrategy;
+        return self();
+    }
+
+    public B shutdownTimeout(long timeout, TimeUnit unit) {
+        this.shutdownTimeoutMillis = unit.toMillis(timeout);
+        return self();
+    }
+
+    /**
+     * Number of most recent output lines each instance keeps in memory, see {@code recentLogLines()}.
+     */
+    public B logBufferLines(int logBufferLines) {
+        if (logBufferLines < 1) {
+            throw new IllegalArgumentException("Log buffer must hold at least one line: " + logBufferLines);
+        }
+        this.logBufferLines = logBufferLines;
+        return self();
+    }
+
+    /**
+     * Additionally appends the output of each instance to {@code <name>-<port>.log} in the given directory.
+     */
+    public B logDirectory(File logDirectory) {
+        this.logDirectory = logDirectory;
+        return self();
+    }
+
+    /**
+     * Pins every built instance to the given CPUs by launching it through {@code taskset} (Linux only).
+     */
+    public B cpuAffinity(Integer... cpus) {
+        this.cpuAffinity = Arrays.asList(cpus);
+        this.cpuSpread = null;
+        return self();
+    }
+
+    /**
+     * Pins each built instance to the next CPU of the spread.
+     */
+    public B cpuSpread(CpuSpread cpuSpread) {
+        this.cpuSpread = cpuSpread;
+        this.cpuAffinity = Collections.emptyList();
+        return self();
+    }
+
+    /**
+     * Polls {@code INFO} of every built instance at the given interval while it runs, see {@code infoSampler()}.
+     */
+    public B infoSampling(long interval, TimeUnit unit) {
+        return infoSampling(interval, unit, InfoSampler.DEFAULT_CAPACITY);
+    }
+
+    public B infoSampling(long interval, TimeUnit unit, int capacity) {
+        this.infoSamplingIntervalMillis = unit.toMillis(interval);
+        this.infoSamplingCapacity = capacity;
+        return self();
+    }
+
+    boolean hasInfoSampling() {
+        return infoSamplingIntervalMillis > 0;
+    }
+
+    void configure(AbstractRedisInstance instance) {
+        instance.workingDirRoot(workingDirectoryRoot);
+        if (readinessStrategy != null) {
+            instance.readinessStrategy(readinessStrategy);
+        }
+        instance.startupTimeoutMillis(startupTimeoutMillis);
+        if (shutdownStrategy != null) {
+            instance.shutdownStrategy(shutdownStrategy);
+        }
+        instance.shutdownTimeoutMillis(shutdownTimeoutMillis);
+        instance.logging(logBufferLines, logDirectory);
+        instance.cpuAffinity(cpuSpread != null ? cpuSpread.next() : cpuAffinity);
+        if (infoSamplingIntervalMillis > 0) {
+            instance.infoSampler(new InfoSampler(infoSamplingIntervalMillis, infoSamplingCapacity));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package redis.embedded;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs blocking lifecycle operations of {@link Redis} instances on an executor and exposes them as futures.
+ */
+final class AsyncLifecycle {
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("embedded-redis-async-%d").build());
+
+    private AsyncLifecycle() {
+    }
+
+    static Executor defaultExecutor() {
+        return DEFAULT_EXECUTOR;
+    }
+
+    static ListenableFuture<Redis> start(final Redis redis, Executor executor) {
+        return submit(executor, new Callable<Redis>() {
+            @Override
+            public Redis call() throws Exception {
+                redis.start();
+                return redis;
+            }
+        });
+    }
+
+    static ListenableFuture<Redis> stop(final Redis redis, Executor executor) {
+        return submit(executor, new Callable<Redis>() {
+            @Override
+            public Redis call() throws Exception {
+                redis.stop();
+                return redis;
+            }
+        });
+    }
+
+    private static ListenableFuture<Redis> submit(Executor executor, Callable<Redis> operation) {
+        final ListenableFutureTask<Redis> task = ListenableFutureTask.create(operation);
+        executor.execute(task);
+        return task;
+    }
+}
@@ -0,0 +1,315 @@
+package redis.embedded;
+
+import com.google.common.base.Charsets;
+import org.apache.commons.io.IOUtils;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RESP client used for all control-plane traffic (readiness probes, {@code INFO} sampling, shutdown,
+ * configuration, replication checks) so the library does not depend on a client library. Replies are returned
+ * as {@link String} (status and bulk), {@link Long} (integer), {@link List} (multi-bulk) or {@code null}; error
+ * replies raise an {@link EmbeddedRedisException}, or are returned as one when nested in a multi-bulk reply.
+ * <p>
+ * Commands are encoded into, and replies parsed from, buffers owned by the connection, so the only allocations
+ * per command are the reply objects themselves. Commands can be pipelined with {@link #send(String...)} and
+ * {@link #sync()}. A connection is not thread-safe.
+ */
+public class ControlConnection implements Closeable {
+    public static final int DEFAULT_TIMEOUT_MILLIS = 5000;
+
+    private static final String LOCALHOST = "127.0.0.1";
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+
+    private final byte[] readBuffer = new byte[BUFFER_SIZE];
+    private int readPosition;
+    private int readLimit;
+    private final byte[] writeBuffer = new byte[BUFFER_SIZE];
+    private int writePosition;
+    private final byte[] digits = new byte[20];
+    private int pending;
+
+    public ControlConnection(int port) throws IOException {
+        this(LOCALHOST, port, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    public ControlConnection(String host, int port, int timeoutMillis) throws IOException {
+        socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            socket.setTcpNoDelay(true);
+            in = socket.getInputStream();
+            out = socket.getOutputStream();
+        } catch (IOException e) {
+            IOUtils.closeQuietly(socket);
+            throw e;
+        }
+    }
+
+    public Object execute(String... command) throws IOException {
+        if (pending > 0) {
+            throw new IllegalStateException(pending + " pipelined command(s) still await sync()");
+        }
+        write(command);
+        flush();
+        return checked(read());
+    }
+
+    /**
+     * Executes a command given as raw bytes, for arguments which are not text.
+     */
+    public Object execute(byte[]... command) throws IOException {
+        if (pending > 0) {
+            throw new IllegalStateException(pending + " pipelined command(s) still await sync()");
+        }
+        writeArrayHeader(command.length);
+        for (byte[] arg : command) {
+            writeBulkHeader(arg.length);
+            for (byte b : arg) {
+                writeByte(b);
+            }
+            writeByte('\r');
+            writeByte('\n');
+        }
+        flush();
+        return checked(read());
+    }
+
+    /**
+     * Reads the next reply without sending anything, for connections which stream replies such as
+     * {@code MONITOR} or subscriptions. Blocks up to the connection's timeout.
+     */
+    public Object receive() throws IOException {
+        return checked(read());
+    }
+
+    public String executeForString(String... command) throws IOException {
+        final Object reply = execute(command);
+        return reply == null ? null : reply.toString();
+    }
+
+    /**
+     * Queues a command without waiting for its reply. Queued commands go out when the send buffer fills up
+     * or on {@link #sync()}.
+     */
+    public void send(String... command) throws IOException {
+        write(command);
+        pending++;
+    }
+
+    /**
+     * Sends all queued commands and reads their replies, in order. When any command failed, all replies are
+     * still consumed and the first error is thrown.
+     */
+    public List<Object> sync() throws IOException {
+        flush();
+        final List<Object> replies = new ArrayList<Object>(pending);
+        EmbeddedRedisException firstError = null;
+        while (pending > 0) {
+            pending--;
+            final Object reply = read();
+            if (reply instanceof EmbeddedRedisException && firstError == null) {
+                firstError = (EmbeddedRedisException) reply;
+            }
+            replies.add(reply);
+        }
+        if (firstError != null) {
+            throw firstError;
+        }
+        return replies;
+    }
+
+    private static Object checked(Object reply) {
+        if (reply instanceof EmbeddedRedisException) {
+            throw (EmbeddedRedisException) reply;
+        }
+        return reply;
+    }
+
+    private void write(String... command) throws IOException {
+        writeArrayHeader(command.length);
+        for (String arg : command) {
+            if (isAscii(arg)) {
+                writeBulkHeader(arg.length());
+                for (int i = 0; i < arg.length(); i++) {
+                    writeByte(arg.charAt(i));
+                }
+            } else {
+                final byte[] bytes = arg.getBytes(Charsets.UTF_8);
+                writeBulkHeader(bytes.length);
+                for (byte b : bytes) {
+                    writeByte(b);
+                }
+            }
+            writeByte('\r');
+            writeByte('\n');
+        }
+    }
+
+    private void writeArrayHeader(int length) throws IOException {
+        writeByte('*');
+        writeNumber(length);
+    }
+
+    private void writeBulkHeader(int length) throws IOException {
+        writeByte('$');
+        writeNumber(length);
+    }
+
+    private static boolean isAscii(String arg) {
+        for (int i = 0; i < arg.length(); i++) {
+            if (arg.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeNumber(int number) throws IOException {
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' + number % 10);
+            number /= 10;
+        } while (number > 0);
+        while (count > 0) {
+            writeByte(digits[--count]);
+        }
+        writeByte('\r');
+        writeByte('\n');
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (writePosition == writeBuffer.length) {
+            flush();
+        }
+        writeBuffer[writePosition++] = (byte) b;
+    }
+
+    private void flush() throws IOException {
+        if (writePosition > 0) {
+            out.write(writeBuffer, 0, writePosition);
+            writePosition = 0;
+        }
+    }
+
+    private Object read() throws IOException {
+        final int type = readByte();
+        switch (type) {
+            case '+':
+                return readLine();
+            case '-':
+                return new EmbeddedRedisException("Redis replied with error: " + readLine());
+            case ':':
+                return readNumber();
+            case '$':
+                return readBulk();
+            case '*':
+                return readMultiBulk();
+            default:
+                throw new IOException("Unexpected reply type: " + (char) type);
+        }
+    }
+
+    private String readBulk() throws IOException {
+        final int length = (int) readNumber();
+        if (length < 0) {
+            return null;
+        }
+        final String bulk;
+        if (readLimit - readPosition >= length) {
+            bulk = new String(readBuffer, readPosition, length, Charsets.UTF_8);
+            readPosition += length;
+        } else {
+            final byte[] bytes = new byte[length];
+            final int buffered = readLimit - readPosition;
+            System.arraycopy(readBuffer, readPosition, bytes, 0, buffered);
+            readPosition = readLimit;
+            IOUtils.readFully(in, bytes, buffered, length - buffered);
+            bulk = new String(bytes, Charsets.UTF_8);
+        }
+        skipLineEnd();
+        return bulk;
+    }
+
+    private List<Object> readMultiBulk() throws IOException {
+        final int count = (int) readNumber();
+        if (count < 0) {
+            return null;
+        }
+        final List<Object> replies = new ArrayList<Object>(count);
+        for (int i = 0; i < count; i++) {
+            replies.add(read());
+        }
+        return replies;
+    }
+
+    private long readNumber() throws IOException {
+        int c = readByte();
+        final boolean negative = c == '-';
+        if (negative) {
+            c = readByte();
+        }
+        long number = 0;
+        while (c != '\r') {
+            number = number * 10 + (c - '0');
+            c = readByte();
+        }
+        readByte();
+        return negative ? -number : number;
+    }
+
+    private String readLine() throws IOException {
+        for (int i = readPosition; i < readLimit; i++) {
+            if (readBuffer[i] == '\r') {
+                final String line = new String(readBuffer, readPosition, i - readPosition, Charsets.UTF_8);
+                readPosition = i + 1;
+                readByte();
+                return line;
+            }
+        }
+        // the line continues beyond the buffered bytes
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int c;
+        while ((c = readByte()) != '\r') {
+            line.write(c);
+        }
+        readByte();
+        return new String(line.toByteArray(), Charsets.UTF_8);
+    }
+
+    private void skipLineEnd() throws IOException {
+        readByte();
+        readByte();
+    }
+
+    private int readByte() throws IOException {
+        if (readPosition == readLimit) {
+            final int read = in.read(readBuffer);
+            if (read <= 0) {
+                throw new IOException("Connection closed by redis instance");
+            }
+            readPosition = 0;
+            readLimit = read;
+        }
+        return readBuffer[readPosition++] & 0xff;
+    }
+
+    @Override
+    public void close() {
+        IOUtils.closeQuietly(socket);
+    }
+}
@@ -0,0 +1,112 @@
+package redis.embedded;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Spreads instances over CPUs, one CPU per server in turn, while keeping the first CPUs free for the
+ * client side (load generators, the test itself). When the host has no CPU left after the reservation,
+ * instances share all CPUs. On Linux only the CPUs the JVM may run on ({@code Cpus_allowed_list}, e.g. a
+ * container cpuset like {@code 4-7}) are used.
+ */
+public class CpuSpread {
+    private static final File PROC_STATUS = new File("/proc/self/status");
+    private static final String CPUS_ALLOWED_FIELD = "Cpus_allowed_list:";
+
+    private final List<Integer> clientCpus = new ArrayList<Integer>();
+    private final List<Integer> instanceCpus = new ArrayList<Integer>();
+    private int next = 0;
+
+    CpuSpread(List<Integer> cpus, int reservedForClients) {
+        if (reservedForClients < 0) {
+            throw new IllegalArgumentException("Reserved CPU count cannot be negative: " + reservedForClients);
+        }
+        for (int i = 0; i < cpus.size(); i++) {
+            if (i < reservedForClients) {
+                clientCpus.add(cpus.get(i));
+            } else {
+                instanceCpus.add(cpus.get(i));
+            }
+        }
+        if (instanceCpus.isEmpty()) {
+            instanceCpus.addAll(clientCpus);
+        }
+    }
+
+    public static CpuSpread reserveForClients(int reservedForClients) {
+        return new CpuSpread(allowedCpus(), reservedForClients);
+    }
+
+    public static CpuSpread allCpus() {
+        return reserveForClients(0);
+    }
+
+    /**
+     * CPUs left for the client side, e.g. to pin the load generator with {@code taskset}.
+     */
+    public List<Integer> clientCpus() {
+        return Collections.unmodifiableList(clientCpus);
+    }
+
+    public List<Integer> instanceCpus() {
+        return Collections.unmodifiableList(instanceCpus);
+    }
+
+    /**
+     * CPU for the next instance, cycling through the instance CPUs.
+     */
+    public synchronized List<Integer> next() {
+        final Integer cpu = instanceCpus.get(next);
+        next = (next + 1) % instanceCpus.size();
+        return Collections.singletonList(cpu);
+    }
+
+    static List<Integer> allowedCpus() {
+        try {
+            if (PROC_STATUS.isFile()) {
+                for (String line : Files.readLines(PROC_STATUS, Charsets.US_ASCII)) {
+                    if (line.startsWith(CPUS_ALLOWED_FIELD)) {
+                        return parseCpuList(line.substring(CPUS_ALLOWED_FIELD.length()));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // fall back to the processor count
+        } catch (IllegalArgumentException e) {
+            // fall back to the processor count
+        }
+        final List<Integer> cpus = new ArrayList<Integer>();
+        for (int cpu = 0; cpu < Runtime.getRuntime().availableProcessors(); cpu++) {
+            cpus.add(cpu);
+        }
+        return cpus;
+    }
+
+    /**
+     * Parses a kernel CPU list such as {@code 0-3,8,10-11}.
+     */
+    static List<Integer> parseCpuList(String list) {
+        final List<Integer> cpus = new ArrayList<Integer>();
+        for (String part : list.trim().split(",")) {
+            if (part.isEmpty()) {
+                continue;
+            }
+            final int dash = part.indexOf('-');
+            final int first = Integer.parseInt(dash < 0 ? part : part.substring(0, dash));
+            final int last = dash < 0 ? first : Integer.parseInt(part.substring(dash + 1));
+            for (int cpu = first; cpu <= last; cpu++) {
+                cpus.add(cpu);
+            }
+        }
+        if (cpus.isEmpty()) {
+            throw new IllegalArgumentException("Empty CPU list: " + list);
+        }
+        return cpus;
+    }
+}
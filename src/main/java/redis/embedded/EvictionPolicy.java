@@ -0,0 +1,31 @@
+package redis.embedded;
+
+/**
+ * Presets for the {@code maxmemory-policy} applied once an instance reaches its {@code maxmemory}.
+ */
+public enum EvictionPolicy {
+    NOEVICTION("noeviction"),
+    ALLKEYS_LRU("allkeys-lru"),
+    VOLATILE_LRU("volatile-lru"),
+    ALLKEYS_RANDOM("allkeys-random"),
+    VOLATILE_RANDOM("volatile-random"),
+    VOLATILE_TTL("volatile-ttl"),
+    /**
+     * Requires redis 4.0 or newer.
+     */
+    ALLKEYS_LFU("allkeys-lfu"),
+    /**
+     * Requires redis 4.0 or newer.
+     */
+    VOLATILE_LFU("volatile-lfu");
+
+    private final String configValue;
+
+    EvictionPolicy(String configValue) {
+        this.configValue = configValue;
+    }
+
+    public String configValue() {
+        return configValue;
+    }
+}
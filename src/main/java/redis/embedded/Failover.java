@@ -0,0 +1,136 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes a replication group lose its master and follows the failover through one sentinel: when the master
+ * is flagged down, when a slave is announced as the new master, and when that master accepts writes.
+ */
+class Failover {
+    private static final long POLL_INTERVAL_MILLIS = 5L;
+    private static final String PROBE_KEY = "embedded-redis:failover-probe";
+
+    private final int sentinelPort;
+    private final String masterName;
+    private final FailoverTrigger trigger;
+    private final long timeoutMillis;
+
+    Failover(int sentinelPort, String masterName, FailoverTrigger trigger, long timeoutMillis) {
+        this.sentinelPort = sentinelPort;
+        this.masterName = masterName;
+        this.trigger = trigger;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * @param master node currently serving as master of the group; must be a started instance unless
+     *               the trigger is {@link FailoverTrigger#SENTINEL_FAILOVER}
+     */
+    FailoverReport run(Redis master) throws IOException, InterruptedException {
+        final ControlConnection sentinel = new ControlConnection(sentinelPort);
+        try {
+            final int oldMasterPort = masterPort(sentinel);
+            final long started = System.nanoTime();
+            final long deadline = started + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            pull(master, sentinel);
+            try {
+                long detected = trigger == FailoverTrigger.SENTINEL_FAILOVER ? started : -1L;
+                int newMasterPort;
+                while ((newMasterPort = masterPort(sentinel)) == oldMasterPort) {
+                    if (detected < 0 && isFlaggedDown(sentinel)) {
+                        detected = System.nanoTime();
+                    }
+                    checkDeadline(deadline);
+                    Thread.sleep(POLL_INTERVAL_MILLIS);
+                }
+                final long promoted = System.nanoTime();
+                if (detected < 0) {
+                    detected = promoted;
+                }
+                awaitWritable(newMasterPort, deadline);
+                final long writable = System.nanoTime();
+                return new FailoverReport(masterName, trigger, oldMasterPort, newMasterPort,
+                        detected - started, promoted - started, writable - started);
+            } finally {
+                if (trigger == FailoverTrigger.PAUSE_MASTER) {
+                    ((AbstractRedisInstance) master).resumeProcess();
+                }
+            }
+        } finally {
+            sentinel.close();
+        }
+    }
+
+    private void pull(Redis master, ControlConnection sentinel) throws IOException {
+        switch (trigger) {
+            case KILL_MASTER:
+                instance(master).killProcess();
+                break;
+            case PAUSE_MASTER:
+                instance(master).pauseProcess();
+                break;
+            case SENTINEL_FAILOVER:
+                sentinel.execute("SENTINEL", "FAILOVER", masterName);
+                break;
+        }
+    }
+
+    private AbstractRedisInstance instance(Redis master) {
+        if (!(master instanceof AbstractRedisInstance)) {
+            throw new EmbeddedRedisException("Cannot " + trigger + " a master which is not an embedded instance");
+        }
+        return (AbstractRedisInstance) master;
+    }
+
+    private int masterPort(ControlConnection sentinel) throws IOException {
+        final List<?> address = (List<?>) sentinel.execute("SENTINEL", "get-master-addr-by-name", masterName);
+        if (address == null) {
+            throw new EmbeddedRedisException("Sentinel does not monitor a master named " + masterName);
+        }
+        return Integer.parseInt(String.valueOf(address.get(1)));
+    }
+
+    private boolean isFlaggedDown(ControlConnection sentinel) throws IOException {
+        final List<?> fields = (List<?>) sentinel.execute("SENTINEL", "master", masterName);
+        final Map<String, String> master = new HashMap<String, String>();
+        for (int i = 0; i + 1 < fields.size(); i += 2) {
+            master.put(String.valueOf(fields.get(i)), String.valueOf(fields.get(i + 1)));
+        }
+        final String flags = master.get("flags");
+        return flags != null && (flags.contains("s_down") || flags.contains("o_down"));
+    }
+
+    // a promoted slave may refuse writes (READONLY) or connections for a moment
+    private void awaitWritable(int port, long deadline) throws InterruptedException {
+        while (true) {
+            try {
+                final ControlConnection master = new ControlConnection(port);
+                try {
+                    master.execute("SET", PROBE_KEY, "1", "PX", "1000");
+                    return;
+                } finally {
+                    master.close();
+                }
+            } catch (IOException e) {
+                // not reachable yet
+            } catch (EmbeddedRedisException e) {
+                // not writable yet
+            }
+            checkDeadline(deadline);
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        }
+    }
+
+    private void checkDeadline(long deadline) {
+        if (System.nanoTime() - deadline > 0) {
+            throw new EmbeddedRedisException("Failover of " + masterName + " did not complete within "
+                    + timeoutMillis + " ms");
+        }
+    }
+}
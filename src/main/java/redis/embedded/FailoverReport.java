@@ -0,0 +1,75 @@
+package redis.embedded;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timings of a failover triggered through {@link RedisCluster}, each measured by polling a sentinel and
+ * the promoted master every few milliseconds.
+ */
+public final class FailoverReport {
+    private final String masterName;
+    private final FailoverTrigger trigger;
+    private final int oldMasterPort;
+    private final int newMasterPort;
+    private final long detectedNanos;
+    private final long promotedNanos;
+    private final long writableNanos;
+
+    FailoverReport(String masterName, FailoverTrigger trigger, int oldMasterPort, int newMasterPort,
+                   long detectedNanos, long promotedNanos, long writableNanos) {
+        this.masterName = masterName;
+        this.trigger = trigger;
+        this.oldMasterPort = oldMasterPort;
+        this.newMasterPort = newMasterPort;
+        this.detectedNanos = detectedNanos;
+        this.promotedNanos = promotedNanos;
+        this.writableNanos = writableNanos;
+    }
+
+    public String masterName() {
+        return masterName;
+    }
+
+    public FailoverTrigger trigger() {
+        return trigger;
+    }
+
+    public int oldMasterPort() {
+        return oldMasterPort;
+    }
+
+    public int newMasterPort() {
+        return newMasterPort;
+    }
+
+    /**
+     * Time from the trigger until the sentinel flagged the master as down, {@code 0} for
+     * {@link FailoverTrigger#SENTINEL_FAILOVER}.
+     */
+    public long detectionTime(TimeUnit unit) {
+        return unit.convert(detectedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Time from detection until the sentinel announced the promoted slave as the new master.
+     */
+    public long electionTime(TimeUnit unit) {
+        return unit.convert(promotedNanos - detectedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Time from the trigger until the new master accepted a write.
+     */
+    public long writeOutageTime(TimeUnit unit) {
+        return unit.convert(writableNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "FailoverReport{" + masterName + " " + oldMasterPort + " -> " + newMasterPort
+                + ", trigger=" + trigger
+                + ", detection=" + detectionTime(TimeUnit.MILLISECONDS) + "ms"
+                + ", election=" + electionTime(TimeUnit.MILLISECONDS) + "ms"
+                + ", writeOutage=" + writeOutageTime(TimeUnit.MILLISECONDS) + "ms}";
+    }
+}
@@ -0,0 +1,21 @@
+package redis.embedded;
+
+/**
+ * How {@link RedisCluster#failover(String, FailoverTrigger, long, java.util.concurrent.TimeUnit)} makes a
+ * replication group lose its master.
+ */
+public enum FailoverTrigger {
+    /**
+     * Kills the master with {@code SIGKILL}; it stays down until the node is stopped and started again.
+     */
+    KILL_MASTER,
+    /**
+     * Freezes the master with {@code SIGSTOP} and resumes it once the failover completed, after which the
+     * sentinels turn it into a slave of the new master. Unix only.
+     */
+    PAUSE_MASTER,
+    /**
+     * Leaves the master running and issues {@code SENTINEL FAILOVER}, which skips failure detection.
+     */
+    SENTINEL_FAILOVER
+}
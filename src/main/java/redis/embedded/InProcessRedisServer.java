@@ -0,0 +1,121 @@
+package redis.embedded;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.inprocess.RespServer;
+import redis.embedded.ports.ReservingPortProvider;
+import redis.embedded.proxy.RedisProxy;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Redis server served by an in-process engine instead of a forked redis binary, see {@link RespServer}. Starts
+ * in about a millisecond and needs no executable, at the price of covering only the common commands; use
+ * {@link RedisServer} when a test depends on exact redis behaviour, persistence or replication.
+ */
+public class InProcessRedisServer implements Redis {
+    private final PortProvider rebindPortProvider;
+    private final int bindRetries;
+    private RespServer server;
+    private RedisProxy proxy;
+    private int port;
+
+    public InProcessRedisServer(int port) {
+        this(port, null, 0);
+    }
+
+    InProcessRedisServer(int port, PortProvider rebindPortProvider, int bindRetries) {
+        this.port = port;
+        this.rebindPortProvider = rebindPortProvider;
+        this.bindRetries = bindRetries;
+        this.server = new RespServer(port);
+    }
+
+    void proxy(RedisProxy proxy) {
+        this.proxy = proxy;
+    }
+
+    /**
+     * Proxy started in front of this server, or {@code null} when none was configured on the builder.
+     */
+    public RedisProxy proxy() {
+        return proxy;
+    }
+
+    @Override
+    public boolean isActive() {
+        return server.isActive();
+    }
+
+    @Override
+    public synchronized void start() throws EmbeddedRedisException {
+        if (server.isActive()) {
+            throw new EmbeddedRedisException("This redis server instance is already running...");
+        }
+        for (int attempt = 0; ; attempt++) {
+            try {
+                server.start();
+                break;
+            } catch (BindException e) {
+                if (rebindPortProvider == null || attempt >= bindRetries) {
+                    throw new EmbeddedRedisException("Could not bind in-process redis to port " + port, e);
+                }
+                ReservingPortProvider.release(port);
+                port = rebindPortProvider.next();
+                server = new RespServer(port);
+            } catch (IOException e) {
+                throw new EmbeddedRedisException("Failed to start in-process redis on port " + port, e);
+            }
+        }
+        port = server.port();
+        if (proxy != null) {
+            try {
+                proxy.start(port);
+            } catch (IOException e) {
+                server.stop();
+                throw new EmbeddedRedisException("Failed to start proxy in front of port " + port, e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void stop() throws EmbeddedRedisException {
+        if (proxy != null) {
+            proxy.stop();
+        }
+        server.stop();
+        ReservingPortProvider.release(port);
+    }
+
+    @Override
+    public ListenableFuture<Redis> startAsync() {
+        return startAsync(AsyncLifecycle.defaultExecutor());
+    }
+
+    @Override
+    public ListenableFuture<Redis> startAsync(Executor executor) {
+        return AsyncLifecycle.start(this, executor);
+    }
+
+    @Override
+    public ListenableFuture<Redis> stopAsync() {
+        return stopAsync(AsyncLifecycle.defaultExecutor());
+    }
+
+    @Override
+    public ListenableFuture<Redis> stopAsync(Executor executor) {
+        return AsyncLifecycle.stop(this, executor);
+    }
+
+    /**
+     * The listen port; when constructed with port {@code 0}, the ephemeral port picked on start.
+     */
+    @Override
+    public List<Integer> ports() {
+        return Arrays.asList(port);
+    }
+}
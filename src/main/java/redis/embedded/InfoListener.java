@@ -0,0 +1,8 @@
+package redis.embedded;
+
+/**
+ * Receives every {@link InfoSnapshot} taken by an {@link InfoSampler}, on the sampling thread.
+ */
+public interface InfoListener {
+    void onSample(InfoSnapshot snapshot);
+}
@@ -0,0 +1,185 @@
+package redis.embedded;
+
+import com.google.common.base.Predicate;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls {@code INFO} of a running instance at a fixed interval and keeps the most recent snapshots as a
+ * time series. Sampling starts when the instance is ready and stops when it is stopped. All samplers share
+ * one daemon thread.
+ */
+public class InfoSampler {
+    public static final int DEFAULT_CAPACITY = 3600;
+
+    private static final String LOCALHOST = "127.0.0.1";
+    // independent of the interval, so a short interval does not make INFO on a busy or forking instance time out
+    private static final int CONNECTION_TIMEOUT_MILLIS = 1000;
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("embedded-redis-info-%d").build());
+
+    private final long intervalMillis;
+    private final int capacity;
+    private final ArrayDeque<InfoSnapshot> snapshots = new ArrayDeque<InfoSnapshot>();
+    private final List<InfoListener> listeners = new CopyOnWriteArrayList<InfoListener>();
+
+    private int port;
+    private ControlConnection connection;
+    private ScheduledFuture<?> task;
+
+    InfoSampler(long intervalMillis, int capacity) {
+        if (intervalMillis < 1) {
+            throw new IllegalArgumentException("Sampling interval must be positive: " + intervalMillis);
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Sampler must keep at least one snapshot: " + capacity);
+        }
+        this.intervalMillis = intervalMillis;
+        this.capacity = capacity;
+    }
+
+    public long interval(TimeUnit unit) {
+        return unit.convert(intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public InfoSampler addListener(InfoListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    public void removeListener(InfoListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Snapshots kept so far, oldest first.
+     */
+    public synchronized List<InfoSnapshot> snapshots() {
+        return new ArrayList<InfoSnapshot>(snapshots);
+    }
+
+    public synchronized InfoSnapshot latest() {
+        return snapshots.peekLast();
+    }
+
+    public synchronized void clear() {
+        snapshots.clear();
+    }
+
+    /**
+     * Waits for the first snapshot, taken from now on, matching the condition.
+     */
+    public synchronized InfoSnapshot await(Predicate<InfoSnapshot> condition, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        InfoSnapshot seen = snapshots.peekLast();
+        while (true) {
+            final InfoSnapshot last = snapshots.peekLast();
+            if (last != seen && last != null && condition.apply(last)) {
+                return last;
+            }
+            seen = last;
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new EmbeddedRedisException("No INFO snapshot of port " + port + " matched within "
+                        + unit.toMillis(timeout) + " ms, latest: " + last);
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+    }
+
+    synchronized void start(int port) {
+        if (task != null) {
+            return;
+        }
+        this.port = port;
+        task = SCHEDULER.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                sample();
+            }
+        }, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void stop() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+        closeConnection();
+    }
+
+    // INFO is read outside the monitor, so a stalled instance never blocks snapshots(), latest() or stop();
+    // the read timeout bounds how long it can hold up the other samplers on the shared thread.
+    private void sample() {
+        final ScheduledFuture<?> sampling;
+        final int samplePort;
+        ControlConnection sampleConnection;
+        synchronized (this) {
+            if (task == null) {
+                return;
+            }
+            sampling = task;
+            samplePort = port;
+            sampleConnection = connection;
+            connection = null;
+        }
+
+        final InfoSnapshot snapshot;
+        try {
+            if (sampleConnection == null) {
+                sampleConnection = new ControlConnection(LOCALHOST, samplePort, CONNECTION_TIMEOUT_MILLIS);
+            }
+            snapshot = InfoSnapshot.parse(samplePort, System.currentTimeMillis(),
+                    sampleConnection.executeForString("INFO"));
+        } catch (IOException e) {
+            close(sampleConnection);
+            return;
+        } catch (EmbeddedRedisException e) {
+            close(sampleConnection);
+            return;
+        }
+
+        synchronized (this) {
+            if (task != sampling) {
+                // stopped, or restarted on another port, while sampling
+                close(sampleConnection);
+                return;
+            }
+            connection = sampleConnection;
+            if (snapshots.size() == capacity) {
+                snapshots.removeFirst();
+            }
+            snapshots.addLast(snapshot);
+            notifyAll();
+        }
+        for (InfoListener listener : listeners) {
+            try {
+                listener.onSample(snapshot);
+            } catch (RuntimeException e) {
+                // a failing listener must not cancel sampling
+            }
+        }
+    }
+
+    private void closeConnection() {
+        close(connection);
+        connection = null;
+    }
+
+    private static void close(ControlConnection connection) {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package redis.embedded;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One parsed {@code INFO} reply of an instance. Numeric accessors return {@code -1} when the field is not
+ * reported, e.g. memory on a sentinel or replication offsets on older versions.
+ */
+public class InfoSnapshot {
+    private final int port;
+    private final long timestampMillis;
+    private final Map<String, String> fields;
+
+    InfoSnapshot(int port, long timestampMillis, Map<String, String> fields) {
+        this.port = port;
+        this.timestampMillis = timestampMillis;
+        this.fields = Collections.unmodifiableMap(fields);
+    }
+
+    static InfoSnapshot parse(int port, long timestampMillis, String info) {
+        final Map<String, String> fields = new LinkedHashMap<String, String>();
+        for (String line : info.split("\r?\n")) {
+            final int separator = line.indexOf(':');
+            if (line.startsWith("#") || separator < 0) {
+                continue;
+            }
+            fields.put(line.substring(0, separator), line.substring(separator + 1).trim());
+        }
+        return new InfoSnapshot(port, timestampMillis, fields);
+    }
+
+    public int port() {
+        return port;
+    }
+
+    public long timestampMillis() {
+        return timestampMillis;
+    }
+
+    public String role() {
+        return get("role");
+    }
+
+    public long opsPerSecond() {
+        return getLong("instantaneous_ops_per_sec");
+    }
+
+    public long totalCommandsProcessed() {
+        return getLong("total_commands_processed");
+    }
+
+    public long usedMemory() {
+        return getLong("used_memory");
+    }
+
+    public long connectedClients() {
+        return getLong("connected_clients");
+    }
+
+    public long keyspaceHits() {
+        return getLong("keyspace_hits");
+    }
+
+    public long keyspaceMisses() {
+        return getLong("keyspace_misses");
+    }
+
+    public long masterReplOffset() {
+        return getLong("master_repl_offset");
+    }
+
+    public long slaveReplOffset() {
+        return getLong("slave_repl_offset");
+    }
+
+    public String get(String field) {
+        return fields.get(field);
+    }
+
+    public long getLong(String field) {
+        final String value = fields.get(field);
+        if (value == null) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    public Map<String, String> fields() {
+        return fields;
+    }
+
+    @Override
+    public String toString() {
+        return "InfoSnapshot{port=" + port + ", role=" + role() + ", opsPerSecond=" + opsPerSecond()
+                + ", usedMemory=" + usedMemory() + ", connectedClients=" + connectedClients()
+                + ", keyspaceHits=" + keyspaceHits() + ", keyspaceMisses=" + keyspaceMisses()
+                + ", masterReplOffset=" + masterReplOffset() + ", slaveReplOffset=" + slaveReplOffset() + "}";
+    }
+}
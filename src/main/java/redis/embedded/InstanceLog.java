@@ -0,0 +1,140 @@
+package redis.embedded;
+
+import com.google.common.base.Charsets;
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Output of a single run of an instance: the last {@code capacity} lines of stdout and stderr in a
+ * ring buffer, optionally mirrored to a log file. Lines are fed by the shared {@link LogPump}.
+ */
+public class InstanceLog {
+    static final int DEFAULT_CAPACITY = 1000;
+
+    private final String name;
+    private final int capacity;
+    private final ArrayDeque<String> lines;
+    private final Writer fileWriter;
+    private long appended = 0;
+    private int openStreams = 0;
+
+    InstanceLog(String name, int capacity, File logFile) throws IOException {
+        this.name = name;
+        this.capacity = capacity;
+        this.lines = new ArrayDeque<String>(Math.min(capacity, 64));
+        this.fileWriter = logFile == null ? null
+                : new OutputStreamWriter(new FileOutputStream(logFile, true), Charsets.UTF_8);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public synchronized List<String> recentLines() {
+        return new ArrayList<String>(lines);
+    }
+
+    public synchronized boolean isClosed() {
+        return openStreams == 0;
+    }
+
+    /**
+     * Waits until a buffered or newly logged line matches {@code pattern}.
+     *
+     * @return {@code true} when a matching line was found, {@code false} when all streams of the instance
+     * were closed or the timeout expired first
+     */
+    public synchronized boolean awaitLine(Pattern pattern, long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long cursor = appended - lines.size();
+        while (true) {
+            final Iterator<String> it = lines.iterator();
+            for (long seq = appended - lines.size(); it.hasNext(); seq++) {
+                final String line = it.next();
+                if (seq >= cursor && pattern.matcher(line).matches()) {
+                    return true;
+                }
+            }
+            cursor = appended;
+            final long remaining = deadline - System.nanoTime();
+            if (openStreams == 0 || remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+    }
+
+    /**
+     * Waits until the output of the exited process has been drained.
+     */
+    synchronized boolean awaitClosed(long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (openStreams > 0) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    synchronized void streamOpened() {
+        openStreams++;
+    }
+
+    void append(String line, boolean error) {
+        synchronized (this) {
+            if (lines.size() == capacity) {
+                lines.removeFirst();
+            }
+            lines.addLast(line);
+            appended++;
+            if (fileWriter != null) {
+                try {
+                    fileWriter.write(line);
+                    fileWriter.write('\n');
+                } catch (IOException ignored) {
+                    // the ring buffer still has the line
+                }
+            }
+            notifyAll();
+        }
+        if (error) {
+            System.out.println("[" + name + "] " + line);
+        }
+    }
+
+    synchronized void flush() {
+        if (fileWriter != null) {
+            try {
+                fileWriter.flush();
+            } catch (IOException ignored) {
+                // ignore
+            }
+        }
+    }
+
+    synchronized void streamClosed() {
+        openStreams--;
+        if (openStreams == 0) {
+            close();
+        }
+        notifyAll();
+    }
+
+    synchronized void close() {
+        IOUtils.closeQuietly(fileWriter);
+    }
+}
@@ -0,0 +1,182 @@
+package redis.embedded;
+
+import com.google.common.io.Files;
+import redis.embedded.util.ProcessUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records every started instance (pid, port, owning JVM and its start time) as a file in a directory shared by all JVMs on the
+ * host, so instances surviving a crashed or killed test JVM can be found and killed later.
+ * <p>
+ * A shutdown hook kills the instances this JVM still owns, and orphans of dead JVMs are reaped the first
+ * time this JVM starts an instance. {@link #reapOrphans()} can also be called directly, e.g. by a CI agent
+ * before a build. The directory defaults to {@code <java.io.tmpdir>/embedded-redis-instances} and can be
+ * changed with the {@code embedded-redis.registry.dir} system property.
+ */
+public final class InstanceRegistry {
+    public static final String REGISTRY_DIR_PROPERTY = "embedded-redis.registry.dir";
+
+    private static final String RECORD_SUFFIX = ".instance";
+    private static final String PID = "pid";
+    private static final String PORT = "port";
+    private static final String OWNER_PID = "owner.pid";
+    private static final String OWNER_START_TIME = "owner.start";
+    private static final String COMMAND = "command";
+
+    private static final Map<Process, File> OWN_INSTANCES = new ConcurrentHashMap<Process, File>();
+    private static boolean initialized = false;
+
+    private InstanceRegistry() {
+    }
+
+    static void register(Process process, int port, String command) {
+        final long pid = ProcessUtil.pid(process);
+        final long ownerPid = ProcessUtil.currentPid();
+        if (pid <= 0 || ownerPid <= 0) {
+            return;
+        }
+        initialize();
+        final Properties record = new Properties();
+        record.setProperty(PID, Long.toString(pid));
+        record.setProperty(PORT, Integer.toString(port));
+        record.setProperty(OWNER_PID, Long.toString(ownerPid));
+        final String ownerStartTime = ProcessUtil.startTime(ownerPid);
+        if (ownerStartTime != null) {
+            record.setProperty(OWNER_START_TIME, ownerStartTime);
+        }
+        record.setProperty(COMMAND, command);
+        final File file = new File(registryDir(), pid + RECORD_SUFFIX);
+        try {
+            write(record, file);
+            OWN_INSTANCES.put(process, file);
+        } catch (IOException e) {
+            // the registry is best effort; the instance runs regardless
+        }
+    }
+
+    static void unregister(Process process) {
+        final File file = OWN_INSTANCES.remove(process);
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    /**
+     * Kills every registered instance whose owning JVM is no longer running.
+     *
+     * @return number of orphaned instances killed
+     */
+    public static int reapOrphans() {
+        final File[] records = registryDir().listFiles();
+        if (records == null) {
+            return 0;
+        }
+        int reaped = 0;
+        for (File file : records) {
+            if (!file.getName().endsWith(RECORD_SUFFIX)) {
+                continue;
+            }
+            final Properties record;
+            try {
+                record = read(file);
+            } catch (IOException e) {
+                continue;
+            }
+            final long ownerPid = parsePid(record.getProperty(OWNER_PID));
+            final long pid = parsePid(record.getProperty(PID));
+            if (ownerPid <= 0 || pid <= 0 || isOwnerAlive(ownerPid, record.getProperty(OWNER_START_TIME))) {
+                continue;
+            }
+            if (ProcessUtil.isAlive(pid) && isRedis(pid) && ProcessUtil.kill(pid)) {
+                reaped++;
+            }
+            file.delete();
+        }
+        return reaped;
+    }
+
+    // a live process with the owner's pid but another start time is an unrelated one which reused the pid
+    private static boolean isOwnerAlive(long ownerPid, String recordedStartTime) {
+        if (!ProcessUtil.isAlive(ownerPid)) {
+            return false;
+        }
+        final String startTime = ProcessUtil.startTime(ownerPid);
+        return recordedStartTime == null || startTime == null || recordedStartTime.equals(startTime);
+    }
+
+    // guards against killing an unrelated process which reused the pid; unknown command lines are left alone
+    private static boolean isRedis(long pid) {
+        final String commandLine = ProcessUtil.commandLine(pid);
+        return commandLine != null && commandLine.contains("redis");
+    }
+
+    private static synchronized void initialize() {
+        if (initialized) {
+            return;
+        }
+        initialized = true;
+        reapOrphans();
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                killOwnInstances();
+            }
+        }, "embedded-redis-registry-shutdown"));
+    }
+
+    private static void killOwnInstances() {
+        for (Map.Entry<Process, File> instance : OWN_INSTANCES.entrySet()) {
+            ProcessUtil.kill(instance.getKey());
+            instance.getValue().delete();
+        }
+        OWN_INSTANCES.clear();
+    }
+
+    private static long parsePid(String value) {
+        try {
+            return value == null ? -1L : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    static File registryDir() {
+        final String configured = System.getProperty(REGISTRY_DIR_PROPERTY);
+        final File dir = configured != null
+                ? new File(configured)
+                : new File(System.getProperty("java.io.tmpdir"), "embedded-redis-instances");
+        dir.mkdirs();
+        return dir;
+    }
+
+    private static void write(Properties record, File file) throws IOException {
+        final File part = new File(file.getPath() + ".part");
+        final OutputStream out = new FileOutputStream(part);
+        try {
+            record.store(out, null);
+        } finally {
+            out.close();
+        }
+        Files.move(part, file);
+    }
+
+    private static Properties read(File file) throws IOException {
+        final Properties record = new Properties();
+        final InputStream in = new FileInputStream(file);
+        try {
+            record.load(in);
+        } finally {
+            in.close();
+        }
+        return record;
+    }
+}
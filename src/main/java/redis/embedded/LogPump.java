@@ -0,0 +1,177 @@
+package redis.embedded;
+
+import com.google.common.base.Charsets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.io.IOUtils;
+import redis.embedded.util.ProcessUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the output streams of every running instance on a single shared daemon thread, using
+ * non-blocking {@link InputStream#available()} polling, so the thread count stays flat however
+ * many instances are running. Process pipes cannot be selected on, so an idle pump backs off
+ * exponentially and is woken up early when an instance registers. Once a process has exited, whatever
+ * it left in its streams is read before they are closed, so trailing output is never lost. The thread
+ * exits when there is nothing left to pump.
+ */
+final class LogPump implements Runnable {
+    static final LogPump INSTANCE = new LogPump();
+
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final long MAX_IDLE_WAIT_MILLIS = 50L;
+    private static final long MAX_DRAIN_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final List<Source> sources = new CopyOnWriteArrayList<Source>();
+    private final ThreadFactory threadFactory =
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("embedded-redis-log-pump-%d").build();
+    private final byte[] buffer = new byte[READ_BUFFER_SIZE];
+    private boolean running = false;
+    private boolean wakeUp = false;
+
+    private LogPump() {
+    }
+
+    void register(Process process, InstanceLog log) {
+        log.streamOpened();
+        log.streamOpened();
+        sources.add(new Source(process, process.getInputStream(), log, false));
+        sources.add(new Source(process, process.getErrorStream(), log, true));
+        synchronized (this) {
+            if (!running) {
+                running = true;
+                threadFactory.newThread(this).start();
+            } else {
+                wakeUp = true;
+                notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        long idleWait = 0;
+        while (true) {
+            synchronized (this) {
+                if (sources.isEmpty()) {
+                    running = false;
+                    return;
+                }
+                if (wakeUp) {
+                    wakeUp = false;
+                    idleWait = 0;
+                }
+            }
+            boolean progress = false;
+            for (Source source : sources) {
+                progress |= pump(source);
+            }
+            if (progress) {
+                idleWait = 0;
+            } else {
+                idleWait = Math.min(Math.max(idleWait * 2, 1L), MAX_IDLE_WAIT_MILLIS);
+                idle(idleWait);
+            }
+        }
+    }
+
+    private synchronized void idle(long millis) {
+        try {
+            if (!wakeUp) {
+                TimeUnit.MILLISECONDS.timedWait(this, millis);
+            }
+        } catch (InterruptedException e) {
+            // keep pumping, instances rely on their output being drained
+        }
+    }
+
+    private boolean pump(Source source) {
+        try {
+            final int available = source.in.available();
+            if (available > 0) {
+                final int read = source.in.read(buffer, 0, Math.min(available, buffer.length));
+                if (read > 0) {
+                    source.consume(buffer, read);
+                    return true;
+                }
+            } else if (ProcessUtil.hasExited(source.process)) {
+                drain(source);
+                close(source);
+            }
+        } catch (IOException e) {
+            close(source);
+        }
+        return false;
+    }
+
+    // everything the exited process wrote is already buffered in the pipe; never block on a read, as a forked
+    // child (BGSAVE, AOF rewrite) may still hold the pipe open and would stall the pump for every instance
+    private void drain(Source source) throws IOException {
+        final long deadline = System.nanoTime() + MAX_DRAIN_NANOS;
+        int available;
+        while ((available = source.in.available()) > 0 && System.nanoTime() - deadline < 0) {
+            final int read = source.in.read(buffer, 0, Math.min(available, buffer.length));
+            if (read < 0) {
+                return;
+            }
+            source.consume(buffer, read);
+        }
+    }
+
+    private void close(Source source) {
+        sources.remove(source);
+        source.flushPartialLine();
+        IOUtils.closeQuietly(source.in);
+        source.log.streamClosed();
+    }
+
+    private static class Source {
+        private final Process process;
+        private final InputStream in;
+        private final InstanceLog log;
+        private final boolean error;
+        private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+
+        private Source(Process process, InputStream in, InstanceLog log, boolean error) {
+            this.process = process;
+            this.in = in;
+            this.log = log;
+            this.error = error;
+        }
+
+        private void consume(byte[] bytes, int length) {
+            int lineStart = 0;
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] == '\n') {
+                    partialLine.write(bytes, lineStart, i - lineStart);
+                    emit();
+                    lineStart = i + 1;
+                }
+            }
+            partialLine.write(bytes, lineStart, length - lineStart);
+            log.flush();
+        }
+
+        private void flushPartialLine() {
+            if (partialLine.size() > 0) {
+                emit();
+            }
+            log.flush();
+        }
+
+        private void emit() {
+            String line = new String(partialLine.toByteArray(), Charsets.UTF_8);
+            if (line.endsWith("\r")) {
+                line = line.substring(0, line.length() - 1);
+            }
+            partialLine.reset();
+            log.append(line, error);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package redis.embedded;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import redis.embedded.exceptions.ClusterLifecycleException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Starts and stops groups of instances concurrently, with at most {@code parallelism} nodes
+ * changing state at a time. Threads exist only for the duration of a single operation.
+ */
+class ParallelLifecycle {
+    private final int parallelism;
+
+    ParallelLifecycle(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Starts the phases one after another, each phase in parallel. If any node fails to start,
+     * every node started so far is stopped before the aggregated failure is thrown.
+     */
+    void start(List<List<Redis>> phases) {
+        final List<Redis> started = new ArrayList<Redis>();
+        for (List<Redis> phase : phases) {
+            final List<Throwable> failures = new ArrayList<Throwable>();
+            started.addAll(runAll(phase, true, failures));
+            if (!failures.isEmpty()) {
+                final List<Throwable> stopFailures = new ArrayList<Throwable>();
+                runAll(started, false, stopFailures);
+                failures.addAll(stopFailures);
+                throw new ClusterLifecycleException("Failed to start Redis cluster", failures);
+            }
+        }
+    }
+
+    void stop(List<Redis> nodes) {
+        final List<Throwable> failures = new ArrayList<Throwable>();
+        runAll(nodes, false, failures);
+        if (!failures.isEmpty()) {
+            throw new ClusterLifecycleException("Failed to stop Redis cluster", failures);
+        }
+    }
+
+    private List<Redis> runAll(List<Redis> nodes, final boolean start, List<Throwable> failures) {
+        final List<Redis> succeeded = new ArrayList<Redis>();
+        if (nodes.isEmpty()) {
+            return succeeded;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, nodes.size()),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("embedded-redis-lifecycle-%d").build());
+        try {
+            final List<Future<Redis>> futures = new ArrayList<Future<Redis>>();
+            for (final Redis redis : nodes) {
+                futures.add(executor.submit(new Callable<Redis>() {
+                    @Override
+                    public Redis call() throws Exception {
+                        if (start) {
+                            redis.start();
+                        } else {
+                            redis.stop();
+                        }
+                        return redis;
+                    }
+                }));
+            }
+            for (Future<Redis> future : futures) {
+                try {
+                    succeeded.add(future.get());
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failures.add(e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return succeeded;
+    }
+}
@@ -0,0 +1,33 @@
+package redis.embedded;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Persistence presets for {@link RedisServerBuilder#persistence(Persistence)}.
+ */
+public enum Persistence {
+    /**
+     * No RDB snapshots and no append only file.
+     */
+    EPHEMERAL("--save", "", "--appendonly", "no"),
+    /**
+     * RDB snapshots with the default redis save points, no append only file.
+     */
+    RDB("--save", "900", "1", "--save", "300", "10", "--save", "60", "10000", "--appendonly", "no"),
+    /**
+     * Append only file fsync'ed every second, no RDB snapshots.
+     */
+    AOF_EVERYSEC("--save", "", "--appendonly", "yes", "--appendfsync", "everysec");
+
+    private final List<String> args;
+
+    Persistence(String... args) {
+        this.args = Collections.unmodifiableList(Arrays.asList(args));
+    }
+
+    List<String> args() {
+        return args;
+    }
+}
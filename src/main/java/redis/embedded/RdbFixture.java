@@ -0,0 +1,113 @@
+package redis.embedded;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+import org.apache.commons.io.FileUtils;
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.util.OS;
+import redis.embedded.util.OSDetector;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A prepared {@code dump.rdb} that an instance loads natively at boot, instead of having its dataset
+ * replayed command by command after start.
+ */
+public class RdbFixture {
+    private final File file;
+    private final URL resource;
+    private final Set<File> unlinkableRoots = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+
+    private RdbFixture(File file, URL resource) {
+        this.file = file;
+        this.resource = resource;
+    }
+
+    public static RdbFixture fromFile(File file) {
+        Preconditions.checkArgument(file.isFile(), "RDB fixture does not exist: %s", file);
+        return new RdbFixture(file.getAbsoluteFile(), null);
+    }
+
+    public static RdbFixture fromResource(String resourceName) {
+        return new RdbFixture(null, Resources.getResource(resourceName));
+    }
+
+    /**
+     * Makes the fixture available as {@code dbfilename} inside {@code dir}. Files are hard-linked when
+     * possible (redis replaces its dump by rename, so the fixture itself is never modified) and copied otherwise.
+     * Once a link into the parent of {@code dir} has failed, e.g. because it is on another file system like
+     * {@code /dev/shm}, later installs there copy right away.
+     */
+    void installInto(File dir, String dbfilename) throws IOException {
+        final File target = new File(dir, dbfilename);
+        FileUtils.deleteQuietly(target);
+        if (file == null) {
+            FileUtils.copyURLToFile(resource, target);
+            return;
+        }
+        final File root = dir.getAbsoluteFile().getParentFile();
+        if (unlinkableRoots.contains(root) || !hardLink(file, target)) {
+            unlinkableRoots.add(root);
+            Files.copy(file, target);
+        }
+    }
+
+    private static boolean hardLink(File source, File target) {
+        if (OSDetector.getOS() == OS.WINDOWS) {
+            return false;
+        }
+        try {
+            final Process ln = new ProcessBuilder("ln", source.getAbsolutePath(), target.getAbsolutePath())
+                    .redirectErrorStream(true)
+                    .start();
+            ln.getOutputStream().close();
+            ln.getInputStream().close();
+            return ln.waitFor() == 0 && target.isFile();
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Captures the current dataset of a running instance into {@code target}, ready to be used as a fixture.
+     */
+    public static RdbFixture capture(Redis redis, File target) {
+        try {
+            final ControlConnection connection = new ControlConnection(redis.ports().get(0));
+            final File dump;
+            try {
+                connection.execute("SAVE");
+                final String dir = configValue(connection, "dir");
+                final String dbfilename = configValue(connection, "dbfilename");
+                dump = new File(dir, dbfilename);
+            } finally {
+                connection.close();
+            }
+            Files.createParentDirs(target);
+            Files.copy(dump, target);
+            return fromFile(target);
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Failed to capture RDB fixture", e);
+        }
+    }
+
+    private static String configValue(ControlConnection connection, String parameter) throws IOException {
+        final List<?> reply = (List<?>) connection.execute("CONFIG", "GET", parameter);
+        return (String) reply.get(1);
+    }
+
+    @Override
+    public String toString() {
+        return file != null ? file.toString() : resource.toString();
+    }
+}
@@ -0,0 +1,23 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.util.regex.Pattern;
+
+/**
+ * Decides when a freshly started redis process is ready to serve clients.
+ */
+public interface ReadinessStrategy {
+    /**
+     * Blocks until the instance is ready.
+     *
+     * @param redisProcess the started process
+     * @param log output of the process, pumped in the background
+     * @param port TCP port of the instance, or 0 when the instance does not listen on TCP
+     * @param readyPattern instance specific pattern of the log line printed once the instance is ready
+     * @param timeoutMillis time after which startup is considered failed
+     * @throws EmbeddedRedisException when the process dies or the timeout expires first
+     */
+    void awaitReady(Process redisProcess, InstanceLog log, int port, Pattern readyPattern, long timeoutMillis)
+            throws EmbeddedRedisException;
+}
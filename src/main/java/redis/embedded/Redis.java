@@ -1,8 +1,10 @@
 package redis.embedded;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import redis.embedded.exceptions.EmbeddedRedisException;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public interface Redis {
     boolean isActive();
@@ -11,5 +13,17 @@ public interface Redis {
 
     void stop() throws EmbeddedRedisException;
 
+    /**
+     * Starts the instance without blocking the caller, on a shared daemon executor. The returned future
+     * completes once the instance is ready; register callbacks on it to chain dependent fixtures.
+     */
+    ListenableFuture<Redis> startAsync();
+
+    ListenableFuture<Redis> startAsync(Executor executor);
+
+    ListenableFuture<Redis> stopAsync();
+
+    ListenableFuture<Redis> stopAsync(Executor executor);
+
     List<Integer> ports();
 }
@@ -1,19 +1,55 @@
 package redis.embedded;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
 import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.proxy.RedisProxy;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 public class RedisCluster implements Redis {
     private final List<Redis> sentinels = new LinkedList<Redis>();
     private final List<Redis> servers = new LinkedList<Redis>();
+    private final List<Redis> masters = new LinkedList<Redis>();
+    private final List<Redis> slaves = new LinkedList<Redis>();
+    private final Map<String, Redis> mastersByName = new LinkedHashMap<String, Redis>();
+    private final int lifecycleParallelism;
+    private final long replicationSyncTimeoutMillis;
+    private final Map<Redis, Long> syncNanos = new LinkedHashMap<Redis, Long>();
 
     RedisCluster(List<Redis> sentinels, List<Redis> servers) {
-        this.servers.addAll(servers);
+        this(sentinels, servers, servers, Collections.<Redis>emptyList(), 1);
+    }
+
+    RedisCluster(List<Redis> sentinels, List<Redis> servers, List<Redis> masters, List<Redis> slaves,
+                 int lifecycleParallelism) {
+        this(sentinels, servers, masters, slaves, lifecycleParallelism, 0L, Collections.<String, Redis>emptyMap());
+    }
+
+    RedisCluster(List<Redis> sentinels, List<Redis> servers, List<Redis> masters, List<Redis> slaves,
+                 int lifecycleParallelism, long replicationSyncTimeoutMillis, Map<String, Redis> mastersByName) {
         this.sentinels.addAll(sentinels);
+        this.servers.addAll(servers);
+        this.masters.addAll(masters);
+        this.mastersByName.putAll(mastersByName);
+        this.slaves.addAll(slaves);
+        this.lifecycleParallelism = lifecycleParallelism;
+        this.replicationSyncTimeoutMillis = replicationSyncTimeoutMillis;
+    }
+
+    private static List<Redis> concat(List<Redis> first, List<Redis> second) {
+        final List<Redis> all = new ArrayList<Redis>(first);
+        all.addAll(second);
+        return all;
     }
 
     @Override
@@ -31,26 +67,93 @@ public class RedisCluster implements Redis {
         return true;
     }
 
+    /**
+     * Starts servers before sentinels. When replication sync is enabled the servers are only followed by the
+     * sentinels once every slave has synced, and {@code start()} returns once every sentinel has discovered the
+     * whole topology; if either does not happen in time the cluster is stopped again.
+     */
     @Override
-    public void start() throws EmbeddedRedisException {
-        for(Redis redis : sentinels) {
-            redis.start();
+    public synchronized void start() throws EmbeddedRedisException {
+        syncNanos.clear();
+        final ReplicationSync sync = replicationSyncTimeoutMillis > 0
+                ? new ReplicationSync(replicationSyncTimeoutMillis) : null;
+        @SuppressWarnings("unchecked")
+        final List<List<Redis>> serverPhases = Arrays.<List<Redis>>asList(masters, slaves);
+        try {
+            startNodes(serverPhases, servers);
+            if (sync != null) {
+                syncNanos.putAll(sync.awaitSlaves(slaves));
+            }
+            startNodes(Collections.singletonList(sentinels), sentinels);
+            if (sync != null) {
+                syncNanos.putAll(sync.awaitSentinels(sentinels, masters));
+            }
+        } catch (RuntimeException e) {
+            stopQuietly();
+            throw e;
         }
-        for(Redis redis : servers) {
+    }
+
+    private void startNodes(List<List<Redis>> phases, List<Redis> nodes) {
+        if (lifecycleParallelism > 1) {
+            new ParallelLifecycle(lifecycleParallelism).start(phases);
+            return;
+        }
+        for(Redis redis : nodes) {
             redis.start();
         }
     }
 
+    // only nodes which are up; a failed parallel phase has already stopped the nodes it started
+    private void stopQuietly() {
+        final List<Redis> running = new ArrayList<Redis>();
+        for (Redis redis : concat(sentinels, servers)) {
+            if (redis.isActive()) {
+                running.add(redis);
+            }
+        }
+        try {
+            stopNodes(running);
+        } catch (RuntimeException ignored) {
+            // the start failure is the one worth reporting
+        }
+    }
+
     @Override
-    public void stop() throws EmbeddedRedisException {
-        for(Redis redis : sentinels) {
-            redis.stop();
+    public synchronized void stop() throws EmbeddedRedisException {
+        stopNodes(concat(sentinels, servers));
+    }
+
+    private void stopNodes(List<Redis> nodes) {
+        if (lifecycleParallelism > 1) {
+            new ParallelLifecycle(lifecycleParallelism).stop(nodes);
+            return;
         }
-        for(Redis redis : servers) {
+        for(Redis redis : nodes) {
             redis.stop();
         }
     }
 
+    @Override
+    public ListenableFuture<Redis> startAsync() {
+        return startAsync(AsyncLifecycle.defaultExecutor());
+    }
+
+    @Override
+    public ListenableFuture<Redis> startAsync(Executor executor) {
+        return AsyncLifecycle.start(this, executor);
+    }
+
+    @Override
+    public ListenableFuture<Redis> stopAsync() {
+        return stopAsync(AsyncLifecycle.defaultExecutor());
+    }
+
+    @Override
+    public ListenableFuture<Redis> stopAsync(Executor executor) {
+        return AsyncLifecycle.stop(this, executor);
+    }
+
     @Override
     public List<Integer> ports() {
         List<Integer> ports = new ArrayList<Integer>();
@@ -83,6 +186,124 @@ public class RedisCluster implements Redis {
         return ports;
     }
 
+    public List<Redis> masters() {
+        return Lists.newLinkedList(masters);
+    }
+
+    public List<Redis> slaves() {
+        return Lists.newLinkedList(slaves);
+    }
+
+    /**
+     * {@code INFO} samplers of all nodes which have sampling enabled, sentinels first.
+     */
+    public Map<Redis, InfoSampler> infoSamplers() {
+        final Map<Redis, InfoSampler> samplers = new LinkedHashMap<Redis, InfoSampler>();
+        for (Redis redis : concat(sentinels, servers)) {
+            if (redis instanceof AbstractRedisInstance && ((AbstractRedisInstance) redis).infoSampler() != null) {
+                samplers.put(redis, ((AbstractRedisInstance) redis).infoSampler());
+            }
+        }
+        return samplers;
+    }
+
+    /**
+     * Proxies in front of the servers which have one, in server order.
+     */
+    public Map<Redis, RedisProxy> proxies() {
+        final Map<Redis, RedisProxy> proxies = new LinkedHashMap<Redis, RedisProxy>();
+        for (Redis redis : servers) {
+            if (redis instanceof AbstractRedisInstance && ((AbstractRedisInstance) redis).proxy() != null) {
+                proxies.put(redis, ((AbstractRedisInstance) redis).proxy());
+            }
+        }
+        return proxies;
+    }
+
+    /**
+     * Effective {@code maxmemory} of every server in bytes, {@code 0} where it is not limited.
+     */
+    public Map<Redis, Long> memoryLimits() {
+        final Map<Redis, Long> limits = new LinkedHashMap<Redis, Long>();
+        for (Redis redis : servers) {
+            limits.put(redis, redis instanceof RedisServer ? ((RedisServer) redis).maxMemory() : 0L);
+        }
+        return limits;
+    }
+
+    /**
+     * Time each slave needed to sync with its master and each sentinel needed to discover the topology during
+     * the last {@code start()}, counted from the moment the respective nodes were all running. Empty when
+     * replication sync is disabled.
+     */
+    public synchronized Map<Redis, Long> replicationSyncTimes(TimeUnit unit) {
+        final Map<Redis, Long> times = new LinkedHashMap<Redis, Long>();
+        for (Map.Entry<Redis, Long> entry : syncNanos.entrySet()) {
+            times.put(entry.getKey(), unit.convert(entry.getValue(), TimeUnit.NANOSECONDS));
+        }
+        return times;
+    }
+
+    /**
+     * Node the sentinels currently announce as master of the named replication group; differs from the
+     * node it was built with after a failover.
+     */
+    public Redis currentMaster(String masterName) {
+        final int port = sentinelMasterPort(masterName);
+        for (Redis server : servers) {
+            if (server.ports().contains(port)) {
+                return server;
+            }
+        }
+        throw new EmbeddedRedisException("Master " + masterName + " moved to unknown port " + port);
+    }
+
+    private int sentinelMasterPort(String masterName) {
+        checkMasterName(masterName);
+        try {
+            final ControlConnection sentinel = new ControlConnection(firstSentinelPort());
+            try {
+                final List<?> address = (List<?>) sentinel.execute("SENTINEL", "get-master-addr-by-name", masterName);
+                return Integer.parseInt(String.valueOf(address.get(1)));
+            } finally {
+                sentinel.close();
+            }
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Could not ask sentinel for master " + masterName, e);
+        }
+    }
+
+    /**
+     * Makes the named replication group lose its current master and waits until a sentinel has promoted a
+     * slave and the new master accepts writes. Tune detection and election through the
+     * {@code downAfterMilliseconds}, {@code failoverTimeout} and {@code parallelSyncs} of the sentinel builder.
+     * A master killed by {@link FailoverTrigger#KILL_MASTER} has to be stopped before it can be started again.
+     */
+    public FailoverReport failover(String masterName, FailoverTrigger trigger, long timeout, TimeUnit unit) {
+        final Redis master = currentMaster(masterName);
+        try {
+            return new Failover(firstSentinelPort(), masterName, trigger, unit.toMillis(timeout)).run(master);
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Failover of " + masterName + " failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddedRedisException("Interrupted during failover of " + masterName, e);
+        }
+    }
+
+    private void checkMasterName(String masterName) {
+        if (!mastersByName.containsKey(masterName)) {
+            throw new IllegalArgumentException("Unknown replication group: " + masterName);
+        }
+    }
+
+    private int firstSentinelPort() {
+        if (sentinels.isEmpty()) {
+            throw new EmbeddedRedisException("Failover needs at least one sentinel");
+        }
+        return sentinels.get(0).ports().get(0);
+    }
+
     public static RedisClusterBuilder builder() {
         return new RedisClusterBuilder();
     }
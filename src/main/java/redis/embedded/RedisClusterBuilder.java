@@ -1,21 +1,35 @@
 package redis.embedded;
 
+import redis.embedded.exceptions.RedisBuildingException;
 import redis.embedded.ports.EphemeralPortProvider;
 import redis.embedded.ports.PredefinedPortProvider;
+import redis.embedded.ports.ReservingPortProvider;
 import redis.embedded.ports.SequencePortProvider;
+import redis.embedded.proxy.NetworkConditions;
+import redis.embedded.util.MemoryUtil;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class RedisClusterBuilder {
     private RedisSentinelBuilder sentinelBuilder = new RedisSentinelBuilder();
     private RedisServerBuilder serverBuilder = new RedisServerBuilder();
     private int sentinelCount = 1;
     private int quorumSize = 1;
+    private int lifecycleParallelism = 1;
+    private long replicationSyncTimeoutMillis;
+    private RdbFixture rdbFixture;
+    private long memoryBudget;
+    private double memoryBudgetFraction;
     private PortProvider sentinelPortProvider = new SequencePortProvider(26379);
     private PortProvider replicationGroupPortProvider = new SequencePortProvider(6379);
+    private ReservingPortProvider reservingPortProvider;
     private final List<ReplicationGroup> groups = new LinkedList<ReplicationGroup>();
 
     public RedisClusterBuilder withSentinelBuilder(RedisSentinelBuilder sentinelBuilder) {
@@ -28,6 +42,74 @@ public class RedisClusterBuilder {
         return this;
     }
 
+    /**
+     * Writes the output of every node to its own log file in the given directory.
+     */
+    public RedisClusterBuilder logDirectory(File logDirectory) {
+        this.sentinelBuilder.logDirectory(logDirectory);
+        this.serverBuilder.logDirectory(logDirectory);
+        return this;
+    }
+
+    /**
+     * Splits a total {@code maxmemory} budget evenly across all masters and slaves.
+     */
+    public RedisClusterBuilder memoryBudget(long totalBytes) {
+        if (totalBytes < 1) {
+            throw new IllegalArgumentException("Memory budget must be positive: " + totalBytes);
+        }
+        this.memoryBudget = totalBytes;
+        this.memoryBudgetFraction = 0;
+        return this;
+    }
+
+    /**
+     * Splits the given fraction of the host's physical memory evenly across all masters and slaves.
+     */
+    public RedisClusterBuilder memoryBudgetFraction(double fractionOfPhysicalMemory) {
+        if (fractionOfPhysicalMemory <= 0 || fractionOfPhysicalMemory > 1) {
+            throw new IllegalArgumentException("Fraction must be within (0, 1]: " + fractionOfPhysicalMemory);
+        }
+        this.memoryBudgetFraction = fractionOfPhysicalMemory;
+        this.memoryBudget = 0;
+        return this;
+    }
+
+    public RedisClusterBuilder evictionPolicy(EvictionPolicy evictionPolicy) {
+        this.serverBuilder.evictionPolicy(evictionPolicy);
+        return this;
+    }
+
+    /**
+     * Pins each server to its own CPU of the spread, cycling when there are more servers than CPUs.
+     * Sentinels, which are mostly idle, float over all instance CPUs.
+     */
+    public RedisClusterBuilder cpuSpread(CpuSpread cpuSpread) {
+        this.serverBuilder.cpuSpread(cpuSpread);
+        final List<Integer> instanceCpus = cpuSpread.instanceCpus();
+        this.sentinelBuilder.cpuAffinity(instanceCpus.toArray(new Integer[instanceCpus.size()]));
+        return this;
+    }
+
+    /**
+     * Samples {@code INFO} of every node at the given interval, see {@link RedisCluster#infoSamplers()}.
+     */
+    public RedisClusterBuilder infoSampling(long interval, TimeUnit unit) {
+        this.sentinelBuilder.infoSampling(interval, unit);
+        this.serverBuilder.infoSampling(interval, unit);
+        return this;
+    }
+
+    /**
+     * Puts a proxy applying the given conditions in front of every master and slave, see
+     * {@link RedisCluster#proxies()}. Replication and sentinels talk to the servers directly, so clients
+     * resolving masters through sentinels bypass the proxies.
+     */
+    public RedisClusterBuilder proxy(NetworkConditions networkConditions) {
+        this.serverBuilder.proxy(networkConditions);
+        return this;
+    }
+
     public RedisClusterBuilder sentinelPorts(Collection<Integer> ports) {
         this.sentinelPortProvider = new PredefinedPortProvider(ports);
         this.sentinelCount = ports.size();
@@ -56,6 +138,21 @@ public class RedisClusterBuilder {
         return this;
     }
 
+    /**
+     * Takes all sentinel and server ports from one contiguous block reserved across JVMs at build time,
+     * see {@link ReservingPortProvider}.
+     */
+    public RedisClusterBuilder reservedPorts() {
+        return reservedPorts(new ReservingPortProvider());
+    }
+
+    public RedisClusterBuilder reservedPorts(ReservingPortProvider portProvider) {
+        this.reservingPortProvider = portProvider;
+        this.sentinelPortProvider = portProvider;
+        this.replicationGroupPortProvider = portProvider;
+        return this;
+    }
+
     public RedisClusterBuilder sentinelCount(int sentinelCount) {
         this.sentinelCount = sentinelCount;
         return this;
@@ -71,38 +168,136 @@ public class RedisClusterBuilder {
         return this;
     }
 
+    /**
+     * Starts and stops cluster nodes concurrently, with at most {@code maxParallelism} nodes changing
+     * state at once. Masters are started first, then slaves, then sentinels. A value of 1 (the default)
+     * keeps the sequential lifecycle.
+     */
+    public RedisClusterBuilder lifecycleParallelism(int maxParallelism) {
+        if (maxParallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + maxParallelism);
+        }
+        this.lifecycleParallelism = maxParallelism;
+        return this;
+    }
+
+    /**
+     * Makes {@code start()} wait up to the given time for slaves to sync and sentinels to discover the
+     * topology, see {@link RedisCluster#replicationSyncTimes(TimeUnit)}. Off by default; a timeout of 0 turns
+     * it off again.
+     */
+    public RedisClusterBuilder replicationSyncTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Timeout must not be negative: " + timeout);
+        }
+        this.replicationSyncTimeoutMillis = unit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * Seeds every master, unless its replication group has its own fixture, with a prepared dataset.
+     * Slaves receive the data through regular replication.
+     */
+    public RedisClusterBuilder rdbFixture(RdbFixture rdbFixture) {
+        this.rdbFixture = rdbFixture;
+        return this;
+    }
+
     public RedisClusterBuilder replicationGroup(String masterName, int slaveCount) {
-        this.groups.add(new ReplicationGroup(masterName, slaveCount, this.replicationGroupPortProvider));
+        return replicationGroup(masterName, slaveCount, null);
+    }
+
+    public RedisClusterBuilder replicationGroup(String masterName, int slaveCount, RdbFixture rdbFixture) {
+        this.groups.add(new ReplicationGroup(masterName, slaveCount, this.replicationGroupPortProvider, rdbFixture));
         return this;
     }
 
     public RedisCluster build() {
+        reservePorts();
+        final long maxMemoryPerServer = resolveMaxMemoryPerServer();
+        if (maxMemoryPerServer > 0) {
+            serverBuilder.maxMemory(maxMemoryPerServer);
+        }
         final List<Redis> sentinels = buildSentinels();
-        final List<Redis> servers = buildServers();
-        return new RedisCluster(sentinels, servers);
+        final List<Redis> servers = new ArrayList<Redis>();
+        final List<Redis> masters = new ArrayList<Redis>();
+        final List<Redis> slaves = new ArrayList<Redis>();
+        final Map<String, Redis> mastersByName = new LinkedHashMap<String, Redis>();
+        for(ReplicationGroup g : groups) {
+            final Redis master = buildMaster(g);
+            masters.add(master);
+            mastersByName.put(g.masterName, master);
+            servers.add(master);
+            final List<Redis> groupSlaves = buildSlaves(g);
+            slaves.addAll(groupSlaves);
+            servers.addAll(groupSlaves);
+        }
+        return new RedisCluster(sentinels, servers, masters, slaves, lifecycleParallelism,
+                replicationSyncTimeoutMillis, mastersByName);
     }
 
-    private List<Redis> buildServers() {
-        List<Redis> servers = new ArrayList<Redis>();
-        for(ReplicationGroup g : groups) {
-            servers.add(buildMaster(g));
-            buildSlaves(servers, g);
+    private void reservePorts() {
+        if (reservingPortProvider != null) {
+            int count = sentinelPortProvider == reservingPortProvider ? sentinelCount : 0;
+            for (ReplicationGroup g : groups) {
+                if (g.portProvider == reservingPortProvider && !g.portsResolved()) {
+                    count += 1 + g.slaveCount;
+                }
+            }
+            if (count > 0) {
+                reservingPortProvider.prefetch(count);
+            }
+        }
+        for (ReplicationGroup g : groups) {
+            g.resolvePorts();
         }
-        return servers;
     }
 
-    private void buildSlaves(List<Redis> servers, ReplicationGroup g) {
+    private long resolveMaxMemoryPerServer() {
+        long budget = memoryBudget;
+        if (memoryBudgetFraction > 0) {
+            final long physicalMemory = MemoryUtil.totalPhysicalMemory();
+            if (physicalMemory < 0) {
+                throw new RedisBuildingException("Could not determine physical memory of the host");
+            }
+            budget = (long) (physicalMemory * memoryBudgetFraction);
+        }
+        if (budget == 0) {
+            return 0;
+        }
+        int serverCount = 0;
+        for (ReplicationGroup g : groups) {
+            serverCount += 1 + g.slaveCount;
+        }
+        if (serverCount == 0) {
+            return 0;
+        }
+        final long perServer = budget / serverCount;
+        if (perServer < 1) {
+            throw new RedisBuildingException("Memory budget of " + budget + " bytes is too small for "
+                    + serverCount + " servers");
+        }
+        return perServer;
+    }
+
+    private List<Redis> buildSlaves(ReplicationGroup g) {
+        final List<Redis> slaves = new ArrayList<Redis>();
         for (Integer slavePort : g.slavePorts) {
             serverBuilder.reset();
             serverBuilder.port(slavePort);
             serverBuilder.slaveOf("localhost", g.masterPort);
             final RedisServer slave = serverBuilder.build();
-            servers.add(slave);
+            slaves.add(slave);
         }
+        return slaves;
     }
 
     private Redis buildMaster(ReplicationGroup g) {
         serverBuilder.reset();
+        final RdbFixture fixture = g.rdbFixture != null ? g.rdbFixture : rdbFixture;
+        if (fixture != null) {
+            serverBuilder.rdbFixture(fixture);
+        }
         return serverBuilder.port(g.masterPort).build();
     }
 
@@ -133,15 +328,35 @@ public class RedisClusterBuilder {
 
     private static class ReplicationGroup {
         private final String masterName;
-        private final int masterPort;
+        private final int slaveCount;
+        private final PortProvider portProvider;
+        private int masterPort;
         private final List<Integer> slavePorts = new LinkedList<Integer>();
+        private final RdbFixture rdbFixture;
 
-        private ReplicationGroup(String masterName, int slaveCount, PortProvider portProvider) {
+        private ReplicationGroup(String masterName, int slaveCount, PortProvider portProvider, RdbFixture rdbFixture) {
             this.masterName = masterName;
+            this.slaveCount = slaveCount;
+            this.portProvider = portProvider;
+            this.rdbFixture = rdbFixture;
+            if (!(portProvider instanceof ReservingPortProvider)) {
+                resolvePorts();
+            }
+        }
+
+        // reserved ports are taken at build time, so the whole topology gets one contiguous block
+        private void resolvePorts() {
+            if (portsResolved()) {
+                return;
+            }
             masterPort = portProvider.next();
-            while (slaveCount-- > 0) {
+            for (int i = 0; i < slaveCount; i++) {
                 slavePorts.add(portProvider.next());
             }
         }
+
+        private boolean portsResolved() {
+            return masterPort != 0;
+        }
     }
 }
@@ -53,7 +53,7 @@ public class RedisExecProvider {
         String executablePath = executables.get(osArch);
          return fileExists(executablePath) ?
                 new File(executablePath) :
-                JarUtil.extractExecutableFromJar(executablePath);
+                JarUtil.extractExecutableFromJar(executablePath, osArch);
         
     }
 
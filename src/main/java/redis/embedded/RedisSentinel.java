@@ -1,20 +1,45 @@
 package redis.embedded;
 
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
 
 public class RedisSentinel extends AbstractRedisInstance {
-    private static final String REDIS_READY_PATTERN = ".*Sentinel runid is.*";
+    private static final Pattern REDIS_READY_PATTERN = Pattern.compile(".*Sentinel runid is.*");
+    static final String CONF_FILENAME = "sentinel.conf";
+
+    private String configContent;
 
     public RedisSentinel(List<String> args, int port) {
         super(port);
         this.args = new ArrayList<String>(args);
     }
 
+    void configContent(String configContent) {
+        this.configContent = configContent;
+    }
+
+    @Override
+    protected void beforeStart() throws IOException {
+        if (configContent != null) {
+            Files.write(configContent, new File(workingDirectory(), CONF_FILENAME), Charsets.UTF_8);
+        }
+    }
+
     public static RedisSentinelBuilder builder() { return new RedisSentinelBuilder(); }
 
     @Override
-    protected String redisReadyPattern() {
+    protected String instanceName() {
+        return "redis-sentinel:" + ports().get(0);
+    }
+
+    @Override
+    protected Pattern redisReadyPattern() {
         return REDIS_READY_PATTERN;
     }
 }
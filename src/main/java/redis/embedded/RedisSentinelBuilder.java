@@ -1,18 +1,14 @@
 package redis.embedded;
 
 import com.google.common.base.Preconditions;
-import com.google.common.io.Files;
 import redis.embedded.exceptions.RedisBuildingException;
 
 import java.io.File;
-import java.io.IOException;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
-public class RedisSentinelBuilder {
+public class RedisSentinelBuilder extends AbstractRedisInstanceBuilder<RedisSentinelBuilder> {
     private static final String LINE_SEPARATOR = System.getProperty("line.separator");
-    private static final String CONF_FILENAME = "embedded-redis-sentinel";
     private static final String MASTER_MONITOR_LINE = "sentinel monitor %s 127.0.0.1 %d %d";
     private static final String DOWN_AFTER_LINE = "sentinel down-after-milliseconds %s %d";
     private static final String FAILOVER_LINE = "sentinel failover-timeout %s %d";
@@ -29,9 +25,15 @@ public class RedisSentinelBuilder {
     private int parallelSyncs = 1;
     private int quorumSize = 1;
     private String sentinelConf;
+    private String sentinelConfContent;
 
     private StringBuilder redisConfigBuilder;
 
+    @Override
+    RedisSentinelBuilder self() {
+        return this;
+    }
+
     public RedisSentinelBuilder redisExecProvider(RedisExecProvider redisExecProvider) {
         this.redisExecProvider = redisExecProvider;
         return this;
@@ -97,11 +99,17 @@ public class RedisSentinelBuilder {
     public RedisSentinel build() {
         tryResolveConfAndExec();
         List<String> args = buildCommandArgs();
-        return new RedisSentinel(args, port);
+        RedisSentinel instance = new RedisSentinel(args, port);
+        if (sentinelConfContent != null) {
+            instance.configContent(sentinelConfContent);
+        }
+        configure(instance);
+        return instance;
     }
 
     private void tryResolveConfAndExec() {
         try {
+            sentinelConfContent = null;
             if (sentinelConf == null) {
                 resolveSentinelConf();
             }
@@ -123,29 +131,22 @@ public class RedisSentinelBuilder {
         setting(String.format(PARALLEL_SYNCS_LINE, masterName, parallelSyncs));
     }
 
-    private void resolveSentinelConf() throws IOException {
+    // Sentinels rewrite their configuration, so the file is written into the instance's
+    // working directory on every start and goes away with it on stop.
+    private void resolveSentinelConf() {
         if (redisConfigBuilder == null) {
             addDefaultReplicationGroup();
         }
         setting(String.format(PORT_LINE, port));
-        final String configString = redisConfigBuilder.toString();
-
-        File redisConfigFile = File.createTempFile(resolveConfigName(), ".conf");
-        redisConfigFile.deleteOnExit();
-        Files.write(configString, redisConfigFile, Charset.forName("UTF-8"));
-        sentinelConf = redisConfigFile.getAbsolutePath();
-    }
-
-    private String resolveConfigName() {
-        return CONF_FILENAME + "_" + port;
+        sentinelConfContent = redisConfigBuilder.toString();
     }
 
     private List<String> buildCommandArgs() {
-        Preconditions.checkNotNull(sentinelConf);
+        Preconditions.checkState(sentinelConf != null || sentinelConfContent != null);
 
         List<String> args = new ArrayList<String>();
         args.add(executable.getAbsolutePath());
-        args.add(sentinelConf);
+        args.add(sentinelConf != null ? sentinelConf : RedisSentinel.CONF_FILENAME);
         args.add("--sentinel");
 
         if (port != null) {
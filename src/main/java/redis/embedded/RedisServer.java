@@ -5,10 +5,23 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 public class RedisServer extends AbstractRedisInstance {
-    private static final String REDIS_READY_PATTERN = ".*The server is now ready to accept connections on port.*";
+    private static final Pattern REDIS_READY_PATTERN = Pattern.compile(
+            ".*(The server is now ready to accept connections|Ready to accept connections).*");
     private static final int DEFAULT_REDIS_PORT = 6379;
+    static final String DB_FILENAME = "dump.rdb";
+    static final String UNIX_SOCKET_FILENAME = "redis.sock";
+    private static final AtomicInteger UNIX_ONLY_SEQUENCE = new AtomicInteger();
+
+    private RdbFixture rdbFixture;
+    private boolean privateUnixSocket;
+    private File unixSocket;
+    private String unixOnlyName;
+    private long maxMemory;
+    private EvictionPolicy evictionPolicy;
 
     public RedisServer() throws IOException {
         this(DEFAULT_REDIS_PORT);
@@ -44,12 +57,82 @@ public class RedisServer extends AbstractRedisInstance {
         this.args = new ArrayList<String>(args);
     }
 
+    void rdbFixture(RdbFixture rdbFixture) {
+        this.rdbFixture = rdbFixture;
+    }
+
+    /**
+     * Listens on the given unix domain socket, or on one in the working directory when {@code null}.
+     */
+    void unixSocket(File unixSocket) {
+        this.privateUnixSocket = unixSocket == null;
+        this.unixSocket = unixSocket;
+    }
+
+    /**
+     * Path of the unix domain socket the server listens on, or {@code null} when it only listens on TCP. A socket
+     * in the working directory is only known while the server runs.
+     */
+    public File unixSocket() {
+        if (privateUnixSocket) {
+            final File workingDirectory = workingDirectory();
+            return workingDirectory == null ? null : new File(workingDirectory, UNIX_SOCKET_FILENAME);
+        }
+        return unixSocket;
+    }
+
+    void memoryLimit(long maxMemory, EvictionPolicy evictionPolicy) {
+        this.maxMemory = maxMemory;
+        this.evictionPolicy = evictionPolicy;
+    }
+
+    /**
+     * {@code maxmemory} of the server in bytes, or {@code 0} when it was not limited by the builder.
+     */
+    public long maxMemory() {
+        return maxMemory;
+    }
+
+    /**
+     * Eviction policy set by the builder, or {@code null} for the redis default.
+     */
+    public EvictionPolicy evictionPolicy() {
+        return evictionPolicy;
+    }
+
+    @Override
+    protected void beforeStart() throws IOException {
+        if (privateUnixSocket) {
+            // absolute, so a 'dir' setting that changes the server's directory does not move it
+            final String path = unixSocket().getAbsolutePath();
+            for (int i = 1; i + 1 < args.size(); i++) {
+                if ("--unixsocket".equals(args.get(i))) {
+                    args.set(i + 1, path);
+                }
+            }
+        }
+        if (rdbFixture != null) {
+            rdbFixture.installInto(workingDirectory(), DB_FILENAME);
+        }
+    }
+
     public static RedisServerBuilder builder() {
         return new RedisServerBuilder();
     }
 
     @Override
-    protected String redisReadyPattern() {
+    protected String instanceName() {
+        if (ports().isEmpty()) {
+            if (unixOnlyName == null) {
+                unixOnlyName = "redis-server:unix-" + UNIX_ONLY_SEQUENCE.incrementAndGet();
+            }
+            return unixOnlyName;
+        }
+        return "redis-server:" + ports().get(0);
+    }
+
+    @Override
+    protected Pattern redisReadyPattern() {
         return REDIS_READY_PATTERN;
     }
 }
@@ -1,27 +1,46 @@
 package redis.embedded;
 
 import com.google.common.base.Strings;
-import com.google.common.io.Files;
 import redis.embedded.exceptions.RedisBuildingException;
+import redis.embedded.ports.ReservingPortProvider;
+import redis.embedded.proxy.NetworkConditions;
+import redis.embedded.proxy.RedisProxy;
+import redis.embedded.util.ConfigUtil;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-public class RedisServerBuilder {
-    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
-    private static final String CONF_FILENAME = "embedded-redis-server";
+public class RedisServerBuilder extends AbstractRedisInstanceBuilder<RedisServerBuilder> {
+    private static final int BIND_RETRIES = 3;
 
     private File executable;
     private RedisExecProvider redisExecProvider = RedisExecProvider.defaultProvider();
     private int port = 6379;
+    private ReservingPortProvider reservingPortProvider;
     private InetSocketAddress slaveOf;
     private String redisConf;
+    private RdbFixture rdbFixture;
+    private Persistence persistence;
+    private long maxMemory;
+    private EvictionPolicy evictionPolicy;
+    private boolean unixSocket;
+    private File unixSocketPath;
+    private Integer unixSocketPerm;
+    private boolean tcpEnabled = true;
+    private final List<String> extraArgs = new ArrayList<String>();
 
-    private StringBuilder redisConfigBuilder;
+    private NetworkConditions networkConditions;
+
+    private List<String> settingArgs;
+
+    @Override
+    RedisServerBuilder self() {
+        return this;
+    }
 
     public RedisServerBuilder redisExecProvider(RedisExecProvider redisExecProvider) {
         this.redisExecProvider = redisExecProvider;
@@ -30,6 +49,20 @@ public class RedisServerBuilder {
 
     public RedisServerBuilder port(int port) {
         this.port = port;
+        this.reservingPortProvider = null;
+        return this;
+    }
+
+    /**
+     * Gives every built server a port reserved across JVMs, see {@link ReservingPortProvider}. A server that
+     * still fails to bind its port on start moves to a newly reserved one.
+     */
+    public RedisServerBuilder reservedPort() {
+        return reservedPort(new ReservingPortProvider());
+    }
+
+    public RedisServerBuilder reservedPort(ReservingPortProvider portProvider) {
+        this.reservingPortProvider = portProvider;
         return this;
     }
 
@@ -43,38 +76,167 @@ public class RedisServerBuilder {
         return this;
     }
 
+    /**
+     * Also listens on a unix domain socket, created in the working directory of every built instance on each
+     * start. The path is available from {@link RedisServer#unixSocket()} while the instance runs.
+     */
+    public RedisServerBuilder unixSocket() {
+        this.unixSocket = true;
+        this.unixSocketPath = null;
+        return this;
+    }
+
+    /**
+     * Also listens on a unix domain socket at the given path. Every server built from this builder uses the same
+     * path, so prefer {@link #unixSocket()} when building more than one.
+     */
+    public RedisServerBuilder unixSocket(File path) {
+        this.unixSocket = true;
+        this.unixSocketPath = path;
+        return this;
+    }
+
+    /**
+     * Permissions of the unix domain socket, e.g. {@code 0700}.
+     */
+    public RedisServerBuilder unixSocketPerm(int perm) {
+        this.unixSocketPerm = perm;
+        return this;
+    }
+
+    /**
+     * Listens on the unix domain socket only; {@code ports()} of built instances is then empty.
+     */
+    public RedisServerBuilder disableTcp() {
+        this.tcpEnabled = false;
+        return this;
+    }
+
+    /**
+     * Seeds the server with a prepared dataset. The fixture is installed as {@code dump.rdb} in the instance's
+     * working directory on every start, so redis loads it natively at boot.
+     */
+    public RedisServerBuilder rdbFixture(RdbFixture rdbFixture) {
+        this.rdbFixture = rdbFixture;
+        return this;
+    }
+
+    public RedisServerBuilder rdbFixture(File dumpFile) {
+        return rdbFixture(RdbFixture.fromFile(dumpFile));
+    }
+
+    public RedisServerBuilder persistence(Persistence persistence) {
+        this.persistence = persistence;
+        return this;
+    }
+
+    /**
+     * Caps the dataset of every built instance at the given number of bytes ({@code maxmemory}).
+     */
+    public RedisServerBuilder maxMemory(long bytes) {
+        if (bytes < 1) {
+            throw new IllegalArgumentException("Memory limit must be positive: " + bytes);
+        }
+        this.maxMemory = bytes;
+        return this;
+    }
+
+    public RedisServerBuilder evictionPolicy(EvictionPolicy evictionPolicy) {
+        this.evictionPolicy = evictionPolicy;
+        return this;
+    }
+
+    /**
+     * Starts a {@link RedisProxy} applying the given conditions in front of every built instance, see
+     * {@code proxy()}. The conditions may be shared and changed while the instances run.
+     */
+    public RedisServerBuilder proxy(NetworkConditions networkConditions) {
+        this.networkConditions = networkConditions;
+        return this;
+    }
+
     public RedisServerBuilder configFile(String redisConf) {
-        if (redisConfigBuilder != null) {
+        if (settingArgs != null) {
             throw new RedisBuildingException("Redis configuration is already partially build using setting(String) method!");
         }
         this.redisConf = redisConf;
         return this;
     }
 
+    /**
+     * Adds a {@code redis.conf} line. Settings are passed to redis as command line arguments,
+     * so no configuration file is written.
+     */
     public RedisServerBuilder setting(String configLine) {
         if (redisConf != null) {
             throw new RedisBuildingException("Redis configuration is already set using redis conf file!");
         }
 
-        if (redisConfigBuilder == null) {
-            redisConfigBuilder = new StringBuilder();
+        if (settingArgs == null) {
+            settingArgs = new ArrayList<String>();
         }
 
-        redisConfigBuilder.append(configLine);
-        redisConfigBuilder.append(LINE_SEPARATOR);
+        try {
+            settingArgs.addAll(ConfigUtil.toArgs(configLine));
+        } catch (IllegalArgumentException e) {
+            throw new RedisBuildingException("Invalid setting: " + configLine, e);
+        }
         return this;
     }
 
+    void extraArgs(String... args) {
+        this.extraArgs.addAll(Arrays.asList(args));
+    }
+
     public RedisServer build() {
+        if (reservingPortProvider != null) {
+            port = reservingPortProvider.next();
+        }
         tryResolveConfAndExec();
         List<String> args = buildCommandArgs();
-        return new RedisServer(args, port);
+        RedisServer instance = new RedisServer(args, tcpEnabled ? port : 0);
+        if (unixSocket) {
+            instance.unixSocket(unixSocketPath == null ? null : unixSocketPath.getAbsoluteFile());
+        }
+        if (rdbFixture != null) {
+            instance.rdbFixture(rdbFixture);
+        }
+        configure(instance);
+        instance.memoryLimit(maxMemory, evictionPolicy);
+        if (reservingPortProvider != null && tcpEnabled) {
+            instance.retryOnBindFailure(reservingPortProvider, BIND_RETRIES);
+        }
+        if (networkConditions != null) {
+            instance.proxy(new RedisProxy(networkConditions));
+        }
+        return instance;
+    }
+
+    /**
+     * Builds a server backed by the in-process engine instead of the redis executable, see
+     * {@link InProcessRedisServer}. Only the port (or port reservation) and {@code proxy(...)} apply; settings,
+     * persistence, replication and the other process options are ignored.
+     */
+    public InProcessRedisServer buildInProcess() {
+        final InProcessRedisServer instance;
+        if (reservingPortProvider != null) {
+            port = reservingPortProvider.next();
+            instance = new InProcessRedisServer(port, reservingPortProvider, BIND_RETRIES);
+        } else {
+            instance = new InProcessRedisServer(port);
+        }
+        if (networkConditions != null) {
+            instance.proxy(new RedisProxy(networkConditions));
+        }
+        return instance;
     }
 
     public void reset() {
         this.executable = null;        
         this.slaveOf = null;
         this.redisConf = null;
+        this.rdbFixture = null;
+        this.extraArgs.clear();
     }
 
     private void tryResolveConfAndExec() {
@@ -86,11 +248,20 @@ public class RedisServerBuilder {
     }
 
     private void resolveConfAndExec() throws IOException {
-        if (redisConf == null && redisConfigBuilder != null) {
-            File redisConfigFile = File.createTempFile(resolveConfigName(), ".conf");
-            redisConfigFile.deleteOnExit();
-            Files.write(redisConfigBuilder.toString(), redisConfigFile, Charset.forName("UTF-8"));
-            redisConf = redisConfigFile.getAbsolutePath();
+        if (!tcpEnabled) {
+            if (!unixSocket) {
+                throw new RedisBuildingException("TCP can only be disabled when listening on a unix socket");
+            }
+            if (hasInfoSampling()) {
+                throw new RedisBuildingException("INFO sampling needs TCP");
+            }
+            if (networkConditions != null) {
+                throw new RedisBuildingException("A proxy needs TCP");
+            }
+        }
+        if (rdbFixture != null && persistence == Persistence.AOF_EVERYSEC) {
+            // with appendonly enabled redis loads the (empty) append only file and ignores the RDB
+            throw new RedisBuildingException("An RDB fixture is not loaded when persistence is " + persistence);
         }
 
         try {
@@ -100,10 +271,6 @@ public class RedisServerBuilder {
         }
     }
 
-    private String resolveConfigName() {
-        return CONF_FILENAME + "_" + port;
-    }
-
     private List<String> buildCommandArgs() {
         List<String> args = new ArrayList<String>();
         args.add(executable.getAbsolutePath());
@@ -112,8 +279,41 @@ public class RedisServerBuilder {
             args.add(redisConf);
         }
 
+        if (settingArgs != null) {
+            args.addAll(settingArgs);
+        }
+
         args.add("--port");
-        args.add(Integer.toString(port));
+        args.add(Integer.toString(tcpEnabled ? port : 0));
+
+        if (unixSocket) {
+            // a private socket is moved into the working directory on every start, see RedisServer
+            args.add("--unixsocket");
+            args.add(unixSocketPath != null ? unixSocketPath.getAbsolutePath() : RedisServer.UNIX_SOCKET_FILENAME);
+            if (unixSocketPerm != null) {
+                args.add("--unixsocketperm");
+                args.add(Integer.toOctalString(unixSocketPerm));
+            }
+        }
+
+        if (rdbFixture != null) {
+            args.add("--dbfilename");
+            args.add(RedisServer.DB_FILENAME);
+        }
+
+        if (persistence != null) {
+            args.addAll(persistence.args());
+        }
+
+        if (maxMemory > 0) {
+            args.add("--maxmemory");
+            args.add(Long.toString(maxMemory));
+        }
+
+        if (evictionPolicy != null) {
+            args.add("--maxmemory-policy");
+            args.add(evictionPolicy.configValue());
+        }
 
         if (slaveOf != null) {
             args.add("--slaveof");
@@ -121,6 +321,7 @@ public class RedisServerBuilder {
             args.add(Integer.toString(slaveOf.getPort()));
         }
 
+        args.addAll(extraArgs);
         return args;
     }
 }
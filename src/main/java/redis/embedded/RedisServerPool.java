@@ -0,0 +1,321 @@
+package redis.embedded;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.ports.ReservingPortProvider;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a number of {@link RedisServer} instances started in the background and leases them to tests.
+ * Returned instances are reset (FLUSHALL, CONFIG RESETSTAT, SCRIPT FLUSH) off the caller thread, and
+ * instances that died or failed to reset are replaced by freshly started ones. A replacement which fails to
+ * start is retried a few times with exponential backoff before its slot is given up.
+ */
+public class RedisServerPool {
+    private static final long MAINTENANCE_KEEP_ALIVE_SECONDS = 10L;
+    private static final long LEASE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int MAX_START_ATTEMPTS = 5;
+    private static final long INITIAL_START_BACKOFF_MILLIS = 100L;
+
+    private final RedisServerBuilder serverBuilder;
+    private final PortProvider portProvider;
+    private final int size;
+
+    private final BlockingQueue<RedisServer> idle = new LinkedBlockingQueue<RedisServer>();
+    private final Set<RedisServer> all = Collections.newSetFromMap(new ConcurrentHashMap<RedisServer, Boolean>());
+    private final Set<RedisServer> leased = Collections.newSetFromMap(new ConcurrentHashMap<RedisServer, Boolean>());
+    private final ThreadPoolExecutor maintenance;
+    private volatile boolean open = false;
+    private final AtomicInteger lostSlots = new AtomicInteger();
+    private volatile RuntimeException lastStartFailure;
+
+    private final AtomicLong leases = new AtomicLong();
+    private final AtomicLong leaseWaitNanos = new AtomicLong();
+    private final AtomicLong maxLeaseWaitNanos = new AtomicLong();
+    private final AtomicLong resets = new AtomicLong();
+    private final AtomicLong resetNanos = new AtomicLong();
+    private final AtomicLong maxResetNanos = new AtomicLong();
+    private final AtomicLong replacements = new AtomicLong();
+
+    RedisServerPool(RedisServerBuilder serverBuilder, PortProvider portProvider, int size) {
+        this.serverBuilder = serverBuilder;
+        this.portProvider = portProvider;
+        this.size = size;
+        this.maintenance = new ThreadPoolExecutor(size, size, MAINTENANCE_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("embedded-redis-pool-%d").build());
+        this.maintenance.allowCoreThreadTimeOut(true);
+    }
+
+    public static RedisServerPoolBuilder builder() {
+        return new RedisServerPoolBuilder();
+    }
+
+    /**
+     * Starts filling the pool in the background and returns immediately.
+     */
+    public synchronized void start() {
+        if (open) {
+            throw new EmbeddedRedisException("This redis server pool is already started...");
+        }
+        open = true;
+        lostSlots.set(0);
+        lastStartFailure = null;
+        for (int i = 0; i < size; i++) {
+            submitReplacement();
+        }
+    }
+
+    public RedisServer lease() throws InterruptedException {
+        return lease(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Leases a clean, running server, waiting up to the given time for one to become available.
+     *
+     * @throws EmbeddedRedisException right away, with the last start failure as cause, once no server can be
+     * started for any slot of the pool
+     */
+    public RedisServer lease(long timeout, TimeUnit unit) throws InterruptedException {
+        final long begin = System.nanoTime();
+        final long deadline = begin + Math.min(unit.toNanos(timeout), Long.MAX_VALUE / 2);
+        while (open) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new EmbeddedRedisException("No redis server available within " + unit.toMillis(timeout) + " ms");
+            }
+            final RedisServer server = idle.poll(Math.min(remaining, LEASE_POLL_NANOS), TimeUnit.NANOSECONDS);
+            if (server == null) {
+                if (lostSlots.get() >= size) {
+                    throw new EmbeddedRedisException("No redis server of this pool could be started", lastStartFailure);
+                }
+                continue;
+            }
+            if (server.isProcessAlive()) {
+                leased.add(server);
+                record(System.nanoTime() - begin, leaseWaitNanos, maxLeaseWaitNanos);
+                leases.incrementAndGet();
+                return server;
+            }
+            discard(server);
+        }
+        throw new EmbeddedRedisException("This redis server pool is stopped");
+    }
+
+    /**
+     * Returns a leased server. It is reset in the background and becomes available for the next lease.
+     *
+     * @throws IllegalArgumentException if the server is not currently leased from this pool, e.g. when it
+     * has already been released
+     */
+    public void release(final RedisServer server) {
+        if (!leased.remove(server)) {
+            throw new IllegalArgumentException("Server is not currently leased from this pool");
+        }
+        if (!open) {
+            discard(server);
+            return;
+        }
+        maintenance.submit(new Runnable() {
+            @Override
+            public void run() {
+                if (server.isProcessAlive() && reset(server)) {
+                    idle.offer(server);
+                } else {
+                    discard(server);
+                }
+            }
+        });
+    }
+
+    public synchronized void stop() {
+        open = false;
+        maintenance.shutdownNow();
+        final List<Redis> servers = new ArrayList<Redis>(all);
+        all.clear();
+        leased.clear();
+        idle.clear();
+        if (!servers.isEmpty()) {
+            new ParallelLifecycle(servers.size()).stop(servers);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int available() {
+        return idle.size();
+    }
+
+    public Metrics metrics() {
+        return new Metrics(leases.get(), leaseWaitNanos.get(), maxLeaseWaitNanos.get(),
+                resets.get(), resetNanos.get(), maxResetNanos.get(), replacements.get());
+    }
+
+    private boolean reset(RedisServer server) {
+        final long begin = System.nanoTime();
+        try {
+            final ControlConnection connection = new ControlConnection(server.ports().get(0));
+            try {
+                connection.send("FLUSHALL");
+                connection.send("CONFIG", "RESETSTAT");
+                connection.send("SCRIPT", "FLUSH");
+                connection.sync();
+            } finally {
+                connection.close();
+            }
+        } catch (IOException e) {
+            return false;
+        } catch (EmbeddedRedisException e) {
+            return false;
+        }
+        resets.incrementAndGet();
+        record(System.nanoTime() - begin, resetNanos, maxResetNanos);
+        return true;
+    }
+
+    private void discard(RedisServer server) {
+        all.remove(server);
+        try {
+            server.stop();
+        } catch (EmbeddedRedisException ignored) {
+            // the instance is being replaced anyway
+        }
+        if (open) {
+            replacements.incrementAndGet();
+            submitReplacement();
+        }
+    }
+
+    private void submitReplacement() {
+        maintenance.submit(new Runnable() {
+            @Override
+            public void run() {
+                long backoffMillis = INITIAL_START_BACKOFF_MILLIS;
+                for (int attempt = 1; open; attempt++) {
+                    RedisServer server = null;
+                    try {
+                        server = buildServer();
+                        all.add(server);
+                        server.start();
+                    } catch (RuntimeException e) {
+                        if (server != null) {
+                            all.remove(server);
+                        }
+                        lastStartFailure = e;
+                        if (attempt == MAX_START_ATTEMPTS) {
+                            lostSlots.incrementAndGet();
+                            return;
+                        }
+                        try {
+                            TimeUnit.MILLISECONDS.sleep(backoffMillis);
+                        } catch (InterruptedException interrupted) {
+                            return;
+                        }
+                        backoffMillis *= 2;
+                        continue;
+                    }
+                    if (open) {
+                        idle.offer(server);
+                    } else {
+                        all.remove(server);
+                        server.stop();
+                    }
+                    return;
+                }
+            }
+        });
+    }
+
+    private RedisServer buildServer() {
+        synchronized (serverBuilder) {
+            if (portProvider instanceof ReservingPortProvider) {
+                serverBuilder.reservedPort((ReservingPortProvider) portProvider);
+            } else {
+                serverBuilder.port(portProvider.next());
+            }
+            return serverBuilder.build();
+        }
+    }
+
+    private static void record(long nanos, AtomicLong total, AtomicLong max) {
+        total.addAndGet(nanos);
+        long current;
+        while (nanos > (current = max.get()) && !max.compareAndSet(current, nanos)) {
+            // retry
+        }
+    }
+
+    public static class Metrics {
+        private final long leases;
+        private final long leaseWaitNanos;
+        private final long maxLeaseWaitNanos;
+        private final long resets;
+        private final long resetNanos;
+        private final long maxResetNanos;
+        private final long replacements;
+
+        Metrics(long leases, long leaseWaitNanos, long maxLeaseWaitNanos,
+                long resets, long resetNanos, long maxResetNanos, long replacements) {
+            this.leases = leases;
+            this.leaseWaitNanos = leaseWaitNanos;
+            this.maxLeaseWaitNanos = maxLeaseWaitNanos;
+            this.resets = resets;
+            this.resetNanos = resetNanos;
+            this.maxResetNanos = maxResetNanos;
+            this.replacements = replacements;
+        }
+
+        public long leases() {
+            return leases;
+        }
+
+        public long averageLeaseWait(TimeUnit unit) {
+            return leases == 0 ? 0 : unit.convert(leaseWaitNanos / leases, TimeUnit.NANOSECONDS);
+        }
+
+        public long maxLeaseWait(TimeUnit unit) {
+            return unit.convert(maxLeaseWaitNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public long resets() {
+            return resets;
+        }
+
+        public long averageResetTime(TimeUnit unit) {
+            return resets == 0 ? 0 : unit.convert(resetNanos / resets, TimeUnit.NANOSECONDS);
+        }
+
+        public long maxResetTime(TimeUnit unit) {
+            return unit.convert(maxResetNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public long replacements() {
+            return replacements;
+        }
+
+        @Override
+        public String toString() {
+            return "leases=" + leases
+                    + ", avgLeaseWaitMicros=" + averageLeaseWait(TimeUnit.MICROSECONDS)
+                    + ", maxLeaseWaitMicros=" + maxLeaseWait(TimeUnit.MICROSECONDS)
+                    + ", resets=" + resets
+                    + ", avgResetMicros=" + averageResetTime(TimeUnit.MICROSECONDS)
+                    + ", maxResetMicros=" + maxResetTime(TimeUnit.MICROSECONDS)
+                    + ", replacements=" + replacements;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package redis.embedded;
+
+import redis.embedded.ports.ReservingPortProvider;
+
+public class RedisServerPoolBuilder {
+    private RedisServerBuilder serverBuilder = new RedisServerBuilder();
+    private PortProvider portProvider = new ReservingPortProvider();
+    private int size = 4;
+
+    public RedisServerPoolBuilder withServerBuilder(RedisServerBuilder serverBuilder) {
+        this.serverBuilder = serverBuilder;
+        return this;
+    }
+
+    /**
+     * Ports for pooled servers, reserved across JVMs with a {@link ReservingPortProvider} by default. Servers
+     * given a reserving provider also move to a newly reserved port when theirs is taken on start.
+     */
+    public RedisServerPoolBuilder portProvider(PortProvider portProvider) {
+        this.portProvider = portProvider;
+        return this;
+    }
+
+    public RedisServerPoolBuilder size(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be positive: " + size);
+        }
+        this.size = size;
+        return this;
+    }
+
+    public RedisServerPool build() {
+        return new RedisServerPool(serverBuilder, portProvider, size);
+    }
+}
@@ -0,0 +1,246 @@
+package redis.embedded;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.util.InfoUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Native Redis Cluster (hash-slot sharding) topology. {@link #start()} starts every node, assigns slots,
+ * joins the nodes, attaches replicas and returns once all nodes report {@code cluster_state:ok}.
+ */
+public class RedisShardedCluster implements Redis {
+    private static final String LOCALHOST = "127.0.0.1";
+    private static final long POLL_INTERVAL_MILLIS = 50L;
+
+    private final Map<Redis, SlotRange> masters = new LinkedHashMap<Redis, SlotRange>();
+    private final Map<Redis, Redis> replicas = new LinkedHashMap<Redis, Redis>();
+    private final long clusterStateTimeoutMillis;
+    private final int lifecycleParallelism;
+
+    RedisShardedCluster(Map<Redis, SlotRange> masters, Map<Redis, Redis> replicas,
+                        long clusterStateTimeoutMillis, int lifecycleParallelism) {
+        this.masters.putAll(masters);
+        this.replicas.putAll(replicas);
+        this.clusterStateTimeoutMillis = clusterStateTimeoutMillis;
+        this.lifecycleParallelism = lifecycleParallelism;
+    }
+
+    public static RedisShardedClusterBuilder builder() {
+        return new RedisShardedClusterBuilder();
+    }
+
+    @Override
+    public boolean isActive() {
+        for (Redis redis : nodes()) {
+            if (!redis.isActive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void start() throws EmbeddedRedisException {
+        final List<Redis> nodes = nodes();
+        final List<List<Redis>> phases = Collections.<List<Redis>>singletonList(nodes);
+        new ParallelLifecycle(lifecycleParallelism).start(phases);
+        try {
+            configure();
+        } catch (RuntimeException e) {
+            stop();
+            throw e;
+        } catch (IOException e) {
+            stop();
+            throw new EmbeddedRedisException("Failed to form Redis Cluster", e);
+        }
+    }
+
+    private void configure() throws IOException {
+        final Map<Redis, ControlConnection> connections = new LinkedHashMap<Redis, ControlConnection>();
+        try {
+            for (Redis node : nodes()) {
+                connections.put(node, new ControlConnection(port(node)));
+            }
+            for (ControlConnection connection : connections.values()) {
+                resetNode(connection);
+            }
+
+            long configEpoch = 1;
+            for (Map.Entry<Redis, SlotRange> master : masters.entrySet()) {
+                final ControlConnection connection = connections.get(master.getKey());
+                connection.send("CLUSTER", "SET-CONFIG-EPOCH", Long.toString(configEpoch++));
+                connection.send(addSlotsCommand(master.getValue()));
+                connection.sync();
+            }
+
+            final Map<Redis, String> nodeIds = new LinkedHashMap<Redis, String>();
+            for (Map.Entry<Redis, ControlConnection> node : connections.entrySet()) {
+                nodeIds.put(node.getKey(), nodeId(node.getValue()));
+            }
+
+            final ControlConnection first = connections.values().iterator().next();
+            for (Redis node : nodes()) {
+                first.send("CLUSTER", "MEET", LOCALHOST, Integer.toString(port(node)));
+            }
+            first.sync();
+            awaitClusterInfo(connections, "cluster_known_nodes", Integer.toString(connections.size()));
+
+            for (Map.Entry<Redis, Redis> replica : replicas.entrySet()) {
+                connections.get(replica.getKey()).execute("CLUSTER", "REPLICATE", nodeIds.get(replica.getValue()));
+            }
+            awaitClusterInfo(connections, "cluster_state", "ok");
+        } finally {
+            for (ControlConnection connection : connections.values()) {
+                connection.close();
+            }
+        }
+    }
+
+    // Nodes keep nodes.conf in their working directory, so a restarted node has to forget its previous cluster.
+    private void resetNode(ControlConnection connection) throws IOException {
+        try {
+            connection.execute("CLUSTER", "RESET", "HARD");
+        } catch (EmbeddedRedisException e) {
+            // a master holding keys cannot be reset
+            connection.execute("FLUSHALL");
+            connection.execute("CLUSTER", "RESET", "HARD");
+        }
+    }
+
+    private static String[] addSlotsCommand(SlotRange range) {
+        final String[] command = new String[range.size() + 2];
+        command[0] = "CLUSTER";
+        command[1] = "ADDSLOTS";
+        for (int slot = range.start(); slot <= range.end(); slot++) {
+            command[slot - range.start() + 2] = Integer.toString(slot);
+        }
+        return command;
+    }
+
+    private static String nodeId(ControlConnection connection) throws IOException {
+        for (String line : connection.executeForString("CLUSTER", "NODES").split("\n")) {
+            if (line.contains("myself")) {
+                return line.substring(0, line.indexOf(' '));
+            }
+        }
+        throw new EmbeddedRedisException("Could not determine Redis Cluster node id");
+    }
+
+    private void awaitClusterInfo(Map<Redis, ControlConnection> connections, String field, String expected)
+            throws IOException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(clusterStateTimeoutMillis);
+        for (ControlConnection connection : connections.values()) {
+            while (!expected.equals(InfoUtil.field(connection.executeForString("CLUSTER", "INFO"), field))) {
+                if (System.nanoTime() - deadline > 0) {
+                    throw new EmbeddedRedisException("Redis Cluster did not reach " + field + ":" + expected
+                            + " within " + clusterStateTimeoutMillis + " ms");
+                }
+                sleep();
+            }
+        }
+    }
+
+    private static void sleep() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(POLL_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddedRedisException("Interrupted while forming Redis Cluster", e);
+        }
+    }
+
+    @Override
+    public void stop() throws EmbeddedRedisException {
+        new ParallelLifecycle(lifecycleParallelism).stop(nodes());
+    }
+
+    @Override
+    public ListenableFuture<Redis> startAsync() {
+        return startAsync(AsyncLifecycle.defaultExecutor());
+    }
+
+    @Override
+    public ListenableFuture<Redis> startAsync(Executor executor) {
+        return AsyncLifecycle.start(this, executor);
+    }
+
+    @Override
+    public ListenableFuture<Redis> stopAsync() {
+        return stopAsync(AsyncLifecycle.defaultExecutor());
+    }
+
+    @Override
+    public ListenableFuture<Redis> stopAsync(Executor executor) {
+        return AsyncLifecycle.stop(this, executor);
+    }
+
+    @Override
+    public List<Integer> ports() {
+        final List<Integer> ports = new ArrayList<Integer>();
+        for (Redis redis : nodes()) {
+            ports.addAll(redis.ports());
+        }
+        return ports;
+    }
+
+    public List<Redis> nodes() {
+        final List<Redis> nodes = new ArrayList<Redis>(masters.keySet());
+        nodes.addAll(replicas.keySet());
+        return nodes;
+    }
+
+    public List<Redis> masters() {
+        return new ArrayList<Redis>(masters.keySet());
+    }
+
+    public List<Redis> replicas() {
+        return new ArrayList<Redis>(replicas.keySet());
+    }
+
+    public List<Redis> replicasOf(Redis master) {
+        final List<Redis> result = new ArrayList<Redis>();
+        for (Map.Entry<Redis, Redis> replica : replicas.entrySet()) {
+            if (replica.getValue() == master) {
+                result.add(replica.getKey());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Slot ranges assigned to each master when the cluster was formed.
+     */
+    public Map<Redis, SlotRange> slotRanges() {
+        return Collections.unmodifiableMap(masters);
+    }
+
+    public SlotRange slotRange(Redis master) {
+        return masters.get(master);
+    }
+
+    public Redis masterForKey(String key) {
+        return masterForSlot(SlotRange.slotOf(key));
+    }
+
+    public Redis masterForSlot(int slot) {
+        for (Map.Entry<Redis, SlotRange> master : masters.entrySet()) {
+            if (master.getValue().contains(slot)) {
+                return master.getKey();
+            }
+        }
+        throw new IllegalArgumentException("Slot out of range: " + slot);
+    }
+
+    private static int port(Redis node) {
+        return node.ports().get(0);
+    }
+}
@@ -0,0 +1,129 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.RedisBuildingException;
+import redis.embedded.ports.PredefinedPortProvider;
+import redis.embedded.ports.SequencePortProvider;
+import redis.embedded.readiness.PingReadiness;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds a native Redis Cluster: cluster-enabled nodes with hash slots spread evenly across masters
+ * and a number of replicas per master. Requires a redis 3.0+ executable, which has to be provided
+ * through {@link RedisServerBuilder#redisExecProvider(RedisExecProvider)} of the server builder.
+ * <p>
+ * Each node also uses its port + 10000 for the cluster bus, so ports have to stay below 55536.
+ */
+public class RedisShardedClusterBuilder {
+    private static final int CLUSTER_BUS_PORT_OFFSET = 10000;
+
+    private RedisServerBuilder serverBuilder = new RedisServerBuilder();
+    private PortProvider portProvider = new SequencePortProvider(7000);
+    private int masterCount = 3;
+    private int replicasPerMaster = 0;
+    private long nodeTimeoutMillis = 5000L;
+    private long clusterStateTimeoutMillis = TimeUnit.SECONDS.toMillis(30);
+    private int lifecycleParallelism = 8;
+
+    /**
+     * Builder for the nodes. Nodes wait for readiness with {@link PingReadiness} unless the given builder
+     * sets its own {@link ReadinessStrategy}.
+     */
+    public RedisShardedClusterBuilder withServerBuilder(RedisServerBuilder serverBuilder) {
+        this.serverBuilder = serverBuilder;
+        return this;
+    }
+
+    public RedisShardedClusterBuilder serverPorts(Collection<Integer> ports) {
+        this.portProvider = new PredefinedPortProvider(ports);
+        return this;
+    }
+
+    public RedisShardedClusterBuilder startingPort(int startingPort) {
+        this.portProvider = new SequencePortProvider(startingPort);
+        return this;
+    }
+
+    public RedisShardedClusterBuilder masters(int masterCount) {
+        if (masterCount < 1) {
+            throw new IllegalArgumentException("At least one master is required: " + masterCount);
+        }
+        this.masterCount = masterCount;
+        return this;
+    }
+
+    public RedisShardedClusterBuilder replicasPerMaster(int replicasPerMaster) {
+        if (replicasPerMaster < 0) {
+            throw new IllegalArgumentException("Replica count cannot be negative: " + replicasPerMaster);
+        }
+        this.replicasPerMaster = replicasPerMaster;
+        return this;
+    }
+
+    public RedisShardedClusterBuilder nodeTimeout(long timeout, TimeUnit unit) {
+        this.nodeTimeoutMillis = unit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * Maximum time {@link RedisShardedCluster#start()} waits for {@code cluster_state:ok} on every node.
+     */
+    public RedisShardedClusterBuilder clusterStateTimeout(long timeout, TimeUnit unit) {
+        this.clusterStateTimeoutMillis = unit.toMillis(timeout);
+        return this;
+    }
+
+    public RedisShardedClusterBuilder lifecycleParallelism(int maxParallelism) {
+        if (maxParallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + maxParallelism);
+        }
+        this.lifecycleParallelism = maxParallelism;
+        return this;
+    }
+
+    public RedisShardedCluster build() {
+        final List<SlotRange> ranges = slotRanges();
+        final Map<Redis, SlotRange> masters = new LinkedHashMap<Redis, SlotRange>();
+        final Map<Redis, Redis> replicas = new LinkedHashMap<Redis, Redis>();
+        for (SlotRange range : ranges) {
+            final Redis master = buildNode();
+            masters.put(master, range);
+            for (int i = 0; i < replicasPerMaster; i++) {
+                replicas.put(buildNode(), master);
+            }
+        }
+        return new RedisShardedCluster(masters, replicas, clusterStateTimeoutMillis, lifecycleParallelism);
+    }
+
+    private List<SlotRange> slotRanges() {
+        final List<SlotRange> ranges = new ArrayList<SlotRange>();
+        int start = 0;
+        for (int i = 0; i < masterCount; i++) {
+            final int end = (int) ((long) SlotRange.SLOT_COUNT * (i + 1) / masterCount) - 1;
+            ranges.add(new SlotRange(start, end));
+            start = end + 1;
+        }
+        return ranges;
+    }
+
+    private Redis buildNode() {
+        final int port = portProvider.next();
+        if (port + CLUSTER_BUS_PORT_OFFSET > 65535) {
+            throw new RedisBuildingException("Port " + port + " leaves no room for its cluster bus port");
+        }
+        serverBuilder.reset();
+        if (!serverBuilder.hasReadinessStrategy()) {
+            serverBuilder.readinessStrategy(new PingReadiness());
+        }
+        serverBuilder.port(port);
+        serverBuilder.extraArgs(
+                "--cluster-enabled", "yes",
+                "--cluster-node-timeout", Long.toString(nodeTimeoutMillis));
+        return serverBuilder.build();
+    }
+}
@@ -0,0 +1,221 @@
+package redis.embedded;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import redis.embedded.exceptions.ClusterLifecycleException;
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.util.InfoUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits for replication of a started topology to settle: every slave linked to its master with its
+ * offset caught up, and every sentinel aware of every master and all of its slaves. Nodes are polled
+ * in parallel and the time each one needed, counted from the start of the wait, is recorded.
+ */
+class ReplicationSync {
+    private static final long POLL_INTERVAL_MILLIS = 50L;
+
+    private final long timeoutMillis;
+    private final Map<Integer, Integer> slavesPerMasterPort = new HashMap<Integer, Integer>();
+
+    ReplicationSync(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Waits until every slave reports {@code master_link_status:up} and has caught up with the
+     * replication offset its master had when the link came up.
+     *
+     * @return time in nanoseconds each slave needed
+     */
+    Map<Redis, Long> awaitSlaves(List<Redis> slaves) {
+        final Map<Redis, Poll> polls = new LinkedHashMap<Redis, Poll>();
+        for (Redis slave : slaves) {
+            polls.put(slave, new SlavePoll());
+        }
+        final Map<Redis, Long> times = pollAll(polls, "Slaves did not sync with their masters");
+        for (Poll poll : polls.values()) {
+            final int masterPort = ((SlavePoll) poll).masterPort;
+            final Integer count = slavesPerMasterPort.get(masterPort);
+            slavesPerMasterPort.put(masterPort, count == null ? 1 : count + 1);
+        }
+        return times;
+    }
+
+    /**
+     * Waits until every sentinel monitors all given masters and has discovered as many healthy slaves of
+     * each as {@link #awaitSlaves(List)} found linked to it.
+     *
+     * @return time in nanoseconds each sentinel needed
+     */
+    Map<Redis, Long> awaitSentinels(List<Redis> sentinels, List<Redis> masters) {
+        final Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+        for (Redis master : masters) {
+            final Integer count = slavesPerMasterPort.get(port(master));
+            expected.put(port(master), count == null ? 0 : count);
+        }
+        final Map<Redis, Poll> polls = new LinkedHashMap<Redis, Poll>();
+        for (Redis sentinel : sentinels) {
+            polls.put(sentinel, new SentinelPoll(expected));
+        }
+        return pollAll(polls, "Sentinels did not discover the replication topology");
+    }
+
+    private Map<Redis, Long> pollAll(Map<Redis, Poll> polls, String failureMessage) {
+        final Map<Redis, Long> times = new LinkedHashMap<Redis, Long>();
+        if (polls.isEmpty()) {
+            return times;
+        }
+        final long started = System.nanoTime();
+        final ExecutorService executor = Executors.newFixedThreadPool(polls.size(),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("embedded-redis-sync-%d").build());
+        try {
+            final Map<Redis, Future<Long>> futures = new LinkedHashMap<Redis, Future<Long>>();
+            for (final Map.Entry<Redis, Poll> poll : polls.entrySet()) {
+                futures.put(poll.getKey(), executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws Exception {
+                        return poll.getValue().await(poll.getKey(), started);
+                    }
+                }));
+            }
+            final List<Throwable> failures = new ArrayList<Throwable>();
+            for (Map.Entry<Redis, Future<Long>> future : futures.entrySet()) {
+                try {
+                    times.put(future.getKey(), future.getValue().get());
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failures.add(e);
+                }
+            }
+            if (!failures.isEmpty()) {
+                throw new ClusterLifecycleException(failureMessage, failures);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return times;
+    }
+
+    private static int port(Redis node) {
+        return node.ports().get(0);
+    }
+
+    private abstract class Poll {
+        long await(Redis node, long started) throws IOException, InterruptedException {
+            final long deadline = started + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            final ControlConnection connection = new ControlConnection(port(node));
+            try {
+                while (!settled(connection)) {
+                    if (System.nanoTime() - deadline > 0) {
+                        throw new EmbeddedRedisException(describe(node) + " within " + timeoutMillis + " ms");
+                    }
+                    Thread.sleep(POLL_INTERVAL_MILLIS);
+                }
+                return System.nanoTime() - started;
+            } finally {
+                connection.close();
+            }
+        }
+
+        abstract boolean settled(ControlConnection connection) throws IOException;
+
+        abstract String describe(Redis node);
+    }
+
+    private class SlavePoll extends Poll {
+        private int masterPort;
+        private long targetOffset = -1L;
+
+        @Override
+        boolean settled(ControlConnection connection) throws IOException {
+            final String info = connection.executeForString("INFO", "replication");
+            if (!"up".equals(InfoUtil.field(info, "master_link_status"))) {
+                return false;
+            }
+            if (targetOffset < 0) {
+                masterPort = Integer.parseInt(InfoUtil.field(info, "master_port"));
+                targetOffset = masterOffset(masterPort);
+            }
+            final String offset = InfoUtil.field(info, "slave_repl_offset");
+            return offset != null && Long.parseLong(offset) >= targetOffset;
+        }
+
+        private long masterOffset(int port) throws IOException {
+            final ControlConnection master = new ControlConnection(port);
+            try {
+                final String offset = InfoUtil.field(master.executeForString("INFO", "replication"), "master_repl_offset");
+                return offset == null ? 0L : Long.parseLong(offset);
+            } finally {
+                master.close();
+            }
+        }
+
+        @Override
+        String describe(Redis node) {
+            return "Slave on port " + port(node) + " did not sync with its master";
+        }
+    }
+
+    private class SentinelPoll extends Poll {
+        private final Map<Integer, Integer> expectedSlaves;
+
+        private SentinelPoll(Map<Integer, Integer> expectedSlaves) {
+            this.expectedSlaves = expectedSlaves;
+        }
+
+        @Override
+        boolean settled(ControlConnection connection) throws IOException {
+            final Map<Integer, Integer> discovered = new HashMap<Integer, Integer>();
+            for (Object master : (List<?>) connection.execute("SENTINEL", "MASTERS")) {
+                final Map<String, String> fields = fields((List<?>) master);
+                discovered.put(Integer.parseInt(fields.get("port")), healthySlaves(connection, fields.get("name")));
+            }
+            for (Map.Entry<Integer, Integer> master : expectedSlaves.entrySet()) {
+                final Integer slaves = discovered.get(master.getKey());
+                if (slaves == null || slaves < master.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // only slaves the sentinel has heard from and sees linked to their master are eligible for promotion
+        private int healthySlaves(ControlConnection connection, String masterName) throws IOException {
+            int healthy = 0;
+            for (Object slave : (List<?>) connection.execute("SENTINEL", "SLAVES", masterName)) {
+                final Map<String, String> fields = fields((List<?>) slave);
+                if ("slave".equals(fields.get("flags")) && "ok".equals(fields.get("master-link-status"))) {
+                    healthy++;
+                }
+            }
+            return healthy;
+        }
+
+        private Map<String, String> fields(List<?> flat) {
+            final Map<String, String> fields = new HashMap<String, String>();
+            for (int i = 0; i + 1 < flat.size(); i += 2) {
+                fields.put(String.valueOf(flat.get(i)), String.valueOf(flat.get(i + 1)));
+            }
+            return fields;
+        }
+
+        @Override
+        String describe(Redis node) {
+            return "Sentinel on port " + port(node) + " did not discover every master and slave";
+        }
+    }
+}
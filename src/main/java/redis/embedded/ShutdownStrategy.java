@@ -0,0 +1,18 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+/**
+ * Decides how a running redis process is brought down on {@code stop()}.
+ */
+public interface ShutdownStrategy {
+    /**
+     * Blocks until the process has exited.
+     *
+     * @param redisProcess the running process
+     * @param port TCP port of the instance, or 0 when the instance does not listen on TCP
+     * @param timeoutMillis time each shutdown step may take before escalating to the next one
+     * @throws EmbeddedRedisException when the process could not be stopped
+     */
+    void shutdown(Process redisProcess, int port, long timeoutMillis) throws EmbeddedRedisException;
+}
@@ -0,0 +1,96 @@
+package redis.embedded;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Inclusive range of Redis Cluster hash slots.
+ */
+public class SlotRange {
+    public static final int SLOT_COUNT = 16384;
+
+    private final int start;
+    private final int end;
+
+    public SlotRange(int start, int end) {
+        if (start < 0 || end >= SLOT_COUNT || start > end) {
+            throw new IllegalArgumentException("Invalid slot range: " + start + "-" + end);
+        }
+        this.start = start;
+        this.end = end;
+    }
+
+    public int start() {
+        return start;
+    }
+
+    public int end() {
+        return end;
+    }
+
+    public int size() {
+        return end - start + 1;
+    }
+
+    public boolean contains(int slot) {
+        return slot >= start && slot <= end;
+    }
+
+    /**
+     * Hash slot of a key, honouring {@code {hash tags}} the same way Redis Cluster does.
+     */
+    public static int slotOf(String key) {
+        return slotOf(key.getBytes(Charsets.UTF_8));
+    }
+
+    public static int slotOf(byte[] key) {
+        int from = 0;
+        int to = key.length;
+        for (int open = 0; open < key.length; open++) {
+            if (key[open] == '{') {
+                for (int close = open + 1; close < key.length; close++) {
+                    if (key[close] == '}') {
+                        if (close > open + 1) {
+                            from = open + 1;
+                            to = close;
+                        }
+                        break;
+                    }
+                }
+                break;
+            }
+        }
+        return crc16(key, from, to) & (SLOT_COUNT - 1);
+    }
+
+    // CRC16-CCITT (XModem), as used by Redis Cluster
+    private static int crc16(byte[] bytes, int from, int to) {
+        int crc = 0;
+        for (int i = from; i < to; i++) {
+            crc ^= (bytes[i] & 0xff) << 8;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+        }
+        return crc & 0xffff;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        SlotRange that = (SlotRange) o;
+
+        return start == that.start && end == that.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * start + end;
+    }
+
+    @Override
+    public String toString() {
+        return start + "-" + end;
+    }
+}
@@ -0,0 +1,18 @@
+package redis.embedded.exceptions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ClusterLifecycleException extends EmbeddedRedisException {
+    private final List<Throwable> failures;
+
+    public ClusterLifecycleException(String message, List<Throwable> failures) {
+        super(message + " (" + failures.size() + " node(s) failed)", failures.isEmpty() ? null : failures.get(0));
+        this.failures = Collections.unmodifiableList(new ArrayList<Throwable>(failures));
+    }
+
+    public List<Throwable> getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,116 @@
+package redis.embedded.inprocess;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Parsing and formatting of command arguments the way redis does it.
+ */
+final class Arguments {
+    private Arguments() {
+    }
+
+    static Bytes key(byte[][] args, int index) {
+        return new Bytes(args[index]);
+    }
+
+    static String text(byte[] arg) {
+        return new String(arg, Charsets.UTF_8);
+    }
+
+    static boolean is(byte[] arg, String option) {
+        if (arg.length != option.length()) {
+            return false;
+        }
+        for (int i = 0; i < arg.length; i++) {
+            if (Character.toUpperCase((char) arg[i]) != option.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static long integer(byte[] arg) {
+        if (arg.length == 0 || arg.length > 20) {
+            throw CommandException.notAnInteger();
+        }
+        try {
+            return Long.parseLong(new String(arg, Charsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw CommandException.notAnInteger();
+        }
+    }
+
+    static int index(byte[] arg) {
+        final long value = integer(arg);
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+    }
+
+    static double decimal(byte[] arg) {
+        final String value = new String(arg, Charsets.US_ASCII);
+        if ("inf".equalsIgnoreCase(value) || "+inf".equalsIgnoreCase(value)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if ("-inf".equalsIgnoreCase(value)) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        try {
+            final double parsed = Double.parseDouble(value);
+            if (Double.isNaN(parsed) || value.trim().length() != value.length()) {
+                throw CommandException.notAFloat();
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw CommandException.notAFloat();
+        }
+    }
+
+    static SortedSetValue.ScoreBound scoreBound(byte[] arg) {
+        if (arg.length > 0 && arg[0] == '(') {
+            final byte[] value = new byte[arg.length - 1];
+            System.arraycopy(arg, 1, value, 0, value.length);
+            return new SortedSetValue.ScoreBound(boundValue(value), true);
+        }
+        return new SortedSetValue.ScoreBound(boundValue(arg), false);
+    }
+
+    private static double boundValue(byte[] arg) {
+        try {
+            return decimal(arg);
+        } catch (CommandException e) {
+            throw new CommandException("ERR min or max is not a float");
+        }
+    }
+
+    static byte[] bytes(long value) {
+        return Long.toString(value).getBytes(Charsets.US_ASCII);
+    }
+
+    /**
+     * Shortest representation that parses back to the same double, without a fraction for integral values.
+     */
+    static byte[] bytes(double value) {
+        if (Double.isInfinite(value)) {
+            return (value > 0 ? "inf" : "-inf").getBytes(Charsets.US_ASCII);
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e17) {
+            return bytes((long) value);
+        }
+        return Double.toString(value).getBytes(Charsets.US_ASCII);
+    }
+
+    /**
+     * Resolves redis-style ranges, where negative indexes count from the end, against a collection size.
+     *
+     * @return inclusive start and stop, with start &gt; stop when the range is empty
+     */
+    static int[] range(int start, int stop, int size) {
+        if (start < 0) {
+            start = Math.max(0, size + start);
+        }
+        if (stop < 0) {
+            stop = size + stop;
+        }
+        stop = Math.min(stop, size - 1);
+        return new int[]{start, stop};
+    }
+}
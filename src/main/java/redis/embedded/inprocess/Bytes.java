@@ -0,0 +1,51 @@
+package redis.embedded.inprocess;
+
+import com.google.common.base.Charsets;
+
+import java.util.Arrays;
+
+/**
+ * Binary-safe key, field or member with value semantics, ordered like redis compares strings (unsigned bytes).
+ */
+final class Bytes implements Comparable<Bytes> {
+    static final Bytes EMPTY = new Bytes(new byte[0]);
+
+    final byte[] bytes;
+    private final int hash;
+
+    Bytes(byte[] bytes) {
+        this.bytes = bytes;
+        this.hash = Arrays.hashCode(bytes);
+    }
+
+    static Bytes of(String value) {
+        return new Bytes(value.getBytes(Charsets.UTF_8));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Bytes && hash == ((Bytes) other).hash && Arrays.equals(bytes, ((Bytes) other).bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public int compareTo(Bytes other) {
+        final int length = Math.min(bytes.length, other.bytes.length);
+        for (int i = 0; i < length; i++) {
+            final int difference = (bytes[i] & 0xff) - (other.bytes[i] & 0xff);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return bytes.length - other.bytes.length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, Charsets.UTF_8);
+    }
+}
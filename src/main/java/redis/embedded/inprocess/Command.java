@@ -0,0 +1,19 @@
+package redis.embedded.inprocess;
+
+/**
+ * A command of the in-process engine. Commands run on the engine thread, one at a time, and write their reply
+ * to the session; failures are reported by throwing {@link CommandException}.
+ */
+interface Command {
+    /**
+     * Upper-case command name; implemented by the enum constants commands are declared as.
+     */
+    String name();
+
+    /**
+     * Number of arguments including the command name; negative when it is a minimum, as in {@code COMMAND}.
+     */
+    int arity();
+
+    void execute(Engine engine, Session session, byte[][] args);
+}
@@ -0,0 +1,28 @@
+package redis.embedded.inprocess;
+
+/**
+ * Makes the current command fail with an error reply, which is the message verbatim.
+ */
+class CommandException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    CommandException(String message) {
+        super(message);
+    }
+
+    static CommandException wrongType() {
+        return new CommandException("WRONGTYPE Operation against a key holding the wrong kind of value");
+    }
+
+    static CommandException notAnInteger() {
+        return new CommandException("ERR value is not an integer or out of range");
+    }
+
+    static CommandException notAFloat() {
+        return new CommandException("ERR value is not a valid float");
+    }
+
+    static CommandException syntax() {
+        return new CommandException("ERR syntax error");
+    }
+}
@@ -0,0 +1,127 @@
+package redis.embedded.inprocess;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One numbered keyspace. Keys with a time to live are expired lazily when accessed and by
+ * {@link #expire(long)}, which the engine calls periodically.
+ */
+class Database {
+    private final Map<Bytes, Object> values = new HashMap<Bytes, Object>();
+    private final Map<Bytes, Long> expires = new HashMap<Bytes, Long>();
+
+    Object get(Bytes key, long now) {
+        final Long expiresAt = expires.get(key);
+        if (expiresAt != null && expiresAt <= now) {
+            remove(key);
+            return null;
+        }
+        return values.get(key);
+    }
+
+    /**
+     * Value of the given type, or {@code null} when the key does not exist.
+     *
+     * @throws CommandException when the key holds a value of another type
+     */
+    <T> T get(Bytes key, Class<T> type, long now) {
+        final Object value = get(key, now);
+        if (value != null && !type.isInstance(value)) {
+            throw CommandException.wrongType();
+        }
+        return type.cast(value);
+    }
+
+    <T> T getOrCreate(Bytes key, Class<T> type, long now) {
+        T value = get(key, type, now);
+        if (value == null) {
+            try {
+                value = type.newInstance();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            values.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Replaces the value and clears any time to live, like {@code SET}.
+     */
+    void set(Bytes key, Object value) {
+        values.put(key, value);
+        expires.remove(key);
+    }
+
+    /**
+     * Replaces the value but keeps its time to live, like {@code INCR} or {@code APPEND}.
+     */
+    void update(Bytes key, Object value) {
+        values.put(key, value);
+    }
+
+    boolean remove(Bytes key) {
+        expires.remove(key);
+        return values.remove(key) != null;
+    }
+
+    boolean exists(Bytes key, long now) {
+        return get(key, now) != null;
+    }
+
+    void expireAt(Bytes key, long at) {
+        expires.put(key, at);
+    }
+
+    boolean persist(Bytes key) {
+        return expires.remove(key) != null;
+    }
+
+    /**
+     * Absolute expiry time in millis, or {@code null} when the key has no time to live.
+     */
+    Long expiresAt(Bytes key) {
+        return expires.get(key);
+    }
+
+    /**
+     * Snapshot of the keys which have not expired yet.
+     */
+    List<Bytes> keys(long now) {
+        final List<Bytes> keys = new ArrayList<Bytes>(values.size());
+        for (Bytes key : values.keySet()) {
+            final Long expiresAt = expires.get(key);
+            if (expiresAt == null || expiresAt > now) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    int size() {
+        return values.size();
+    }
+
+    int expiringKeys() {
+        return expires.size();
+    }
+
+    void clear() {
+        values.clear();
+        expires.clear();
+    }
+
+    void expire(long now) {
+        for (Iterator<Map.Entry<Bytes, Long>> it = expires.entrySet().iterator(); it.hasNext(); ) {
+            final Map.Entry<Bytes, Long> entry = it.next();
+            if (entry.getValue() <= now) {
+                values.remove(entry.getKey());
+                it.remove();
+            }
+        }
+    }
+}
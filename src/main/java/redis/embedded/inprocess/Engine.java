@@ -0,0 +1,260 @@
+package redis.embedded.inprocess;
+
+import com.google.common.base.Charsets;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keyspace, pub/sub registry and command dispatch of the in-process engine. Everything here is confined to the
+ * server thread, so nothing is synchronized.
+ */
+class Engine {
+    static final int DATABASES = 16;
+
+    private static final Set<String> TRANSACTION_CONTROL = new HashSet<String>(Arrays.asList(
+            "MULTI", "EXEC", "DISCARD"));
+    private static final Set<String> ALLOWED_WHILE_SUBSCRIBED = new HashSet<String>(Arrays.asList(
+            "SUBSCRIBE", "UNSUBSCRIBE", "PSUBSCRIBE", "PUNSUBSCRIBE", "PING", "QUIT"));
+    private static final byte[] MESSAGE = "message".getBytes(Charsets.US_ASCII);
+    private static final byte[] PMESSAGE = "pmessage".getBytes(Charsets.US_ASCII);
+
+    private final Map<String, Command> commands = new HashMap<String, Command>();
+    private final Database[] databases = new Database[DATABASES];
+    private final Map<Bytes, Set<Session>> channelSubscribers = new HashMap<Bytes, Set<Session>>();
+    private final Map<Bytes, Set<Session>> patternSubscribers = new HashMap<Bytes, Set<Session>>();
+    private final Set<Session> sessions = new LinkedHashSet<Session>();
+    private final long startedMillis = System.currentTimeMillis();
+    private final int port;
+
+    long connectionsReceived;
+    long commandsProcessed;
+    long keyspaceHits;
+    long keyspaceMisses;
+
+    Engine(int port) {
+        this.port = port;
+        for (int i = 0; i < DATABASES; i++) {
+            databases[i] = new Database();
+        }
+        register(ServerCommands.values());
+        register(KeyCommands.values());
+        register(StringCommands.values());
+        register(HashCommands.values());
+        register(ListCommands.values());
+        register(SetCommands.values());
+        register(SortedSetCommands.values());
+        register(PubSubCommands.values());
+        register(TransactionCommands.values());
+    }
+
+    private void register(Command[] declared) {
+        for (Command command : declared) {
+            commands.put(command.name(), command);
+        }
+    }
+
+    void connected(Session session) {
+        sessions.add(session);
+        connectionsReceived++;
+    }
+
+    void disconnected(Session session) {
+        sessions.remove(session);
+        for (Bytes channel : session.channels) {
+            unsubscribe(channelSubscribers, channel, session);
+        }
+        for (Bytes pattern : session.patterns) {
+            unsubscribe(patternSubscribers, pattern, session);
+        }
+        session.channels.clear();
+        session.patterns.clear();
+    }
+
+    Set<Session> sessions() {
+        return sessions;
+    }
+
+    void execute(Session session, byte[][] args) {
+        final String name = commandName(args[0]);
+        final Command command = commands.get(name);
+        if (session.transaction != null && !TRANSACTION_CONTROL.contains(name)) {
+            if (command == null || !arityMatches(command, args)) {
+                session.transactionFailed = true;
+                session.reply.error(command == null ? unknownCommand(args[0]) : wrongArity(args[0]));
+            } else {
+                session.transaction.add(args);
+                session.reply.status("QUEUED");
+            }
+            return;
+        }
+        if (session.isSubscribed() && !ALLOWED_WHILE_SUBSCRIBED.contains(name)) {
+            session.reply.error("ERR only (P)SUBSCRIBE / (P)UNSUBSCRIBE / PING / QUIT allowed in this context");
+            return;
+        }
+        if (command == null) {
+            session.reply.error(unknownCommand(args[0]));
+            return;
+        }
+        if (!arityMatches(command, args)) {
+            session.reply.error(wrongArity(args[0]));
+            return;
+        }
+        commandsProcessed++;
+        try {
+            command.execute(this, session, args);
+        } catch (CommandException e) {
+            session.reply.error(e.getMessage());
+        } catch (RuntimeException e) {
+            // a bug in one command must not take the whole server down
+            session.reply.error(("ERR " + e).replace('\r', ' ').replace('\n', ' '));
+        }
+    }
+
+    private static boolean arityMatches(Command command, byte[][] args) {
+        final int arity = command.arity();
+        return arity >= 0 ? args.length == arity : args.length >= -arity;
+    }
+
+    private static String unknownCommand(byte[] name) {
+        return "ERR unknown command '" + Arguments.text(name) + "'";
+    }
+
+    private static String wrongArity(byte[] name) {
+        return "ERR wrong number of arguments for '" + Arguments.text(name).toLowerCase() + "' command";
+    }
+
+    private static String commandName(byte[] name) {
+        final char[] upper = new char[name.length];
+        for (int i = 0; i < name.length; i++) {
+            upper[i] = Character.toUpperCase((char) (name[i] & 0xff));
+        }
+        return new String(upper);
+    }
+
+    Database db(Session session) {
+        return databases[session.db];
+    }
+
+    Database db(int index) {
+        return databases[index];
+    }
+
+    long now() {
+        return System.currentTimeMillis();
+    }
+
+    long uptimeMillis() {
+        return now() - startedMillis;
+    }
+
+    int port() {
+        return port;
+    }
+
+    /**
+     * Looks a key up for a read command, counting keyspace hits and misses like {@code INFO stats} does.
+     */
+    <T> T read(Session session, Bytes key, Class<T> type) {
+        final T value = db(session).get(key, type, now());
+        if (value == null) {
+            keyspaceMisses++;
+        } else {
+            keyspaceHits++;
+        }
+        return value;
+    }
+
+    void expire() {
+        final long now = now();
+        for (Database database : databases) {
+            database.expire(now);
+        }
+    }
+
+    void subscribe(Session session, Bytes channel) {
+        if (session.channels.add(channel)) {
+            subscribers(channelSubscribers, channel).add(session);
+        }
+    }
+
+    void unsubscribe(Session session, Bytes channel) {
+        if (session.channels.remove(channel)) {
+            unsubscribe(channelSubscribers, channel, session);
+        }
+    }
+
+    void psubscribe(Session session, Bytes pattern) {
+        if (session.patterns.add(pattern)) {
+            subscribers(patternSubscribers, pattern).add(session);
+        }
+    }
+
+    void punsubscribe(Session session, Bytes pattern) {
+        if (session.patterns.remove(pattern)) {
+            unsubscribe(patternSubscribers, pattern, session);
+        }
+    }
+
+    /**
+     * @return number of clients the message was delivered to
+     */
+    int publish(Bytes channel, byte[] message) {
+        int receivers = 0;
+        final Set<Session> direct = channelSubscribers.get(channel);
+        if (direct != null) {
+            for (Session subscriber : direct) {
+                subscriber.reply.array(3);
+                subscriber.reply.bulk(MESSAGE);
+                subscriber.reply.bulk(channel);
+                subscriber.reply.bulk(message);
+                receivers++;
+            }
+        }
+        for (Map.Entry<Bytes, Set<Session>> entry : patternSubscribers.entrySet()) {
+            if (!Glob.matches(entry.getKey().bytes, channel.bytes)) {
+                continue;
+            }
+            for (Session subscriber : entry.getValue()) {
+                subscriber.reply.array(4);
+                subscriber.reply.bulk(PMESSAGE);
+                subscriber.reply.bulk(entry.getKey());
+                subscriber.reply.bulk(channel);
+                subscriber.reply.bulk(message);
+                receivers++;
+            }
+        }
+        return receivers;
+    }
+
+    int channelCount() {
+        return channelSubscribers.size();
+    }
+
+    int patternCount() {
+        return patternSubscribers.size();
+    }
+
+    private static Set<Session> subscribers(Map<Bytes, Set<Session>> registry, Bytes name) {
+        Set<Session> subscribers = registry.get(name);
+        if (subscribers == null) {
+            subscribers = new LinkedHashSet<Session>();
+            registry.put(name, subscribers);
+        }
+        return subscribers;
+    }
+
+    private static void unsubscribe(Map<Bytes, Set<Session>> registry, Bytes name, Session session) {
+        final Set<Session> subscribers = registry.get(name);
+        if (subscribers != null) {
+            subscribers.remove(session);
+            if (subscribers.isEmpty()) {
+                registry.remove(name);
+            }
+        }
+    }
+}
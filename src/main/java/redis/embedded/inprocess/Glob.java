@@ -0,0 +1,89 @@
+package redis.embedded.inprocess;
+
+/**
+ * Glob-style matching as used by {@code KEYS} and {@code PSUBSCRIBE}: {@code *}, {@code ?}, character classes
+ * such as {@code [a-z]} or {@code [^0-9]}, and backslash escapes.
+ */
+final class Glob {
+    private Glob() {
+    }
+
+    static boolean matches(byte[] pattern, byte[] text) {
+        return matches(pattern, 0, text, 0);
+    }
+
+    @SuppressWarnings("fallthrough")
+    private static boolean matches(byte[] pattern, int p, byte[] text, int t) {
+        while (p < pattern.length) {
+            switch (pattern[p]) {
+                case '*':
+                    while (p + 1 < pattern.length && pattern[p + 1] == '*') {
+                        p++;
+                    }
+                    if (p + 1 == pattern.length) {
+                        return true;
+                    }
+                    for (int i = t; i <= text.length; i++) {
+                        if (matches(pattern, p + 1, text, i)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                case '?':
+                    if (t >= text.length) {
+                        return false;
+                    }
+                    t++;
+                    break;
+                case '[':
+                    if (t >= text.length) {
+                        return false;
+                    }
+                    final int classEnd = matchClass(pattern, p + 1, text[t]);
+                    if (classEnd < 0) {
+                        return false;
+                    }
+                    p = classEnd;
+                    t++;
+                    break;
+                case '\\':
+                    if (p + 1 < pattern.length) {
+                        p++;
+                    }
+                    // fall through to a literal match of the escaped byte
+                default:
+                    if (t >= text.length || pattern[p] != text[t]) {
+                        return false;
+                    }
+                    t++;
+                    break;
+            }
+            p++;
+        }
+        return t == text.length;
+    }
+
+    // index of the closing bracket when the byte is in the class, -1 otherwise
+    private static int matchClass(byte[] pattern, int p, byte c) {
+        final boolean negated = p < pattern.length && pattern[p] == '^';
+        if (negated) {
+            p++;
+        }
+        boolean matched = false;
+        while (p < pattern.length && pattern[p] != ']') {
+            if (pattern[p] == '\\' && p + 1 < pattern.length) {
+                p++;
+                matched |= pattern[p] == c;
+            } else if (p + 2 < pattern.length && pattern[p + 1] == '-' && pattern[p + 2] != ']') {
+                final int low = Math.min(pattern[p] & 0xff, pattern[p + 2] & 0xff);
+                final int high = Math.max(pattern[p] & 0xff, pattern[p + 2] & 0xff);
+                matched |= (c & 0xff) >= low && (c & 0xff) <= high;
+                p += 2;
+            } else {
+                matched |= pattern[p] == c;
+            }
+            p++;
+        }
+        return matched != negated ? Math.min(p, pattern.length - 1) : -1;
+    }
+}
@@ -0,0 +1,173 @@
+package redis.embedded.inprocess;
+
+import redis.embedded.inprocess.Values.HashValue;
+
+import java.util.Map;
+
+/**
+ * Commands on hash values. A hash whose last field is deleted is removed, as in redis.
+ */
+enum HashCommands implements Command {
+    HSET(4) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final HashValue hash = engine.db(session).getOrCreate(Arguments.key(args, 1), HashValue.class, engine.now());
+            session.reply.integer(hash.put(Arguments.key(args, 2), args[3]) == null ? 1 : 0);
+        }
+    },
+    HSETNX(4) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final HashValue hash = engine.db(session).getOrCreate(Arguments.key(args, 1), HashValue.class, engine.now());
+            final Bytes field = Arguments.key(args, 2);
+            if (hash.containsKey(field)) {
+                session.reply.integer(0);
+            } else {
+                hash.put(field, args[3]);
+                session.reply.integer(1);
+            }
+        }
+    },
+    HMSET(-4) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            if (args.length % 2 != 0) {
+                throw new CommandException("ERR wrong number of arguments for 'hmset' command");
+            }
+            final HashValue hash = engine.db(session).getOrCreate(Arguments.key(args, 1), HashValue.class, engine.now());
+            for (int i = 2; i < args.length; i += 2) {
+                hash.put(Arguments.key(args, i), args[i + 1]);
+            }
+            session.reply.ok();
+        }
+    },
+    HGET(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final HashValue hash = engine.read(session, Arguments.key(args, 1), HashValue.class);
+            session.reply.bulk(hash == null ? null : hash.get(Arguments.key(args, 2)));
+        }
+    },
+    HMGET(-3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final HashValue hash = engine.read(session, Arguments.key(args, 1), HashValue.class);
+            session.reply.array(args.length - 2);
+            for (int i = 2; i < args.length; i++) {
+                session.reply.bulk(hash == null ? null : hash.get(Arguments.key(args, i)));
+            }
+        }
+    },
+    HDEL(-3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final Bytes key = Arguments.key(args, 1);
+            final HashValue hash = engine.db(session).get(key, HashValue.class, engine.now());
+            int removed = 0;
+            if (hash != null) {
+                for (int i = 2; i < args.length; i++) {
+                    if (hash.remove(Arguments.key(args, i)) != null) {
+                        removed++;
+                    }
+                }
+                if (hash.isEmpty()) {
+                    engine.db(session).remove(key);
+                }
+            }
+            session.reply.integer(removed);
+        }
+    },
+    HEXISTS(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final HashValue hash = engine.read(session, Arguments.key(args, 1), HashValue.class);
+            session.reply.integer(hash != null && hash.containsKey(Arguments.key(args, 2)) ? 1 : 0);
+        }
+    },
+    HLEN(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final HashValue hash = engine.read(session, Arguments.key(args, 1), HashValue.class);
+            session.reply.integer(hash == null ? 0 : hash.size());
+        }
+    },
+    HKEYS(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final HashValue hash = engine.read(session, Arguments.key(args, 1), HashValue.class);
+            session.reply.array(hash == null ? 0 : hash.size());
+            if (hash != null) {
+                for (Bytes field : hash.keySet()) {
+                    session.reply.bulk(field);
+                }
+            }
+        }
+    },
+    HVALS(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final HashValue hash = engine.read(session, Arguments.key(args, 1), HashValue.class);
+            session.reply.array(hash == null ? 0 : hash.size());
+            if (hash != null) {
+                for (byte[] value : hash.values()) {
+                    session.reply.bulk(value);
+                }
+            }
+        }
+    },
+    HGETALL(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final HashValue hash = engine.read(session, Arguments.key(args, 1), HashValue.class);
+            session.reply.array(hash == null ? 0 : hash.size() * 2);
+            if (hash != null) {
+                for (Map.Entry<Bytes, byte[]> entry : hash.entrySet()) {
+                    session.reply.bulk(entry.getKey());
+                    session.reply.bulk(entry.getValue());
+                }
+            }
+        }
+    },
+    HINCRBY(4) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final long increment = Arguments.integer(args[3]);
+            final HashValue hash = engine.db(session).getOrCreate(Arguments.key(args, 1), HashValue.class, engine.now());
+            final Bytes field = Arguments.key(args, 2);
+            final byte[] current = hash.get(field);
+            final long value = current == null ? 0 : Arguments.integer(current);
+            if (increment > 0 ? value > Long.MAX_VALUE - increment : value < Long.MIN_VALUE - increment) {
+                throw new CommandException("ERR increment or decrement would overflow");
+            }
+            hash.put(field, Arguments.bytes(value + increment));
+            session.reply.integer(value + increment);
+        }
+    },
+    HINCRBYFLOAT(4) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final double increment = Arguments.decimal(args[3]);
+            final HashValue hash = engine.db(session).getOrCreate(Arguments.key(args, 1), HashValue.class, engine.now());
+            final Bytes field = Arguments.key(args, 2);
+            final byte[] current = hash.get(field);
+            final double value = (current == null ? 0 : Arguments.decimal(current)) + increment;
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                throw new CommandException("ERR increment would produce NaN or Infinity");
+            }
+            final byte[] updated = Arguments.bytes(value);
+            hash.put(field, updated);
+            session.reply.bulk(updated);
+        }
+    };
+
+    private final int arity;
+
+    HashCommands(int arity) {
+        this.arity = arity;
+    }
+
+    @Override
+    public int arity() {
+        return arity;
+    }
+}
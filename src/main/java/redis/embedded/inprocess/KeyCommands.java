@@ -0,0 +1,177 @@
+package redis.embedded.inprocess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Commands working on keys regardless of the type of their value.
+ */
+enum KeyCommands implements Command {
+    DEL(-2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final Database db = engine.db(session);
+            final long now = engine.now();
+            int removed = 0;
+            for (int i = 1; i < args.length; i++) {
+                final Bytes key = Arguments.key(args, i);
+                if (db.exists(key, now) && db.remove(key)) {
+                    removed++;
+                }
+            }
+            session.reply.integer(removed);
+        }
+    },
+    EXISTS(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            session.reply.integer(engine.db(session).exists(Arguments.key(args, 1), engine.now()) ? 1 : 0);
+        }
+    },
+    TYPE(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            session.reply.status(Values.typeName(engine.db(session).get(Arguments.key(args, 1), engine.now())));
+        }
+    },
+    KEYS(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final List<Bytes> matching = new ArrayList<Bytes>();
+            for (Bytes key : engine.db(session).keys(engine.now())) {
+                if (Glob.matches(args[1], key.bytes)) {
+                    matching.add(key);
+                }
+            }
+            session.reply.bulks(matching);
+        }
+    },
+    RANDOMKEY(1) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final List<Bytes> keys = engine.db(session).keys(engine.now());
+            session.reply.bulk(keys.isEmpty() ? null : keys.get(RANDOM.nextInt(keys.size())));
+        }
+    },
+    RENAME(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            rename(engine, session, args, false);
+            session.reply.ok();
+        }
+    },
+    RENAMENX(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            session.reply.integer(rename(engine, session, args, true) ? 1 : 0);
+        }
+    },
+    EXPIRE(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            expireAt(engine, session, args, engine.now() + Arguments.integer(args[2]) * 1000);
+        }
+    },
+    PEXPIRE(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            expireAt(engine, session, args, engine.now() + Arguments.integer(args[2]));
+        }
+    },
+    EXPIREAT(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            expireAt(engine, session, args, Arguments.integer(args[2]) * 1000);
+        }
+    },
+    PEXPIREAT(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            expireAt(engine, session, args, Arguments.integer(args[2]));
+        }
+    },
+    TTL(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final long ttl = ttlMillis(engine, session, args);
+            session.reply.integer(ttl < 0 ? ttl : (ttl + 500) / 1000);
+        }
+    },
+    PTTL(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            session.reply.integer(ttlMillis(engine, session, args));
+        }
+    },
+    PERSIST(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final Bytes key = Arguments.key(args, 1);
+            final Database db = engine.db(session);
+            session.reply.integer(db.exists(key, engine.now()) && db.persist(key) ? 1 : 0);
+        }
+    };
+
+    private static final Random RANDOM = new Random();
+
+    private final int arity;
+
+    KeyCommands(int arity) {
+        this.arity = arity;
+    }
+
+    @Override
+    public int arity() {
+        return arity;
+    }
+
+    private static boolean rename(Engine engine, Session session, byte[][] args, boolean onlyIfAbsent) {
+        final Database db = engine.db(session);
+        final long now = engine.now();
+        final Bytes source = Arguments.key(args, 1);
+        final Bytes target = Arguments.key(args, 2);
+        final Object value = db.get(source, now);
+        if (value == null) {
+            throw new CommandException("ERR no such key");
+        }
+        if (onlyIfAbsent && db.exists(target, now)) {
+            return false;
+        }
+        final Long expiresAt = db.expiresAt(source);
+        db.remove(source);
+        db.set(target, value);
+        if (expiresAt != null) {
+            db.expireAt(target, expiresAt);
+        }
+        return true;
+    }
+
+    private static void expireAt(Engine engine, Session session, byte[][] args, long at) {
+        final Database db = engine.db(session);
+        final long now = engine.now();
+        final Bytes key = Arguments.key(args, 1);
+        if (!db.exists(key, now)) {
+            session.reply.integer(0);
+            return;
+        }
+        if (at <= now) {
+            db.remove(key);
+        } else {
+            db.expireAt(key, at);
+        }
+        session.reply.integer(1);
+    }
+
+    // -2 when the key does not exist, -1 when it has no time to live
+    private static long ttlMillis(Engine engine, Session session, byte[][] args) {
+        final Database db = engine.db(session);
+        final long now = engine.now();
+        final Bytes key = Arguments.key(args, 1);
+        if (!db.exists(key, now)) {
+            return -2;
+        }
+        final Long expiresAt = db.expiresAt(key);
+        return expiresAt == null ? -1 : expiresAt - now;
+    }
+}
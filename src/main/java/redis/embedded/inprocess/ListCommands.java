@@ -0,0 +1,207 @@
+package redis.embedded.inprocess;
+
+import redis.embedded.inprocess.Values.ListValue;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.ListIterator;
+
+/**
+ * Commands on list values. Blocking pops are not supported. A list whose last element is popped is removed,
+ * as in redis.
+ */
+enum ListCommands implements Command {
+    LPUSH(-3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            push(engine, session, args, true, false);
+        }
+    },
+    RPUSH(-3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            push(engine, session, args, false, false);
+        }
+    },
+    LPUSHX(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            push(engine, session, args, true, true);
+        }
+    },
+    RPUSHX(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            push(engine, session, args, false, true);
+        }
+    },
+    LPOP(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            session.reply.bulk(pop(engine, session, Arguments.key(args, 1), true));
+        }
+    },
+    RPOP(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            session.reply.bulk(pop(engine, session, Arguments.key(args, 1), false));
+        }
+    },
+    RPOPLPUSH(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final Database db = engine.db(session);
+            final Bytes destination = Arguments.key(args, 2);
+            // fail on a wrong destination type before popping anything
+            db.get(destination, ListValue.class, engine.now());
+            final byte[] element = pop(engine, session, Arguments.key(args, 1), false);
+            if (element != null) {
+                db.getOrCreate(destination, ListValue.class, engine.now()).addFirst(element);
+            }
+            session.reply.bulk(element);
+        }
+    },
+    LLEN(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final ListValue list = engine.db(session).get(Arguments.key(args, 1), ListValue.class, engine.now());
+            session.reply.integer(list == null ? 0 : list.size());
+        }
+    },
+    LRANGE(4) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final ListValue list = engine.read(session, Arguments.key(args, 1), ListValue.class);
+            if (list == null) {
+                session.reply.array(0);
+                return;
+            }
+            final int[] range = Arguments.range(Arguments.index(args[2]), Arguments.index(args[3]), list.size());
+            session.reply.array(Math.max(0, range[1] - range[0] + 1));
+            if (range[0] <= range[1]) {
+                final Iterator<byte[]> it = list.listIterator(range[0]);
+                for (int i = range[0]; i <= range[1]; i++) {
+                    session.reply.bulk(it.next());
+                }
+            }
+        }
+    },
+    LINDEX(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final ListValue list = engine.read(session, Arguments.key(args, 1), ListValue.class);
+            final int index = list == null ? -1 : position(Arguments.index(args[2]), list.size());
+            session.reply.bulk(index < 0 ? null : list.get(index));
+        }
+    },
+    LSET(4) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final ListValue list = engine.db(session).get(Arguments.key(args, 1), ListValue.class, engine.now());
+            if (list == null) {
+                throw new CommandException("ERR no such key");
+            }
+            final int index = position(Arguments.index(args[2]), list.size());
+            if (index < 0) {
+                throw new CommandException("ERR index out of range");
+            }
+            list.set(index, args[3]);
+            session.reply.ok();
+        }
+    },
+    LREM(4) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final long count = Arguments.integer(args[2]);
+            final Bytes key = Arguments.key(args, 1);
+            final ListValue list = engine.db(session).get(key, ListValue.class, engine.now());
+            int removed = 0;
+            if (list != null) {
+                final Iterator<byte[]> it = count < 0 ? list.descendingIterator() : list.iterator();
+                while (it.hasNext() && (count == 0 || removed < Math.abs(count))) {
+                    if (Arrays.equals(it.next(), args[3])) {
+                        it.remove();
+                        removed++;
+                    }
+                }
+                if (list.isEmpty()) {
+                    engine.db(session).remove(key);
+                }
+            }
+            session.reply.integer(removed);
+        }
+    },
+    LTRIM(4) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final int start = Arguments.index(args[2]);
+            final int stop = Arguments.index(args[3]);
+            final Bytes key = Arguments.key(args, 1);
+            final ListValue list = engine.db(session).get(key, ListValue.class, engine.now());
+            if (list != null) {
+                final int[] range = Arguments.range(start, stop, list.size());
+                final ListIterator<byte[]> it = list.listIterator();
+                for (int i = 0; it.hasNext(); i++) {
+                    it.next();
+                    if (i < range[0] || i > range[1]) {
+                        it.remove();
+                    }
+                }
+                if (list.isEmpty()) {
+                    engine.db(session).remove(key);
+                }
+            }
+            session.reply.ok();
+        }
+    };
+
+    private final int arity;
+
+    ListCommands(int arity) {
+        this.arity = arity;
+    }
+
+    @Override
+    public int arity() {
+        return arity;
+    }
+
+    private static void push(Engine engine, Session session, byte[][] args, boolean head, boolean onlyIfExists) {
+        final Database db = engine.db(session);
+        final Bytes key = Arguments.key(args, 1);
+        final ListValue list = onlyIfExists
+                ? db.get(key, ListValue.class, engine.now())
+                : db.getOrCreate(key, ListValue.class, engine.now());
+        if (list == null) {
+            session.reply.integer(0);
+            return;
+        }
+        for (int i = 2; i < args.length; i++) {
+            if (head) {
+                list.addFirst(args[i]);
+            } else {
+                list.addLast(args[i]);
+            }
+        }
+        session.reply.integer(list.size());
+    }
+
+    private static byte[] pop(Engine engine, Session session, Bytes key, boolean head) {
+        final Database db = engine.db(session);
+        final ListValue list = db.get(key, ListValue.class, engine.now());
+        if (list == null) {
+            return null;
+        }
+        final byte[] element = head ? list.removeFirst() : list.removeLast();
+        if (list.isEmpty()) {
+            db.remove(key);
+        }
+        return element;
+    }
+
+    // absolute index for a possibly negative one, -1 when out of range
+    private static int position(int index, int size) {
+        final int position = index < 0 ? size + index : index;
+        return position >= 0 && position < size ? position : -1;
+    }
+}
@@ -0,0 +1,88 @@
+package redis.embedded.inprocess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Publish/subscribe commands. Messages are appended to the subscribers' output and flushed by the server loop.
+ */
+enum PubSubCommands implements Command {
+    SUBSCRIBE(-2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            for (int i = 1; i < args.length; i++) {
+                final Bytes channel = Arguments.key(args, i);
+                engine.subscribe(session, channel);
+                confirm(session, "subscribe", channel);
+            }
+        }
+    },
+    UNSUBSCRIBE(-1) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            for (Bytes channel : targets(session.channels, args)) {
+                engine.unsubscribe(session, channel);
+                confirm(session, "unsubscribe", channel);
+            }
+        }
+    },
+    PSUBSCRIBE(-2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            for (int i = 1; i < args.length; i++) {
+                final Bytes pattern = Arguments.key(args, i);
+                engine.psubscribe(session, pattern);
+                confirm(session, "psubscribe", pattern);
+            }
+        }
+    },
+    PUNSUBSCRIBE(-1) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            for (Bytes pattern : targets(session.patterns, args)) {
+                engine.punsubscribe(session, pattern);
+                confirm(session, "punsubscribe", pattern);
+            }
+        }
+    },
+    PUBLISH(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            session.reply.integer(engine.publish(Arguments.key(args, 1), args[2]));
+        }
+    };
+
+    private final int arity;
+
+    PubSubCommands(int arity) {
+        this.arity = arity;
+    }
+
+    @Override
+    public int arity() {
+        return arity;
+    }
+
+    // the given names, or every current subscription when none are given; null stands for "nothing to leave"
+    private static List<Bytes> targets(Set<Bytes> subscribed, byte[][] args) {
+        final List<Bytes> targets = new ArrayList<Bytes>();
+        if (args.length > 1) {
+            for (int i = 1; i < args.length; i++) {
+                targets.add(Arguments.key(args, i));
+            }
+        } else if (subscribed.isEmpty()) {
+            targets.add(null);
+        } else {
+            targets.addAll(subscribed);
+        }
+        return targets;
+    }
+
+    private static void confirm(Session session, String kind, Bytes name) {
+        session.reply.array(3);
+        session.reply.bulk(kind);
+        session.reply.bulk(name);
+        session.reply.integer(session.subscriptions());
+    }
+}
@@ -0,0 +1,140 @@
+package redis.embedded.inprocess;
+
+import com.google.common.base.Charsets;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Collection;
+
+/**
+ * Growable RESP output of one client, written to its channel as far as the socket accepts.
+ */
+class ReplyBuffer {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] NIL = "$-1\r\n".getBytes(Charsets.US_ASCII);
+    private static final byte[] NIL_ARRAY = "*-1\r\n".getBytes(Charsets.US_ASCII);
+    private static final byte[] OK = "+OK\r\n".getBytes(Charsets.US_ASCII);
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int start;
+    private int end;
+
+    void ok() {
+        append(OK);
+    }
+
+    void status(String status) {
+        append('+');
+        appendAscii(status);
+        append(CRLF);
+    }
+
+    void error(String message) {
+        append('-');
+        append(message.getBytes(Charsets.UTF_8));
+        append(CRLF);
+    }
+
+    void integer(long value) {
+        append(':');
+        appendAscii(Long.toString(value));
+        append(CRLF);
+    }
+
+    void bulk(byte[] value) {
+        if (value == null) {
+            append(NIL);
+            return;
+        }
+        append('$');
+        appendAscii(Integer.toString(value.length));
+        append(CRLF);
+        append(value);
+        append(CRLF);
+    }
+
+    void bulk(String value) {
+        bulk(value == null ? null : value.getBytes(Charsets.UTF_8));
+    }
+
+    void bulk(Bytes value) {
+        bulk(value == null ? null : value.bytes);
+    }
+
+    void nil() {
+        append(NIL);
+    }
+
+    void array(int length) {
+        append('*');
+        appendAscii(Integer.toString(length));
+        append(CRLF);
+    }
+
+    void nilArray() {
+        append(NIL_ARRAY);
+    }
+
+    void bulks(Collection<Bytes> values) {
+        array(values.size());
+        for (Bytes value : values) {
+            bulk(value.bytes);
+        }
+    }
+
+    boolean isEmpty() {
+        return start == end;
+    }
+
+    /**
+     * @return whether everything was written
+     */
+    boolean writeTo(SocketChannel channel) throws IOException {
+        if (start < end) {
+            start += channel.write(ByteBuffer.wrap(buffer, start, end - start));
+        }
+        if (start == end) {
+            start = 0;
+            end = 0;
+            return true;
+        }
+        return false;
+    }
+
+    private void appendAscii(String value) {
+        ensureCapacity(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer[end++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void append(int b) {
+        ensureCapacity(1);
+        buffer[end++] = (byte) b;
+    }
+
+    private void append(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, end, bytes.length);
+        end += bytes.length;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (end + additional <= buffer.length) {
+            return;
+        }
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            start = 0;
+            if (end + additional <= buffer.length) {
+                return;
+            }
+        }
+        final byte[] grown = new byte[Math.max(buffer.length * 2, end + additional)];
+        System.arraycopy(buffer, 0, grown, 0, end);
+        buffer = grown;
+    }
+}
@@ -0,0 +1,141 @@
+package redis.embedded.inprocess;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental parser of client requests, both RESP arrays of bulk strings and inline commands. Bytes are
+ * appended as they arrive and complete commands are taken off the front; an incomplete command stays
+ * buffered until the rest arrives.
+ */
+class RequestParser {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_INLINE_LENGTH = 64 * 1024;
+    private static final byte[][] INCOMPLETE = new byte[0][];
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int start;
+    private int end;
+    private int position;
+
+    void append(ByteBuffer data) {
+        final int length = data.remaining();
+        if (end + length > buffer.length) {
+            final int used = end - start;
+            final byte[] target = used + length > buffer.length
+                    ? new byte[Math.max(buffer.length * 2, used + length)] : buffer;
+            System.arraycopy(buffer, start, target, 0, used);
+            buffer = target;
+            start = 0;
+            end = used;
+        }
+        data.get(buffer, end, length);
+        end += length;
+    }
+
+    /**
+     * Takes all complete commands off the buffer; empty inline lines are skipped.
+     *
+     * @throws CommandException on a protocol error, after which the connection has to be closed
+     */
+    List<byte[][]> commands() {
+        final List<byte[][]> commands = new ArrayList<byte[][]>();
+        while (start < end) {
+            position = start;
+            final byte[][] command = buffer[start] == '*' ? parseArray() : parseInline();
+            if (command == INCOMPLETE) {
+                break;
+            }
+            start = position;
+            if (command.length > 0) {
+                commands.add(command);
+            }
+        }
+        if (start == end) {
+            start = 0;
+            end = 0;
+        }
+        return commands;
+    }
+
+    private byte[][] parseArray() {
+        position++;
+        final long count = parseNumber();
+        if (count < 0) {
+            return INCOMPLETE;
+        }
+        final byte[][] args = new byte[(int) count][];
+        for (int i = 0; i < count; i++) {
+            if (position >= end) {
+                return INCOMPLETE;
+            }
+            if (buffer[position] != '$') {
+                throw new CommandException("ERR Protocol error: expected '$', got '" + (char) buffer[position] + "'");
+            }
+            position++;
+            final long length = parseNumber();
+            if (length < 0) {
+                return INCOMPLETE;
+            }
+            if (position + length + 2 > end) {
+                return INCOMPLETE;
+            }
+            args[i] = new byte[(int) length];
+            System.arraycopy(buffer, position, args[i], 0, (int) length);
+            position += (int) length + 2;
+        }
+        return args;
+    }
+
+    // non-negative number terminated by CRLF, -1 when the line is not complete yet
+    private long parseNumber() {
+        long number = 0;
+        for (int i = position; i < end; i++) {
+            final byte c = buffer[i];
+            if (c == '\r') {
+                if (i + 1 >= end) {
+                    return -1;
+                }
+                position = i + 2;
+                return number;
+            }
+            if (c < '0' || c > '9') {
+                throw new CommandException("ERR Protocol error: invalid length");
+            }
+            number = number * 10 + (c - '0');
+        }
+        return -1;
+    }
+
+    private byte[][] parseInline() {
+        int lineEnd = -1;
+        for (int i = position; i < end; i++) {
+            if (buffer[i] == '\n') {
+                lineEnd = i;
+                break;
+            }
+        }
+        if (lineEnd < 0) {
+            if (end - position > MAX_INLINE_LENGTH) {
+                throw new CommandException("ERR Protocol error: too big inline request");
+            }
+            return INCOMPLETE;
+        }
+        final List<byte[]> args = new ArrayList<byte[]>();
+        int argStart = -1;
+        for (int i = position; i <= lineEnd; i++) {
+            final boolean separator = i == lineEnd || buffer[i] == ' ' || buffer[i] == '\r' || buffer[i] == '\t';
+            if (separator && argStart >= 0) {
+                final byte[] arg = new byte[i - argStart];
+                System.arraycopy(buffer, argStart, arg, 0, arg.length);
+                args.add(arg);
+                argStart = -1;
+            } else if (!separator && argStart < 0) {
+                argStart = i;
+            }
+        }
+        position = lineEnd + 1;
+        return args.toArray(new byte[args.size()][]);
+    }
+}
@@ -0,0 +1,225 @@
+package redis.embedded.inprocess;
+
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Redis-compatible server running inside the JVM: a RESP front end on a single selector thread in front of an
+ * in-memory keyspace. It covers the common string, key, hash, list, set, sorted set, pub/sub and transaction
+ * commands; persistence, replication, scripting, blocking commands and {@code WATCH} are not available.
+ * <p>
+ * The keyspace lives as long as the server runs and starts empty on every {@link #start()}.
+ */
+public class RespServer {
+    private static final String LOCALHOST = "127.0.0.1";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long EXPIRE_INTERVAL_MILLIS = 100L;
+    private static final long STOP_TIMEOUT_MILLIS = 5000L;
+
+    private final int listenPort;
+
+    private volatile Selector selector;
+    private volatile boolean running;
+    private ServerSocketChannel serverChannel;
+    private Thread thread;
+    private Engine engine;
+    private int port;
+
+    /**
+     * @param listenPort port to accept clients on, {@code 0} for an ephemeral one
+     */
+    public RespServer(int listenPort) {
+        this.listenPort = listenPort;
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            throw new EmbeddedRedisException("In-process server is already running on port " + port);
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.socket().setReuseAddress(true);
+            serverChannel.socket().bind(new InetSocketAddress(LOCALHOST, listenPort));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            serverChannel.close();
+            selector.close();
+            throw e;
+        }
+        port = serverChannel.socket().getLocalPort();
+        engine = new Engine(port);
+        running = true;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                serve();
+            }
+        }, "embedded-redis-inprocess-" + port);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Closes all client connections and drops the keyspace.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            // nothing left to release
+        }
+    }
+
+    public boolean isActive() {
+        return running;
+    }
+
+    /**
+     * Port clients connect to; the listen port given on construction, or the ephemeral one picked on start.
+     */
+    public int port() {
+        return port;
+    }
+
+    private void serve() {
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long nextExpiry = System.currentTimeMillis() + EXPIRE_INTERVAL_MILLIS;
+        try {
+            while (running) {
+                selector.select(Math.max(1, nextExpiry - System.currentTimeMillis()));
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        final Session session = (Session) key.attachment();
+                        if (key.isReadable()) {
+                            read(session, buffer);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            flush(session);
+                        }
+                    }
+                }
+                selector.selectedKeys().clear();
+                // commands may have produced output for other sessions, e.g. PUBLISH
+                for (Session session : new ArrayList<Session>(engine.sessions())) {
+                    if (!session.reply.isEmpty() || session.closing) {
+                        flush(session);
+                    }
+                }
+                if (System.currentTimeMillis() >= nextExpiry) {
+                    engine.expire();
+                    nextExpiry = System.currentTimeMillis() + EXPIRE_INTERVAL_MILLIS;
+                }
+            }
+        } catch (IOException e) {
+            running = false;
+        } finally {
+            for (Session session : new ArrayList<Session>(engine.sessions())) {
+                close(session);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        final SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        final Session session = new Session(channel);
+        try {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            session.key = channel.register(selector, SelectionKey.OP_READ, session);
+        } catch (IOException e) {
+            // only this client is affected; the server keeps serving the others
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // already gone
+            }
+            return;
+        }
+        engine.connected(session);
+    }
+
+    private void read(Session session, ByteBuffer buffer) {
+        try {
+            buffer.clear();
+            final int read = session.channel.read(buffer);
+            if (read < 0) {
+                close(session);
+                return;
+            }
+            buffer.flip();
+            session.parser.append(buffer);
+            final List<byte[][]> commands;
+            try {
+                commands = session.parser.commands();
+            } catch (CommandException e) {
+                session.reply.error(e.getMessage());
+                session.closing = true;
+                return;
+            }
+            for (byte[][] command : commands) {
+                if (session.closing) {
+                    break;
+                }
+                engine.execute(session, command);
+            }
+        } catch (IOException e) {
+            close(session);
+        }
+    }
+
+    private void flush(Session session) {
+        if (!session.key.isValid()) {
+            return;
+        }
+        try {
+            final boolean complete = session.reply.writeTo(session.channel);
+            if (complete && session.closing) {
+                close(session);
+            } else {
+                session.key.interestOps(complete ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        } catch (IOException e) {
+            close(session);
+        }
+    }
+
+    private void close(Session session) {
+        engine.disconnected(session);
+        session.key.cancel();
+        try {
+            session.channel.close();
+        } catch (IOException e) {
+            // already gone
+        }
+    }
+}
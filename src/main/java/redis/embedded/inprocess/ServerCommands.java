@@ -0,0 +1,172 @@
+package redis.embedded.inprocess;
+
+/**
+ * Connection and server commands. {@code CONFIG SET} is accepted and ignored so clients that tune the server
+ * on connect keep working; {@code SHUTDOWN} is refused because the engine's lifetime belongs to the test.
+ */
+enum ServerCommands implements Command {
+    PING(-1) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            if (args.length > 1) {
+                session.reply.bulk(args[1]);
+            } else {
+                session.reply.status("PONG");
+            }
+        }
+    },
+    ECHO(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            session.reply.bulk(args[1]);
+        }
+    },
+    SELECT(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final long index = Arguments.integer(args[1]);
+            if (index < 0 || index >= Engine.DATABASES) {
+                throw new CommandException("ERR invalid DB index");
+            }
+            session.db = (int) index;
+            session.reply.ok();
+        }
+    },
+    QUIT(1) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            session.reply.ok();
+            session.closing = true;
+        }
+    },
+    DBSIZE(1) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            session.reply.integer(engine.db(session).keys(engine.now()).size());
+        }
+    },
+    FLUSHDB(1) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            engine.db(session).clear();
+            session.reply.ok();
+        }
+    },
+    FLUSHALL(1) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            for (int i = 0; i < Engine.DATABASES; i++) {
+                engine.db(i).clear();
+            }
+            session.reply.ok();
+        }
+    },
+    INFO(-1) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final StringBuilder info = new StringBuilder();
+            info.append("# Server\r\n")
+                    .append("redis_version:").append(VERSION).append("\r\n")
+                    .append("redis_mode:standalone\r\n")
+                    .append("embedded_engine:inprocess\r\n")
+                    .append("tcp_port:").append(engine.port()).append("\r\n")
+                    .append("uptime_in_seconds:").append(engine.uptimeMillis() / 1000).append("\r\n")
+                    .append("\r\n# Clients\r\n")
+                    .append("connected_clients:").append(engine.sessions().size()).append("\r\n")
+                    .append("\r\n# Stats\r\n")
+                    .append("total_connections_received:").append(engine.connectionsReceived).append("\r\n")
+                    .append("total_commands_processed:").append(engine.commandsProcessed).append("\r\n")
+                    .append("keyspace_hits:").append(engine.keyspaceHits).append("\r\n")
+                    .append("keyspace_misses:").append(engine.keyspaceMisses).append("\r\n")
+                    .append("pubsub_channels:").append(engine.channelCount()).append("\r\n")
+                    .append("pubsub_patterns:").append(engine.patternCount()).append("\r\n")
+                    .append("\r\n# Replication\r\n")
+                    .append("role:master\r\n")
+                    .append("connected_slaves:0\r\n")
+                    .append("\r\n# Keyspace\r\n");
+            final long now = engine.now();
+            for (int i = 0; i < Engine.DATABASES; i++) {
+                final Database database = engine.db(i);
+                final int keys = database.keys(now).size();
+                if (keys > 0) {
+                    info.append("db").append(i).append(":keys=").append(keys)
+                            .append(",expires=").append(database.expiringKeys()).append(",avg_ttl=0\r\n");
+                }
+            }
+            session.reply.bulk(info.toString());
+        }
+    },
+    TIME(1) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final long micros = System.currentTimeMillis() * 1000 + (System.nanoTime() / 1000) % 1000;
+            session.reply.array(2);
+            session.reply.bulk(Arguments.bytes(micros / 1000000));
+            session.reply.bulk(Arguments.bytes(micros % 1000000));
+        }
+    },
+    CONFIG(-2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            if (Arguments.is(args[1], "GET") && args.length == 3) {
+                session.reply.array(0);
+            } else if (Arguments.is(args[1], "SET") && args.length == 4) {
+                session.reply.ok();
+            } else if (Arguments.is(args[1], "RESETSTAT") && args.length == 2) {
+                engine.commandsProcessed = 0;
+                engine.connectionsReceived = 0;
+                engine.keyspaceHits = 0;
+                engine.keyspaceMisses = 0;
+                session.reply.ok();
+            } else {
+                throw new CommandException("ERR CONFIG subcommand must be one of GET, SET, RESETSTAT");
+            }
+        }
+    },
+    CLIENT(-2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            if (Arguments.is(args[1], "SETNAME") && args.length == 3) {
+                session.name = Arguments.text(args[2]);
+                session.reply.ok();
+            } else if (Arguments.is(args[1], "GETNAME") && args.length == 2) {
+                session.reply.bulk(session.name);
+            } else if (Arguments.is(args[1], "LIST") && args.length == 2) {
+                final StringBuilder clients = new StringBuilder();
+                for (Session client : engine.sessions()) {
+                    clients.append("addr=").append(client.channel.socket().getRemoteSocketAddress())
+                            .append(" name=").append(client.name == null ? "" : client.name)
+                            .append(" db=").append(client.db)
+                            .append(" sub=").append(client.channels.size())
+                            .append(" psub=").append(client.patterns.size())
+                            .append('\n');
+                }
+                session.reply.bulk(clients.toString());
+            } else {
+                throw new CommandException("ERR Syntax error, try CLIENT (LIST | SETNAME | GETNAME)");
+            }
+        }
+    },
+    SHUTDOWN(-1) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            throw new CommandException("ERR SHUTDOWN is not supported by the in-process engine, stop the server");
+        }
+    };
+
+    /**
+     * Version reported by {@code INFO}; the command set follows redis 2.8.
+     */
+    static final String VERSION = "2.8.19";
+
+    private final int arity;
+
+    ServerCommands(int arity) {
+        this.arity = arity;
+    }
+
+    @Override
+    public int arity() {
+        return arity;
+    }
+}
@@ -0,0 +1,47 @@
+package redis.embedded.inprocess;
+
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * State of one client connection.
+ */
+class Session {
+    final SocketChannel channel;
+    final RequestParser parser = new RequestParser();
+    final ReplyBuffer reply = new ReplyBuffer();
+    final Set<Bytes> channels = new LinkedHashSet<Bytes>();
+    final Set<Bytes> patterns = new LinkedHashSet<Bytes>();
+    SelectionKey key;
+    int db;
+    String name;
+    List<byte[][]> transaction;
+    boolean transactionFailed;
+    boolean closing;
+
+    Session(SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    boolean isSubscribed() {
+        return !channels.isEmpty() || !patterns.isEmpty();
+    }
+
+    int subscriptions() {
+        return channels.size() + patterns.size();
+    }
+
+    void beginTransaction() {
+        transaction = new ArrayList<byte[][]>();
+        transactionFailed = false;
+    }
+
+    void endTransaction() {
+        transaction = null;
+        transactionFailed = false;
+    }
+}
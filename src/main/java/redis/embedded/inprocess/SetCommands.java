@@ -0,0 +1,197 @@
+package redis.embedded.inprocess;
+
+import redis.embedded.inprocess.Values.SetValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Commands on set values. A set whose last member is removed is deleted, as in redis.
+ */
+enum SetCommands implements Command {
+    SADD(-3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final SetValue set = engine.db(session).getOrCreate(Arguments.key(args, 1), SetValue.class, engine.now());
+            int added = 0;
+            for (int i = 2; i < args.length; i++) {
+                if (set.add(Arguments.key(args, i))) {
+                    added++;
+                }
+            }
+            session.reply.integer(added);
+        }
+    },
+    SREM(-3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final Bytes key = Arguments.key(args, 1);
+            final SetValue set = engine.db(session).get(key, SetValue.class, engine.now());
+            int removed = 0;
+            if (set != null) {
+                for (int i = 2; i < args.length; i++) {
+                    if (set.remove(Arguments.key(args, i))) {
+                        removed++;
+                    }
+                }
+                if (set.isEmpty()) {
+                    engine.db(session).remove(key);
+                }
+            }
+            session.reply.integer(removed);
+        }
+    },
+    SMEMBERS(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final SetValue set = engine.read(session, Arguments.key(args, 1), SetValue.class);
+            session.reply.bulks(set == null ? Collections.<Bytes>emptySet() : set);
+        }
+    },
+    SISMEMBER(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final SetValue set = engine.read(session, Arguments.key(args, 1), SetValue.class);
+            session.reply.integer(set != null && set.contains(Arguments.key(args, 2)) ? 1 : 0);
+        }
+    },
+    SCARD(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final SetValue set = engine.db(session).get(Arguments.key(args, 1), SetValue.class, engine.now());
+            session.reply.integer(set == null ? 0 : set.size());
+        }
+    },
+    SPOP(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final Bytes key = Arguments.key(args, 1);
+            final SetValue set = engine.db(session).get(key, SetValue.class, engine.now());
+            if (set == null) {
+                session.reply.nil();
+                return;
+            }
+            final Iterator<Bytes> it = set.iterator();
+            final Bytes member = it.next();
+            it.remove();
+            if (set.isEmpty()) {
+                engine.db(session).remove(key);
+            }
+            session.reply.bulk(member);
+        }
+    },
+    SRANDMEMBER(-2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            if (args.length > 3) {
+                throw CommandException.syntax();
+            }
+            final SetValue set = engine.read(session, Arguments.key(args, 1), SetValue.class);
+            final List<Bytes> members = new ArrayList<Bytes>(set == null ? Collections.<Bytes>emptySet() : set);
+            Collections.shuffle(members);
+            if (args.length == 2) {
+                session.reply.bulk(members.isEmpty() ? null : members.get(0));
+                return;
+            }
+            final long count = Arguments.integer(args[2]);
+            if (count >= 0) {
+                session.reply.bulks(members.subList(0, (int) Math.min(count, members.size())));
+            } else {
+                // a negative count allows repetitions and always returns that many members
+                session.reply.array(members.isEmpty() ? 0 : (int) -count);
+                for (int i = 0; !members.isEmpty() && i < -count; i++) {
+                    session.reply.bulk(members.get(RANDOM.nextInt(members.size())));
+                }
+            }
+        }
+    },
+    SINTER(-2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final List<SetValue> sets = sets(engine, session, args, 1);
+            final Set<Bytes> result = new LinkedHashSet<Bytes>(sets.get(0) == null
+                    ? Collections.<Bytes>emptySet() : sets.get(0));
+            for (SetValue set : sets.subList(1, sets.size())) {
+                if (set == null) {
+                    result.clear();
+                } else {
+                    result.retainAll(set);
+                }
+            }
+            session.reply.bulks(result);
+        }
+    },
+    SUNION(-2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final Set<Bytes> result = new LinkedHashSet<Bytes>();
+            for (SetValue set : sets(engine, session, args, 1)) {
+                if (set != null) {
+                    result.addAll(set);
+                }
+            }
+            session.reply.bulks(result);
+        }
+    },
+    SDIFF(-2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final List<SetValue> sets = sets(engine, session, args, 1);
+            final Set<Bytes> result = new LinkedHashSet<Bytes>(sets.get(0) == null
+                    ? Collections.<Bytes>emptySet() : sets.get(0));
+            for (SetValue set : sets.subList(1, sets.size())) {
+                if (set != null) {
+                    result.removeAll(set);
+                }
+            }
+            session.reply.bulks(result);
+        }
+    },
+    SMOVE(4) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final Database db = engine.db(session);
+            final Bytes source = Arguments.key(args, 1);
+            final Bytes destination = Arguments.key(args, 2);
+            final Bytes member = Arguments.key(args, 3);
+            final SetValue from = db.get(source, SetValue.class, engine.now());
+            db.get(destination, SetValue.class, engine.now());
+            if (from == null || !from.remove(member)) {
+                session.reply.integer(0);
+                return;
+            }
+            if (from.isEmpty()) {
+                db.remove(source);
+            }
+            db.getOrCreate(destination, SetValue.class, engine.now()).add(member);
+            session.reply.integer(1);
+        }
+    };
+
+    private static final Random RANDOM = new Random();
+
+    private final int arity;
+
+    SetCommands(int arity) {
+        this.arity = arity;
+    }
+
+    @Override
+    public int arity() {
+        return arity;
+    }
+
+    // sets of the keys from the given argument on, null for missing keys
+    private static List<SetValue> sets(Engine engine, Session session, byte[][] args, int from) {
+        final List<SetValue> sets = new ArrayList<SetValue>(args.length - from);
+        for (int i = from; i < args.length; i++) {
+            sets.add(engine.db(session).get(Arguments.key(args, i), SetValue.class, engine.now()));
+        }
+        return sets;
+    }
+}
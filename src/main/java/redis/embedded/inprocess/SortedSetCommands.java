@@ -0,0 +1,226 @@
+package redis.embedded.inprocess;
+
+import redis.embedded.inprocess.SortedSetValue.Entry;
+import redis.embedded.inprocess.SortedSetValue.ScoreBound;
+
+import java.util.List;
+
+/**
+ * Commands on sorted set values. A sorted set whose last member is removed is deleted, as in redis.
+ */
+enum SortedSetCommands implements Command {
+    ZADD(-4) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            if (args.length % 2 != 0) {
+                throw CommandException.syntax();
+            }
+            final double[] scores = new double[(args.length - 2) / 2];
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = Arguments.decimal(args[2 + i * 2]);
+            }
+            final SortedSetValue zset = engine.db(session).getOrCreate(
+                    Arguments.key(args, 1), SortedSetValue.class, engine.now());
+            int added = 0;
+            for (int i = 0; i < scores.length; i++) {
+                if (zset.add(Arguments.key(args, 3 + i * 2), scores[i])) {
+                    added++;
+                }
+            }
+            session.reply.integer(added);
+        }
+    },
+    ZINCRBY(4) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final double increment = Arguments.decimal(args[2]);
+            final SortedSetValue zset = engine.db(session).getOrCreate(
+                    Arguments.key(args, 1), SortedSetValue.class, engine.now());
+            final Bytes member = Arguments.key(args, 3);
+            final Double current = zset.score(member);
+            final double score = (current == null ? 0 : current) + increment;
+            if (Double.isNaN(score)) {
+                throw new CommandException("ERR resulting score is not a number (NaN)");
+            }
+            zset.add(member, score);
+            session.reply.bulk(Arguments.bytes(score));
+        }
+    },
+    ZREM(-3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final Bytes key = Arguments.key(args, 1);
+            final SortedSetValue zset = engine.db(session).get(key, SortedSetValue.class, engine.now());
+            int removed = 0;
+            if (zset != null) {
+                for (int i = 2; i < args.length; i++) {
+                    if (zset.remove(Arguments.key(args, i))) {
+                        removed++;
+                    }
+                }
+                if (zset.isEmpty()) {
+                    engine.db(session).remove(key);
+                }
+            }
+            session.reply.integer(removed);
+        }
+    },
+    ZSCORE(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final SortedSetValue zset = engine.read(session, Arguments.key(args, 1), SortedSetValue.class);
+            final Double score = zset == null ? null : zset.score(Arguments.key(args, 2));
+            session.reply.bulk(score == null ? null : Arguments.bytes(score));
+        }
+    },
+    ZCARD(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final SortedSetValue zset = engine.db(session).get(
+                    Arguments.key(args, 1), SortedSetValue.class, engine.now());
+            session.reply.integer(zset == null ? 0 : zset.size());
+        }
+    },
+    ZRANK(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            rank(engine, session, args, false);
+        }
+    },
+    ZREVRANK(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            rank(engine, session, args, true);
+        }
+    },
+    ZRANGE(-4) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            rangeByRank(engine, session, args, false);
+        }
+    },
+    ZREVRANGE(-4) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            rangeByRank(engine, session, args, true);
+        }
+    },
+    ZRANGEBYSCORE(-4) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            rangeByScore(engine, session, args, false);
+        }
+    },
+    ZREVRANGEBYSCORE(-4) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            rangeByScore(engine, session, args, true);
+        }
+    },
+    ZCOUNT(4) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final ScoreBound min = Arguments.scoreBound(args[2]);
+            final ScoreBound max = Arguments.scoreBound(args[3]);
+            final SortedSetValue zset = engine.read(session, Arguments.key(args, 1), SortedSetValue.class);
+            session.reply.integer(zset == null ? 0 : zset.rangeByScore(min, max, false).size());
+        }
+    },
+    ZREMRANGEBYSCORE(4) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final ScoreBound min = Arguments.scoreBound(args[2]);
+            final ScoreBound max = Arguments.scoreBound(args[3]);
+            final Bytes key = Arguments.key(args, 1);
+            final SortedSetValue zset = engine.db(session).get(key, SortedSetValue.class, engine.now());
+            int removed = 0;
+            if (zset != null) {
+                for (Entry entry : zset.rangeByScore(min, max, false)) {
+                    zset.remove(entry.member);
+                    removed++;
+                }
+                if (zset.isEmpty()) {
+                    engine.db(session).remove(key);
+                }
+            }
+            session.reply.integer(removed);
+        }
+    };
+
+    private final int arity;
+
+    SortedSetCommands(int arity) {
+        this.arity = arity;
+    }
+
+    @Override
+    public int arity() {
+        return arity;
+    }
+
+    private static void rank(Engine engine, Session session, byte[][] args, boolean reverse) {
+        final SortedSetValue zset = engine.read(session, Arguments.key(args, 1), SortedSetValue.class);
+        final int rank = zset == null ? -1 : zset.rank(Arguments.key(args, 2));
+        if (rank < 0) {
+            session.reply.nil();
+        } else {
+            session.reply.integer(reverse ? zset.size() - 1 - rank : rank);
+        }
+    }
+
+    private static void rangeByRank(Engine engine, Session session, byte[][] args, boolean reverse) {
+        final boolean withScores = args.length == 5 && Arguments.is(args[4], "WITHSCORES");
+        if (args.length > 5 || args.length == 5 && !withScores) {
+            throw CommandException.syntax();
+        }
+        final int start = Arguments.index(args[2]);
+        final int stop = Arguments.index(args[3]);
+        final SortedSetValue zset = engine.read(session, Arguments.key(args, 1), SortedSetValue.class);
+        if (zset == null) {
+            session.reply.array(0);
+            return;
+        }
+        final int[] range = Arguments.range(start, stop, zset.size());
+        reply(session, zset.rangeByRank(range[0], range[1], reverse), withScores);
+    }
+
+    // ZRANGEBYSCORE key min max and ZREVRANGEBYSCORE key max min, both with [WITHSCORES] [LIMIT offset count]
+    private static void rangeByScore(Engine engine, Session session, byte[][] args, boolean reverse) {
+        final ScoreBound min = Arguments.scoreBound(args[reverse ? 3 : 2]);
+        final ScoreBound max = Arguments.scoreBound(args[reverse ? 2 : 3]);
+        boolean withScores = false;
+        int offset = 0;
+        int count = -1;
+        for (int i = 4; i < args.length; i++) {
+            if (Arguments.is(args[i], "WITHSCORES")) {
+                withScores = true;
+            } else if (Arguments.is(args[i], "LIMIT") && i + 2 < args.length) {
+                offset = Arguments.index(args[i + 1]);
+                count = Arguments.index(args[i + 2]);
+                i += 2;
+            } else {
+                throw CommandException.syntax();
+            }
+        }
+        final SortedSetValue zset = engine.read(session, Arguments.key(args, 1), SortedSetValue.class);
+        if (zset == null || offset < 0) {
+            session.reply.array(0);
+            return;
+        }
+        List<Entry> range = zset.rangeByScore(min, max, reverse);
+        final int from = Math.min(offset, range.size());
+        final int to = count < 0 ? range.size() : (int) Math.min((long) from + count, range.size());
+        range = range.subList(from, to);
+        reply(session, range, withScores);
+    }
+
+    private static void reply(Session session, List<Entry> entries, boolean withScores) {
+        session.reply.array(withScores ? entries.size() * 2 : entries.size());
+        for (Entry entry : entries) {
+            session.reply.bulk(entry.member);
+            if (withScores) {
+                session.reply.bulk(Arguments.bytes(entry.score));
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package redis.embedded.inprocess;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Sorted set kept as a member-to-score map plus a tree ordered by score and then member, like the
+ * dictionary and skip list pair redis uses. Updates and score lookups are O(log n); ranks are O(n).
+ */
+class SortedSetValue {
+    private final Map<Bytes, Double> scores = new HashMap<Bytes, Double>();
+    private final TreeSet<Entry> ordered = new TreeSet<Entry>();
+
+    /**
+     * @return whether the member was new
+     */
+    boolean add(Bytes member, double score) {
+        final Double previous = scores.put(member, score);
+        if (previous != null) {
+            ordered.remove(new Entry(member, previous));
+        }
+        ordered.add(new Entry(member, score));
+        return previous == null;
+    }
+
+    boolean remove(Bytes member) {
+        final Double score = scores.remove(member);
+        if (score == null) {
+            return false;
+        }
+        ordered.remove(new Entry(member, score));
+        return true;
+    }
+
+    Double score(Bytes member) {
+        return scores.get(member);
+    }
+
+    int size() {
+        return scores.size();
+    }
+
+    boolean isEmpty() {
+        return scores.isEmpty();
+    }
+
+    /**
+     * Zero-based rank in ascending order, or -1 when the member is missing.
+     */
+    int rank(Bytes member) {
+        final Double score = scores.get(member);
+        return score == null ? -1 : ordered.headSet(new Entry(member, score), false).size();
+    }
+
+    /**
+     * Entries between two zero-based, inclusive ranks which have already been clamped to the set.
+     */
+    List<Entry> rangeByRank(int start, int stop, boolean reverse) {
+        final List<Entry> range = new ArrayList<Entry>(Math.max(0, stop - start + 1));
+        final Iterator<Entry> it = reverse ? ordered.descendingIterator() : ordered.iterator();
+        for (int i = 0; it.hasNext() && i <= stop; i++) {
+            final Entry entry = it.next();
+            if (i >= start) {
+                range.add(entry);
+            }
+        }
+        return range;
+    }
+
+    List<Entry> rangeByScore(ScoreBound min, ScoreBound max, boolean reverse) {
+        final List<Entry> range = new ArrayList<Entry>();
+        final NavigableSet<Entry> candidates = ordered.tailSet(new Entry(Bytes.EMPTY, min.value), true);
+        for (Entry entry : reverse ? candidates.descendingSet() : candidates) {
+            if (min.excludes(entry.score, true) || max.excludes(entry.score, false)) {
+                if (!reverse && entry.score > max.value) {
+                    break;
+                }
+                continue;
+            }
+            range.add(entry);
+        }
+        return range;
+    }
+
+    static final class Entry implements Comparable<Entry> {
+        final Bytes member;
+        final double score;
+
+        Entry(Bytes member, double score) {
+            this.member = member;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            final int byScore = Double.compare(score, other.score);
+            return byScore != 0 ? byScore : member.compareTo(other.member);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Entry && compareTo((Entry) other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return member.hashCode();
+        }
+    }
+
+    /**
+     * Score range bound as given to {@code ZRANGEBYSCORE}: a number, {@code (number} for exclusive,
+     * or {@code -inf}/{@code +inf}.
+     */
+    static final class ScoreBound {
+        final double value;
+        final boolean exclusive;
+
+        ScoreBound(double value, boolean exclusive) {
+            this.value = value;
+            this.exclusive = exclusive;
+        }
+
+        boolean excludes(double score, boolean lower) {
+            if (lower) {
+                return exclusive ? score <= value : score < value;
+            }
+            return exclusive ? score >= value : score > value;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package redis.embedded.inprocess;
+
+/**
+ * Commands on string values, stored as plain {@code byte[]}.
+ */
+enum StringCommands implements Command {
+    GET(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            session.reply.bulk(engine.read(session, Arguments.key(args, 1), byte[].class));
+        }
+    },
+    SET(-3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            long ttlMillis = -1;
+            boolean onlyIfAbsent = false;
+            boolean onlyIfPresent = false;
+            for (int i = 3; i < args.length; i++) {
+                if (Arguments.is(args[i], "NX")) {
+                    onlyIfAbsent = true;
+                } else if (Arguments.is(args[i], "XX")) {
+                    onlyIfPresent = true;
+                } else if ((Arguments.is(args[i], "EX") || Arguments.is(args[i], "PX")) && i + 1 < args.length) {
+                    final long ttl = Arguments.integer(args[i + 1]);
+                    if (ttl <= 0) {
+                        throw new CommandException("ERR invalid expire time in set");
+                    }
+                    ttlMillis = Arguments.is(args[i], "EX") ? ttl * 1000 : ttl;
+                    i++;
+                } else {
+                    throw CommandException.syntax();
+                }
+            }
+            if (onlyIfAbsent && onlyIfPresent) {
+                throw CommandException.syntax();
+            }
+            if (set(engine, session, Arguments.key(args, 1), args[2], ttlMillis, onlyIfAbsent, onlyIfPresent)) {
+                session.reply.ok();
+            } else {
+                session.reply.nil();
+            }
+        }
+    },
+    SETNX(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            session.reply.integer(set(engine, session, Arguments.key(args, 1), args[2], -1, true, false) ? 1 : 0);
+        }
+    },
+    SETEX(4) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            setWithTtl(engine, session, args, Arguments.integer(args[2]) * 1000);
+        }
+    },
+    PSETEX(4) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            setWithTtl(engine, session, args, Arguments.integer(args[2]));
+        }
+    },
+    GETSET(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final Bytes key = Arguments.key(args, 1);
+            final byte[] previous = engine.read(session, key, byte[].class);
+            engine.db(session).set(key, args[2]);
+            session.reply.bulk(previous);
+        }
+    },
+    MGET(-2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final Database db = engine.db(session);
+            final long now = engine.now();
+            session.reply.array(args.length - 1);
+            for (int i = 1; i < args.length; i++) {
+                final Object value = db.get(Arguments.key(args, i), now);
+                session.reply.bulk(value instanceof byte[] ? (byte[]) value : null);
+            }
+        }
+    },
+    MSET(-3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            checkPairs(args);
+            for (int i = 1; i < args.length; i += 2) {
+                engine.db(session).set(Arguments.key(args, i), args[i + 1]);
+            }
+            session.reply.ok();
+        }
+    },
+    MSETNX(-3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            checkPairs(args);
+            final Database db = engine.db(session);
+            final long now = engine.now();
+            for (int i = 1; i < args.length; i += 2) {
+                if (db.exists(Arguments.key(args, i), now)) {
+                    session.reply.integer(0);
+                    return;
+                }
+            }
+            for (int i = 1; i < args.length; i += 2) {
+                db.set(Arguments.key(args, i), args[i + 1]);
+            }
+            session.reply.integer(1);
+        }
+    },
+    INCR(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            session.reply.integer(incrementBy(engine, session, Arguments.key(args, 1), 1));
+        }
+    },
+    DECR(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            session.reply.integer(incrementBy(engine, session, Arguments.key(args, 1), -1));
+        }
+    },
+    INCRBY(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            session.reply.integer(incrementBy(engine, session, Arguments.key(args, 1), Arguments.integer(args[2])));
+        }
+    },
+    DECRBY(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            session.reply.integer(incrementBy(engine, session, Arguments.key(args, 1), -Arguments.integer(args[2])));
+        }
+    },
+    INCRBYFLOAT(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final Bytes key = Arguments.key(args, 1);
+            final Database db = engine.db(session);
+            final byte[] current = db.get(key, byte[].class, engine.now());
+            final double value = (current == null ? 0 : Arguments.decimal(current)) + Arguments.decimal(args[2]);
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                throw new CommandException("ERR increment would produce NaN or Infinity");
+            }
+            final byte[] updated = Arguments.bytes(value);
+            db.update(key, updated);
+            session.reply.bulk(updated);
+        }
+    },
+    APPEND(3) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final Bytes key = Arguments.key(args, 1);
+            final Database db = engine.db(session);
+            final byte[] current = db.get(key, byte[].class, engine.now());
+            final byte[] updated;
+            if (current == null) {
+                updated = args[2];
+            } else {
+                updated = new byte[current.length + args[2].length];
+                System.arraycopy(current, 0, updated, 0, current.length);
+                System.arraycopy(args[2], 0, updated, current.length, args[2].length);
+            }
+            db.update(key, updated);
+            session.reply.integer(updated.length);
+        }
+    },
+    STRLEN(2) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final byte[] value = engine.db(session).get(Arguments.key(args, 1), byte[].class, engine.now());
+            session.reply.integer(value == null ? 0 : value.length);
+        }
+    },
+    GETRANGE(4) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            final byte[] value = engine.read(session, Arguments.key(args, 1), byte[].class);
+            if (value == null) {
+                session.reply.bulk(new byte[0]);
+                return;
+            }
+            final int[] range = Arguments.range(Arguments.index(args[2]), Arguments.index(args[3]), value.length);
+            final byte[] slice = new byte[Math.max(0, range[1] - range[0] + 1)];
+            System.arraycopy(value, Math.min(range[0], value.length), slice, 0, slice.length);
+            session.reply.bulk(slice);
+        }
+    };
+
+    private final int arity;
+
+    StringCommands(int arity) {
+        this.arity = arity;
+    }
+
+    @Override
+    public int arity() {
+        return arity;
+    }
+
+    private static boolean set(Engine engine, Session session, Bytes key, byte[] value, long ttlMillis,
+                               boolean onlyIfAbsent, boolean onlyIfPresent) {
+        final Database db = engine.db(session);
+        final long now = engine.now();
+        if (onlyIfAbsent || onlyIfPresent) {
+            final boolean exists = db.exists(key, now);
+            if (onlyIfAbsent && exists || onlyIfPresent && !exists) {
+                return false;
+            }
+        }
+        db.set(key, value);
+        if (ttlMillis > 0) {
+            db.expireAt(key, now + ttlMillis);
+        }
+        return true;
+    }
+
+    private static void setWithTtl(Engine engine, Session session, byte[][] args, long ttlMillis) {
+        if (ttlMillis <= 0) {
+            throw new CommandException("ERR invalid expire time in " + Arguments.text(args[0]).toLowerCase());
+        }
+        set(engine, session, Arguments.key(args, 1), args[3], ttlMillis, false, false);
+        session.reply.ok();
+    }
+
+    private static void checkPairs(byte[][] args) {
+        if (args.length % 2 == 0) {
+            throw new CommandException("ERR wrong number of arguments for '"
+                    + Arguments.text(args[0]).toLowerCase() + "' command");
+        }
+    }
+
+    private static long incrementBy(Engine engine, Session session, Bytes key, long increment) {
+        final Database db = engine.db(session);
+        final byte[] current = db.get(key, byte[].class, engine.now());
+        final long value = current == null ? 0 : Arguments.integer(current);
+        if (increment > 0 ? value > Long.MAX_VALUE - increment : value < Long.MIN_VALUE - increment) {
+            throw new CommandException("ERR increment or decrement would overflow");
+        }
+        db.update(key, Arguments.bytes(value + increment));
+        return value + increment;
+    }
+}
@@ -0,0 +1,60 @@
+package redis.embedded.inprocess;
+
+import java.util.List;
+
+/**
+ * {@code MULTI}/{@code EXEC}/{@code DISCARD}. Commands are queued by the engine while a transaction is open;
+ * since the engine runs one command at a time, executing the queue in one go makes it atomic. {@code WATCH} is
+ * not supported.
+ */
+enum TransactionCommands implements Command {
+    MULTI(1) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            if (session.transaction != null) {
+                throw new CommandException("ERR MULTI calls can not be nested");
+            }
+            session.beginTransaction();
+            session.reply.ok();
+        }
+    },
+    EXEC(1) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            if (session.transaction == null) {
+                throw new CommandException("ERR EXEC without MULTI");
+            }
+            final List<byte[][]> queued = session.transaction;
+            final boolean failed = session.transactionFailed;
+            session.endTransaction();
+            if (failed) {
+                throw new CommandException("EXECABORT Transaction discarded because of previous errors.");
+            }
+            session.reply.array(queued.size());
+            for (byte[][] command : queued) {
+                engine.execute(session, command);
+            }
+        }
+    },
+    DISCARD(1) {
+        @Override
+        public void execute(Engine engine, Session session, byte[][] args) {
+            if (session.transaction == null) {
+                throw new CommandException("ERR DISCARD without MULTI");
+            }
+            session.endTransaction();
+            session.reply.ok();
+        }
+    };
+
+    private final int arity;
+
+    TransactionCommands(int arity) {
+        this.arity = arity;
+    }
+
+    @Override
+    public int arity() {
+        return arity;
+    }
+}
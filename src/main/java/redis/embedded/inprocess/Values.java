@@ -0,0 +1,44 @@
+package redis.embedded.inprocess;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+
+/**
+ * Value types of the keyspace besides strings, which are stored as plain {@code byte[]}.
+ */
+final class Values {
+    private Values() {
+    }
+
+    static class HashValue extends HashMap<Bytes, byte[]> {
+        private static final long serialVersionUID = 1L;
+    }
+
+    static class ListValue extends LinkedList<byte[]> {
+        private static final long serialVersionUID = 1L;
+    }
+
+    static class SetValue extends HashSet<Bytes> {
+        private static final long serialVersionUID = 1L;
+    }
+
+    static String typeName(Object value) {
+        if (value == null) {
+            return "none";
+        }
+        if (value instanceof byte[]) {
+            return "string";
+        }
+        if (value instanceof HashValue) {
+            return "hash";
+        }
+        if (value instanceof ListValue) {
+            return "list";
+        }
+        if (value instanceof SetValue) {
+            return "set";
+        }
+        return "zset";
+    }
+}
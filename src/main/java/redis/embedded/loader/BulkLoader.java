@@ -0,0 +1,145 @@
+package redis.embedded.loader;
+
+import redis.embedded.Redis;
+import redis.embedded.RedisCluster;
+import redis.embedded.RedisShardedCluster;
+import redis.embedded.SlotRange;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams the commands of a {@link RecordSource} into an instance over pipelined connections instead of one
+ * round trip per command, like {@code redis-cli --pipe}.
+ * <ul>
+ * <li>a {@link RedisShardedCluster} is loaded through one connection per master, each command going to the
+ * master owning the hash slot of its key;</li>
+ * <li>a {@link RedisCluster} is loaded through one connection per master, each master receiving the whole
+ * dataset since its replication group is an independent dataset; slaves catch up through replication;</li>
+ * <li>any other {@link Redis} is loaded through one connection to its first port.</li>
+ * </ul>
+ * Connections load in parallel. Memory stays bounded by the acknowledgement window and a short queue per
+ * connection, whatever the size of the source.
+ * <pre>
+ * LoadReport report = new BulkLoader(new KeyValueGenerator(1000000)).load(cluster);
+ * </pre>
+ */
+public class BulkLoader {
+    public static final int DEFAULT_WINDOW = 10000;
+    private static final long DEFAULT_ACKNOWLEDGE_TIMEOUT_MILLIS = 60000L;
+
+    private final RecordSource source;
+    private int window = DEFAULT_WINDOW;
+    private long acknowledgeTimeoutMillis = DEFAULT_ACKNOWLEDGE_TIMEOUT_MILLIS;
+
+    public BulkLoader(RecordSource source) {
+        this.source = source;
+    }
+
+    /**
+     * Maximum number of commands sent but not yet acknowledged, per connection.
+     */
+    public BulkLoader window(int commands) {
+        if (commands < 1) {
+            throw new IllegalArgumentException("Window must allow at least one command: " + commands);
+        }
+        this.window = commands;
+        return this;
+    }
+
+    /**
+     * How long to wait for outstanding acknowledgements once the source is exhausted.
+     */
+    public BulkLoader acknowledgeTimeout(long timeout, TimeUnit unit) {
+        this.acknowledgeTimeoutMillis = unit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * Loads the whole source, which is closed afterwards, and waits until every command was acknowledged.
+     */
+    public LoadReport load(Redis target) throws IOException {
+        if (target instanceof RedisShardedCluster) {
+            final RedisShardedCluster cluster = (RedisShardedCluster) target;
+            final List<Integer> ports = new ArrayList<Integer>();
+            final int[] slotOwners = new int[SlotRange.SLOT_COUNT];
+            for (Map.Entry<Redis, SlotRange> master : cluster.slotRanges().entrySet()) {
+                Arrays.fill(slotOwners, master.getValue().start(), master.getValue().end() + 1, ports.size());
+                ports.add(master.getKey().ports().get(0));
+            }
+            return load(ports, slotOwners);
+        }
+        if (target instanceof RedisCluster) {
+            final List<Integer> ports = new ArrayList<Integer>();
+            for (Redis master : ((RedisCluster) target).masters()) {
+                ports.add(master.ports().get(0));
+            }
+            return load(ports, null);
+        }
+        return load(target.ports().get(0));
+    }
+
+    public LoadReport load(int port) throws IOException {
+        return load(Arrays.asList(port), null);
+    }
+
+    // with slot owners each command goes to one stream, otherwise to all of them
+    private LoadReport load(List<Integer> ports, int[] slotOwners) throws IOException {
+        final List<LoadStream> streams = new ArrayList<LoadStream>(ports.size());
+        long records = 0;
+        final long started = System.nanoTime();
+        try {
+            for (int port : ports) {
+                final LoadStream stream = new LoadStream(port, window);
+                stream.start();
+                streams.add(stream);
+            }
+            byte[][] command;
+            while ((command = source.next()) != null) {
+                records++;
+                if (slotOwners != null && command.length > 1) {
+                    streams.get(slotOwners[SlotRange.slotOf(command[1])]).submit(command);
+                } else {
+                    for (LoadStream stream : streams) {
+                        stream.submit(command);
+                    }
+                }
+            }
+            for (LoadStream stream : streams) {
+                stream.finish(acknowledgeTimeoutMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading", e);
+        } finally {
+            source.close();
+            for (LoadStream stream : streams) {
+                stream.abort();
+            }
+        }
+        return report(streams, records, System.nanoTime() - started);
+    }
+
+    private static LoadReport report(List<LoadStream> streams, long records, long elapsedNanos) {
+        long commands = 0;
+        long errors = 0;
+        long bytes = 0;
+        String firstError = null;
+        final Map<Integer, Long> commandsPerPort = new LinkedHashMap<Integer, Long>();
+        for (LoadStream stream : streams) {
+            commands += stream.acknowledged();
+            errors += stream.errors();
+            bytes += stream.bytesSent();
+            if (firstError == null) {
+                firstError = stream.firstError();
+            }
+            commandsPerPort.put(stream.port(), stream.acknowledged());
+        }
+        return new LoadReport(records, commands, errors, firstError, bytes, elapsedNanos, commandsPerPort);
+    }
+}
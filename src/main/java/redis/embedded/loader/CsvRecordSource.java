@@ -0,0 +1,100 @@
+package redis.embedded.loader;
+
+import com.google.common.base.Charsets;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads {@code key,value} lines, with an optional third column holding a time to live in seconds, into
+ * {@code SET} commands. Fields may be quoted as in RFC 4180, so values can contain commas, quotes ({@code ""})
+ * and line breaks. Blank lines are skipped.
+ */
+public class CsvRecordSource implements RecordSource {
+    private static final byte[] SET = "SET".getBytes(Charsets.US_ASCII);
+    private static final byte[] EX = "EX".getBytes(Charsets.US_ASCII);
+
+    private final BufferedReader reader;
+    private long lineNumber;
+
+    public CsvRecordSource(File file) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), Charsets.UTF_8));
+    }
+
+    @Override
+    public byte[][] next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+            if (line == null) {
+                return null;
+            }
+        } while (line.trim().isEmpty());
+        final long startLine = lineNumber;
+        final List<String> fields = parse(line);
+        if (fields.size() < 2 || fields.size() > 3) {
+            throw new IOException("Expected key,value[,ttl] on line " + startLine + " but got " + fields.size()
+                    + " field(s)");
+        }
+        final byte[] key = fields.get(0).getBytes(Charsets.UTF_8);
+        final byte[] value = fields.get(1).getBytes(Charsets.UTF_8);
+        if (fields.size() == 3 && !fields.get(2).isEmpty()) {
+            return new byte[][]{SET, key, value, EX, fields.get(2).trim().getBytes(Charsets.US_ASCII)};
+        }
+        return new byte[][]{SET, key, value};
+    }
+
+    private List<String> parse(String line) throws IOException {
+        final List<String> fields = new ArrayList<String>();
+        final StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                // a quoted field continues on the next line
+                line = reader.readLine();
+                lineNumber++;
+                if (line == null) {
+                    throw new IOException("Unterminated quoted field at end of file");
+                }
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+            final char c = line.charAt(i++);
+            if (quoted) {
+                if (c == '"' && i < line.length() && line.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,186 @@
+package redis.embedded.loader;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough of a JSON parser for record lines: objects become {@link LinkedHashMap}s, arrays {@link List}s,
+ * strings {@link String}s; numbers, booleans and {@code null} keep their literal text, except that {@code null}
+ * is {@code null}.
+ */
+final class Json {
+    private final String text;
+    private int position;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * @throws IllegalArgumentException when the text is not a single JSON value
+     */
+    static Object parse(String text) {
+        final Json json = new Json(text);
+        final Object value = json.value();
+        json.skipWhitespace();
+        if (json.position != text.length()) {
+            throw json.error("unexpected trailing characters");
+        }
+        return value;
+    }
+
+    private Object value() {
+        skipWhitespace();
+        if (position == text.length()) {
+            throw error("unexpected end of input");
+        }
+        final char c = text.charAt(position);
+        if (c == '{') {
+            return object();
+        }
+        if (c == '[') {
+            return array();
+        }
+        if (c == '"') {
+            return string();
+        }
+        return literal();
+    }
+
+    private Map<String, Object> object() {
+        final Map<String, Object> object = new LinkedHashMap<String, Object>();
+        position++;
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw error("expected a field name");
+            }
+            final String name = string();
+            skipWhitespace();
+            expect(':');
+            object.put(name, value());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect('}');
+                return object;
+            }
+        }
+    }
+
+    private List<Object> array() {
+        final List<Object> array = new ArrayList<Object>();
+        position++;
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            return array;
+        }
+        while (true) {
+            array.add(value());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect(']');
+                return array;
+            }
+        }
+    }
+
+    private String string() {
+        final StringBuilder string = new StringBuilder();
+        position++;
+        while (true) {
+            if (position >= text.length()) {
+                throw error("unterminated string");
+            }
+            final char c = text.charAt(position++);
+            if (c == '"') {
+                return string.toString();
+            }
+            if (c != '\\') {
+                string.append(c);
+                continue;
+            }
+            if (position >= text.length()) {
+                throw error("unterminated escape");
+            }
+            final char escaped = text.charAt(position++);
+            switch (escaped) {
+                case 'b':
+                    string.append('\b');
+                    break;
+                case 'f':
+                    string.append('\f');
+                    break;
+                case 'n':
+                    string.append('\n');
+                    break;
+                case 'r':
+                    string.append('\r');
+                    break;
+                case 't':
+                    string.append('\t');
+                    break;
+                case 'u':
+                    if (position + 4 > text.length()) {
+                        throw error("truncated unicode escape");
+                    }
+                    try {
+                        string.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("invalid unicode escape");
+                    }
+                    position += 4;
+                    break;
+                default:
+                    string.append(escaped);
+            }
+        }
+    }
+
+    private String literal() {
+        final int start = position;
+        while (position < text.length() && ",}] \t".indexOf(text.charAt(position)) < 0) {
+            position++;
+        }
+        final String literal = text.substring(start, position);
+        if (literal.isEmpty()) {
+            throw error("expected a value");
+        }
+        return "null".equals(literal) ? null : literal;
+    }
+
+    private char peek() {
+        if (position >= text.length()) {
+            throw error("unexpected end of input");
+        }
+        return text.charAt(position);
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error("expected '" + c + "'");
+        }
+        position++;
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at column " + (position + 1));
+    }
+}
@@ -0,0 +1,111 @@
+package redis.embedded.loader;
+
+import com.google.common.base.Charsets;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads one JSON object per line, such as {@code {"key": "user:1", "value": {"name": "Ann"}, "ttl": 60}}.
+ * A string or number value becomes a {@code SET}, an object an {@code HMSET} and an array an {@code RPUSH};
+ * the optional {@code ttl} in seconds adds an expiry. Blank lines are skipped.
+ */
+public class JsonLinesRecordSource implements RecordSource {
+    private final BufferedReader reader;
+    private final LinkedList<byte[][]> pending = new LinkedList<byte[][]>();
+    private long lineNumber;
+
+    public JsonLinesRecordSource(File file) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), Charsets.UTF_8));
+    }
+
+    @Override
+    public byte[][] next() throws IOException {
+        while (pending.isEmpty()) {
+            final String line = reader.readLine();
+            lineNumber++;
+            if (line == null) {
+                return null;
+            }
+            if (!line.trim().isEmpty()) {
+                try {
+                    commands(Json.parse(line));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Invalid record on line " + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return pending.removeFirst();
+    }
+
+    private void commands(Object record) {
+        if (!(record instanceof Map)) {
+            throw new IllegalArgumentException("expected an object");
+        }
+        final Map<?, ?> fields = (Map<?, ?>) record;
+        final Object key = fields.get("key");
+        final Object value = fields.get("value");
+        final Object ttl = fields.get("ttl");
+        if (!(key instanceof String) || value == null) {
+            throw new IllegalArgumentException("expected a string \"key\" and a \"value\"");
+        }
+        final List<String> command = new ArrayList<String>();
+        if (value instanceof Map) {
+            command.add("HMSET");
+            command.add((String) key);
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                command.add(entry.getKey().toString());
+                command.add(scalar(entry.getValue()));
+            }
+        } else if (value instanceof List) {
+            command.add("RPUSH");
+            command.add((String) key);
+            for (Object element : (List<?>) value) {
+                command.add(scalar(element));
+            }
+        } else {
+            command.add("SET");
+            command.add((String) key);
+            command.add(scalar(value));
+        }
+        if (command.size() == 2) {
+            // redis has no empty hashes or lists
+            return;
+        }
+        pending.add(bytes(command));
+        if (ttl != null) {
+            final List<String> expire = new ArrayList<String>();
+            expire.add("EXPIRE");
+            expire.add((String) key);
+            expire.add(scalar(ttl));
+            pending.add(bytes(expire));
+        }
+    }
+
+    private static String scalar(Object value) {
+        if (value instanceof Map || value instanceof List) {
+            throw new IllegalArgumentException("nested values are not supported");
+        }
+        return String.valueOf(value);
+    }
+
+    private static byte[][] bytes(List<String> command) {
+        final byte[][] args = new byte[command.size()][];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = command.get(i).getBytes(Charsets.UTF_8);
+        }
+        return args;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,93 @@
+package redis.embedded.loader;
+
+import com.google.common.base.Charsets;
+
+import java.util.Random;
+
+/**
+ * Generates {@code SET} commands with random values. Keys are the prefix followed by a number cycling through
+ * the cardinality, so a cardinality below the record count overwrites keys the way a hot keyspace does.
+ * <pre>
+ * new KeyValueGenerator(1000000).cardinality(100000).valueSize(ValueSize.normal(512, 128))
+ * </pre>
+ */
+public class KeyValueGenerator implements RecordSource {
+    private static final byte[] SET = "SET".getBytes(Charsets.US_ASCII);
+    private static final byte[] EX = "EX".getBytes(Charsets.US_ASCII);
+    private static final byte[] ALPHABET =
+            "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".getBytes(Charsets.US_ASCII);
+
+    private final long records;
+    private String keyPrefix = "key:";
+    private long cardinality;
+    private ValueSize valueSize = ValueSize.fixed(64);
+    private long ttlSeconds;
+    private Random random = new Random();
+    private long generated;
+
+    public KeyValueGenerator(long records) {
+        if (records < 0) {
+            throw new IllegalArgumentException("Record count must not be negative: " + records);
+        }
+        this.records = records;
+        this.cardinality = Math.max(1, records);
+    }
+
+    public KeyValueGenerator keyPrefix(String keyPrefix) {
+        this.keyPrefix = keyPrefix;
+        return this;
+    }
+
+    /**
+     * Number of distinct keys; defaults to the record count, so every key is written once.
+     */
+    public KeyValueGenerator cardinality(long distinctKeys) {
+        if (distinctKeys < 1) {
+            throw new IllegalArgumentException("Cardinality must be positive: " + distinctKeys);
+        }
+        this.cardinality = distinctKeys;
+        return this;
+    }
+
+    public KeyValueGenerator valueSize(ValueSize valueSize) {
+        this.valueSize = valueSize;
+        return this;
+    }
+
+    /**
+     * Gives every key a time to live.
+     */
+    public KeyValueGenerator ttl(long seconds) {
+        this.ttlSeconds = seconds;
+        return this;
+    }
+
+    /**
+     * Makes values, and sizes drawn from the distribution, repeat across runs.
+     */
+    public KeyValueGenerator seed(long seed) {
+        this.random = new Random(seed);
+        return this;
+    }
+
+    @Override
+    public byte[][] next() {
+        if (generated == records) {
+            return null;
+        }
+        final byte[] key = (keyPrefix + generated % cardinality).getBytes(Charsets.UTF_8);
+        final byte[] value = new byte[valueSize.next(random)];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        generated++;
+        if (ttlSeconds > 0) {
+            return new byte[][]{SET, key, value, EX, Long.toString(ttlSeconds).getBytes(Charsets.US_ASCII)};
+        }
+        return new byte[][]{SET, key, value};
+    }
+
+    @Override
+    public void close() {
+    }
+}
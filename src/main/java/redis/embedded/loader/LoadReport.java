@@ -0,0 +1,91 @@
+package redis.embedded.loader;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a {@link BulkLoader} run.
+ */
+public final class LoadReport {
+    private final long records;
+    private final long commands;
+    private final long errors;
+    private final String firstError;
+    private final long bytes;
+    private final long elapsedNanos;
+    private final Map<Integer, Long> commandsPerPort;
+
+    LoadReport(long records, long commands, long errors, String firstError, long bytes, long elapsedNanos,
+               Map<Integer, Long> commandsPerPort) {
+        this.records = records;
+        this.commands = commands;
+        this.errors = errors;
+        this.firstError = firstError;
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+        this.commandsPerPort = Collections.unmodifiableMap(commandsPerPort);
+    }
+
+    /**
+     * Number of commands read from the source.
+     */
+    public long records() {
+        return records;
+    }
+
+    /**
+     * Number of commands acknowledged by the target nodes; more than {@link #records()} when a replicated
+     * cluster receives the dataset once per master.
+     */
+    public long commands() {
+        return commands;
+    }
+
+    /**
+     * Number of commands answered with an error; the load goes on, like {@code redis-cli --pipe}.
+     */
+    public long errors() {
+        return errors;
+    }
+
+    /**
+     * Message of the first error reply, or {@code null} when there was none.
+     */
+    public String firstError() {
+        return firstError;
+    }
+
+    /**
+     * RESP bytes sent over all connections.
+     */
+    public long bytes() {
+        return bytes;
+    }
+
+    public long elapsed(TimeUnit unit) {
+        return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Acknowledged commands per second.
+     */
+    public double rate() {
+        return elapsedNanos == 0 ? 0 : commands * 1e9 / elapsedNanos;
+    }
+
+    public Map<Integer, Long> commandsPerPort() {
+        return commandsPerPort;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadReport{records=" + records
+                + ", commands=" + commands
+                + ", errors=" + errors
+                + ", elapsed=" + elapsed(TimeUnit.MILLISECONDS) + "ms"
+                + ", rate=" + Math.round(rate()) + "/s"
+                + ", throughput=" + (elapsedNanos == 0 ? 0 : Math.round(bytes * 1e9 / elapsedNanos / 1024)) + "KB/s"
+                + ", ports=" + commandsPerPort + "}";
+    }
+}
@@ -0,0 +1,281 @@
+package redis.embedded.loader;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One pipelined connection of a load, like {@code redis-cli --pipe}: a writer thread encodes queued commands as
+ * RESP and flushes whenever the queue runs dry, a reader thread counts the replies. At most {@code window}
+ * commands are unacknowledged at any time, which bounds both client and server buffers.
+ */
+class LoadStream {
+    private static final String LOCALHOST = "127.0.0.1";
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+    private static final byte[][] END = new byte[0][];
+
+    private final int port;
+    private final int window;
+    private final Semaphore unacknowledged;
+    private final BlockingQueue<byte[][]> queue = new ArrayBlockingQueue<byte[][]>(QUEUE_CAPACITY);
+    private final Socket socket = new Socket();
+    private final byte[] digits = new byte[20];
+    private OutputStream out;
+    private InputStream in;
+    private Thread writer;
+    private Thread reader;
+
+    private volatile long sent;
+    private volatile long bytesSent;
+    private volatile long acknowledged;
+    private volatile long errors;
+    private volatile String firstError;
+    private volatile IOException failure;
+    private volatile boolean finishing;
+
+    LoadStream(int port, int window) {
+        this.port = port;
+        this.window = window;
+        this.unacknowledged = new Semaphore(window);
+    }
+
+    void start() throws IOException {
+        try {
+            socket.connect(new InetSocketAddress(LOCALHOST, port), CONNECT_TIMEOUT_MILLIS);
+            socket.setTcpNoDelay(true);
+            out = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE);
+            in = new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE);
+        } catch (IOException e) {
+            IOUtils.closeQuietly(socket);
+            throw e;
+        }
+        writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                write();
+            }
+        }, "embedded-redis-load-writer-" + port);
+        reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                read();
+            }
+        }, "embedded-redis-load-reader-" + port);
+        writer.setDaemon(true);
+        reader.setDaemon(true);
+        writer.start();
+        reader.start();
+    }
+
+    /**
+     * Queues a command, blocking while the queue is full.
+     */
+    void submit(byte[][] command) throws IOException, InterruptedException {
+        while (!queue.offer(command, 100, TimeUnit.MILLISECONDS)) {
+            checkFailure();
+        }
+    }
+
+    /**
+     * Waits until every queued command has been acknowledged, then closes the connection.
+     */
+    void finish(long timeout, TimeUnit unit) throws IOException, InterruptedException {
+        try {
+            submit(END);
+            writer.join(unit.toMillis(timeout));
+            checkFailure();
+            if (!unacknowledged.tryAcquire(window, timeout, unit)) {
+                checkFailure();
+                throw new IOException("Timed out waiting for " + (sent - acknowledged)
+                        + " acknowledgement(s) from port " + port);
+            }
+        } finally {
+            finishing = true;
+            IOUtils.closeQuietly(socket);
+            reader.join(unit.toMillis(timeout));
+            writer.interrupt();
+        }
+        checkFailure();
+    }
+
+    void abort() {
+        finishing = true;
+        IOUtils.closeQuietly(socket);
+        if (writer != null) {
+            writer.interrupt();
+        }
+    }
+
+    int port() {
+        return port;
+    }
+
+    long sent() {
+        return sent;
+    }
+
+    long bytesSent() {
+        return bytesSent;
+    }
+
+    long acknowledged() {
+        return acknowledged;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    String firstError() {
+        return firstError;
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Loading into port " + port + " failed", failure);
+        }
+    }
+
+    private void write() {
+        try {
+            while (true) {
+                byte[][] command = queue.poll();
+                if (command == null) {
+                    out.flush();
+                    command = queue.take();
+                }
+                if (command == END) {
+                    out.flush();
+                    return;
+                }
+                if (!unacknowledged.tryAcquire()) {
+                    // the replies that free the window only come for commands which were actually sent
+                    out.flush();
+                    unacknowledged.acquire();
+                }
+                encode(command);
+                sent++;
+            }
+        } catch (InterruptedException e) {
+            // aborted
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void encode(byte[][] command) throws IOException {
+        out.write('*');
+        long bytes = 1 + writeNumber(command.length) + 2;
+        for (byte[] arg : command) {
+            out.write('$');
+            bytes += 1 + writeNumber(arg.length) + 2 + arg.length + 2;
+            out.write(arg);
+            out.write('\r');
+            out.write('\n');
+        }
+        bytesSent += bytes;
+    }
+
+    // number followed by CRLF; returns the number of digits
+    private int writeNumber(int number) throws IOException {
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' + number % 10);
+            number /= 10;
+        } while (number > 0);
+        final int length = count;
+        while (count > 0) {
+            out.write(digits[--count]);
+        }
+        out.write('\r');
+        out.write('\n');
+        return length;
+    }
+
+    private void read() {
+        try {
+            while (true) {
+                if (readReply()) {
+                    errors++;
+                }
+                acknowledged++;
+                unacknowledged.release();
+            }
+        } catch (IOException e) {
+            if (!finishing) {
+                fail(e);
+            }
+        }
+    }
+
+    // skips one reply, returns whether it was an error
+    private boolean readReply() throws IOException {
+        final int type = readByte();
+        switch (type) {
+            case '-':
+                final String error = readLine();
+                if (firstError == null) {
+                    firstError = error;
+                }
+                return true;
+            case '+':
+            case ':':
+                readLine();
+                return false;
+            case '$':
+                final long length = Long.parseLong(readLine());
+                if (length >= 0) {
+                    IOUtils.skipFully(in, length + 2);
+                }
+                return false;
+            case '*':
+                final long count = Long.parseLong(readLine());
+                boolean failed = false;
+                for (long i = 0; i < count; i++) {
+                    failed |= readReply();
+                }
+                return failed;
+            default:
+                throw new IOException("Unexpected reply type: " + (char) type);
+        }
+    }
+
+    private String readLine() throws IOException {
+        final StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = readByte()) != '\r') {
+            line.append((char) c);
+        }
+        readByte();
+        return line.toString();
+    }
+
+    private int readByte() throws IOException {
+        final int b = in.read();
+        if (b < 0) {
+            throw new IOException("Connection closed by redis instance");
+        }
+        return b;
+    }
+
+    private void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+        // unblock a writer waiting for the window and a finish() waiting for acknowledgements
+        unacknowledged.release(window);
+        IOUtils.closeQuietly(socket);
+    }
+}
@@ -0,0 +1,16 @@
+package redis.embedded.loader;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Commands for {@link BulkLoader} to load, produced one at a time so datasets of any size load in bounded
+ * memory. The key of each command is its second argument, which routes it to the owning node of a sharded
+ * cluster.
+ */
+public interface RecordSource extends Closeable {
+    /**
+     * @return the next command, or {@code null} when the source is exhausted
+     */
+    byte[][] next() throws IOException;
+}
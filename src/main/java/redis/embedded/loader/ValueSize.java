@@ -0,0 +1,72 @@
+package redis.embedded.loader;
+
+import java.util.Random;
+
+/**
+ * Distribution of value sizes, in bytes, for {@link KeyValueGenerator}.
+ */
+public abstract class ValueSize {
+
+    public abstract int next(Random random);
+
+    public static ValueSize fixed(final int bytes) {
+        checkNotNegative(bytes);
+        return new ValueSize() {
+            @Override
+            public int next(Random random) {
+                return bytes;
+            }
+
+            @Override
+            public String toString() {
+                return "fixed(" + bytes + ")";
+            }
+        };
+    }
+
+    /**
+     * Sizes spread evenly between both bounds, inclusive.
+     */
+    public static ValueSize uniform(final int min, final int max) {
+        checkNotNegative(min);
+        if (max < min) {
+            throw new IllegalArgumentException("Maximum size " + max + " is below minimum size " + min);
+        }
+        return new ValueSize() {
+            @Override
+            public int next(Random random) {
+                return min + random.nextInt(max - min + 1);
+            }
+
+            @Override
+            public String toString() {
+                return "uniform(" + min + ", " + max + ")";
+            }
+        };
+    }
+
+    /**
+     * Sizes around a mean, as most real datasets have; samples below zero are clamped to empty values.
+     */
+    public static ValueSize normal(final int mean, final int standardDeviation) {
+        checkNotNegative(mean);
+        checkNotNegative(standardDeviation);
+        return new ValueSize() {
+            @Override
+            public int next(Random random) {
+                return (int) Math.max(0, Math.round(mean + random.nextGaussian() * standardDeviation));
+            }
+
+            @Override
+            public String toString() {
+                return "normal(" + mean + ", " + standardDeviation + ")";
+            }
+        };
+    }
+
+    private static void checkNotNegative(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value size must not be negative: " + value);
+        }
+    }
+}
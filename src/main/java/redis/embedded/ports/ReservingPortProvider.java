@@ -0,0 +1,217 @@
+package redis.embedded.ports;
+
+import redis.embedded.PortProvider;
+import redis.embedded.exceptions.RedisBuildingException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out ports reserved across JVMs: every port is backed by a lock file in a directory shared by all
+ * processes on the host, locked for as long as the reservation is held, and checked to be bindable.
+ * Parallel test forks using this provider therefore never receive the same port.
+ * <p>
+ * Reservations are held until {@link #release(int)}, until an instance listening on the port is stopped or moves
+ * to another port, or until the JVM exits, which drops its locks.
+ * The lock directory defaults to {@code <java.io.tmpdir>/embedded-redis-ports} and can be changed with the
+ * {@code embedded-redis.ports.dir} system property.
+ */
+public class ReservingPortProvider implements PortProvider {
+    public static final String LOCK_DIR_PROPERTY = "embedded-redis.ports.dir";
+    public static final int DEFAULT_FIRST_PORT = 20000;
+    public static final int DEFAULT_LAST_PORT = 29999;
+
+    private static final Map<Integer, Reservation> RESERVATIONS = new ConcurrentHashMap<Integer, Reservation>();
+
+    private final int firstPort;
+    private final int lastPort;
+    private final Deque<Integer> prefetched = new ArrayDeque<Integer>();
+    private int cursor;
+
+    public ReservingPortProvider() {
+        this(DEFAULT_FIRST_PORT, DEFAULT_LAST_PORT);
+    }
+
+    public ReservingPortProvider(int firstPort, int lastPort) {
+        if (firstPort < 1 || lastPort > 65535 || firstPort > lastPort) {
+            throw new IllegalArgumentException("Invalid port range: " + firstPort + "-" + lastPort);
+        }
+        this.firstPort = firstPort;
+        this.lastPort = lastPort;
+        // forks starting at the same moment should not all contend for the bottom of the range
+        this.cursor = firstPort + new Random().nextInt(lastPort - firstPort + 1);
+    }
+
+    @Override
+    public synchronized int next() {
+        if (!prefetched.isEmpty()) {
+            return prefetched.poll();
+        }
+        return reserveBlock(1).get(0);
+    }
+
+    /**
+     * Reserves {@code count} contiguous ports in one go, e.g. for a whole topology.
+     */
+    public synchronized List<Integer> reserveBlock(int count) {
+        final int rangeSize = lastPort - firstPort + 1;
+        if (count < 1 || count > rangeSize) {
+            throw new IllegalArgumentException("Cannot reserve " + count + " ports in " + firstPort + "-" + lastPort);
+        }
+        int scanned = 0;
+        while (scanned < rangeSize) {
+            if (cursor + count - 1 > lastPort) {
+                scanned += lastPort - cursor + 1;
+                cursor = firstPort;
+                continue;
+            }
+            final List<Integer> block = tryReserveBlock(cursor, count);
+            if (block.size() == count) {
+                cursor += count;
+                return block;
+            }
+            for (Integer port : block) {
+                release(port);
+            }
+            scanned += block.size() + 1;
+            cursor += block.size() + 1;
+        }
+        throw new RedisBuildingException("Could not reserve " + count + " contiguous ports in "
+                + firstPort + "-" + lastPort);
+    }
+
+    /**
+     * Reserves a contiguous block whose ports are then returned by subsequent {@link #next()} calls.
+     */
+    public synchronized void prefetch(int count) {
+        prefetched.addAll(reserveBlock(count));
+    }
+
+    public static void release(int port) {
+        final Reservation reservation = RESERVATIONS.remove(port);
+        if (reservation != null) {
+            reservation.release();
+        }
+    }
+
+    public static boolean isReserved(int port) {
+        return RESERVATIONS.containsKey(port);
+    }
+
+    private static List<Integer> tryReserveBlock(int start, int count) {
+        final List<Integer> reserved = new ArrayList<Integer>();
+        for (int port = start; port < start + count; port++) {
+            if (!tryReserve(port)) {
+                break;
+            }
+            reserved.add(port);
+        }
+        return reserved;
+    }
+
+    private static boolean tryReserve(int port) {
+        if (RESERVATIONS.containsKey(port)) {
+            return false;
+        }
+        final Reservation reservation = Reservation.tryAcquire(port);
+        if (reservation == null) {
+            return false;
+        }
+        if (!isBindable(port)) {
+            reservation.release();
+            return false;
+        }
+        RESERVATIONS.put(port, reservation);
+        return true;
+    }
+
+    private static boolean isBindable(int port) {
+        ServerSocket socket = null;
+        try {
+            socket = new ServerSocket();
+            socket.setReuseAddress(true);
+            socket.bind(new InetSocketAddress(port));
+            return true;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private static File lockDir() {
+        final String configured = System.getProperty(LOCK_DIR_PROPERTY);
+        final File dir = configured != null
+                ? new File(configured)
+                : new File(System.getProperty("java.io.tmpdir"), "embedded-redis-ports");
+        if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new RedisBuildingException("Could not create port lock directory " + dir);
+        }
+        return dir;
+    }
+
+    private static class Reservation {
+        private final FileChannel channel;
+        private final FileLock lock;
+
+        private Reservation(FileChannel channel, FileLock lock) {
+            this.channel = channel;
+            this.lock = lock;
+        }
+
+        static Reservation tryAcquire(int port) {
+            FileChannel channel = null;
+            try {
+                channel = new RandomAccessFile(new File(lockDir(), port + ".lock"), "rw").getChannel();
+                final FileLock lock = channel.tryLock();
+                if (lock != null) {
+                    return new Reservation(channel, lock);
+                }
+            } catch (IOException e) {
+                // treat as taken
+            } catch (OverlappingFileLockException e) {
+                // held by this JVM
+            }
+            closeQuietly(channel);
+            return null;
+        }
+
+        void release() {
+            try {
+                lock.release();
+            } catch (IOException e) {
+                // the lock goes away with the channel
+            }
+            closeQuietly(channel);
+        }
+
+        private static void closeQuietly(FileChannel channel) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+}
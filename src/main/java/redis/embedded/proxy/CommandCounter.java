@@ -0,0 +1,89 @@
+package redis.embedded.proxy;
+
+/**
+ * Counts the commands in a client's request stream, both RESP arrays and inline commands, without buffering:
+ * bulk payloads are skipped by length and may be split across any number of reads.
+ */
+class CommandCounter {
+    private static final int START = 0;
+    private static final int ARRAY_LENGTH = 1;
+    private static final int BULK_HEADER = 2;
+    private static final int BULK_LENGTH = 3;
+    private static final int BULK_DATA = 4;
+    private static final int INLINE = 5;
+
+    private int state = START;
+    private long number;
+    private long remainingArgs;
+    private long remainingBulk;
+
+    /**
+     * @return number of commands completed by the given bytes
+     */
+    int accept(byte[] data, int offset, int length) {
+        int completed = 0;
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            final byte c = data[i];
+            switch (state) {
+                case START:
+                    if (c == '*') {
+                        number = 0;
+                        state = ARRAY_LENGTH;
+                    } else if (c != '\r' && c != '\n') {
+                        state = INLINE;
+                    }
+                    break;
+                case ARRAY_LENGTH:
+                    if (c == '\n') {
+                        remainingArgs = number;
+                        if (remainingArgs > 0) {
+                            state = BULK_HEADER;
+                        } else {
+                            completed++;
+                            state = START;
+                        }
+                    } else if (c != '\r') {
+                        number = number * 10 + (c - '0');
+                    }
+                    break;
+                case BULK_HEADER:
+                    if (c == '$') {
+                        number = 0;
+                        state = BULK_LENGTH;
+                    }
+                    break;
+                case BULK_LENGTH:
+                    if (c == '\n') {
+                        remainingBulk = number + 2;
+                        state = BULK_DATA;
+                    } else if (c != '\r') {
+                        number = number * 10 + (c - '0');
+                    }
+                    break;
+                case BULK_DATA:
+                    final long skipped = Math.min(remainingBulk, end - i);
+                    remainingBulk -= skipped;
+                    i += skipped - 1;
+                    if (remainingBulk == 0) {
+                        if (--remainingArgs == 0) {
+                            completed++;
+                            state = START;
+                        } else {
+                            state = BULK_HEADER;
+                        }
+                    }
+                    break;
+                case INLINE:
+                    if (c == '\n') {
+                        completed++;
+                        state = START;
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown state " + state);
+            }
+        }
+        return completed;
+    }
+}
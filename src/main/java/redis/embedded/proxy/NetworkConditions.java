@@ -0,0 +1,111 @@
+package redis.embedded.proxy;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Network behaviour applied by {@link RedisProxy}. Every setting can be changed while proxies are running and
+ * affects data they read from then on; one instance may be shared by several proxies.
+ */
+public class NetworkConditions {
+    private volatile long latencyNanos;
+    private volatile long jitterNanos;
+    private volatile long bandwidthBytesPerSecond;
+    private volatile long stalledUntilNanos = System.nanoTime();
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<Runnable>();
+
+    /**
+     * One-way delay added to all data in both directions, so a round trip takes twice as long.
+     */
+    public NetworkConditions latency(long latency, TimeUnit unit) {
+        this.latencyNanos = checkNotNegative(unit.toNanos(latency));
+        changed();
+        return this;
+    }
+
+    /**
+     * Random extra delay between 0 and the given maximum per chunk of data. Ordering is preserved.
+     */
+    public NetworkConditions jitter(long maxJitter, TimeUnit unit) {
+        this.jitterNanos = checkNotNegative(unit.toNanos(maxJitter));
+        changed();
+        return this;
+    }
+
+    /**
+     * Caps the throughput of each direction of each connection; {@code 0} removes the cap.
+     */
+    public NetworkConditions bandwidth(long bytesPerSecond) {
+        this.bandwidthBytesPerSecond = checkNotNegative(bytesPerSecond);
+        changed();
+        return this;
+    }
+
+    /**
+     * Holds back all data, in both directions, for the given time from now. Connections stay open.
+     */
+    public NetworkConditions stall(long duration, TimeUnit unit) {
+        this.stalledUntilNanos = System.nanoTime() + checkNotNegative(unit.toNanos(duration));
+        changed();
+        return this;
+    }
+
+    /**
+     * Back to plain loopback: no latency, jitter, bandwidth cap or stall.
+     */
+    public NetworkConditions clear() {
+        this.latencyNanos = 0;
+        this.jitterNanos = 0;
+        this.bandwidthBytesPerSecond = 0;
+        this.stalledUntilNanos = System.nanoTime();
+        changed();
+        return this;
+    }
+
+    public long latency(TimeUnit unit) {
+        return unit.convert(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long jitter(TimeUnit unit) {
+        return unit.convert(jitterNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long bandwidth() {
+        return bandwidthBytesPerSecond;
+    }
+
+    long latencyNanos() {
+        return latencyNanos;
+    }
+
+    long jitterNanos() {
+        return jitterNanos;
+    }
+
+    long stalledUntilNanos() {
+        return stalledUntilNanos;
+    }
+
+    void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    private void changed() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    private static long checkNotNegative(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must not be negative: " + value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,140 @@
+package redis.embedded.proxy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One direction of a proxied connection. Data read from the source is queued with the time it may be
+ * written to the sink, derived from the {@link NetworkConditions} at the time it was read.
+ */
+class Pipe {
+    static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    // stop reading from the source while this much is waiting, so a slow link pushes back on the writer
+    private static final long MAX_QUEUED_BYTES = 1024L * 1024L;
+
+    private final SocketChannel source;
+    private final SocketChannel sink;
+    private final NetworkConditions conditions;
+    private final AtomicLong bytes;
+    private final CommandCounter commandCounter;
+    private final AtomicLong commands;
+
+    private final Queue<Chunk> queue = new ArrayDeque<Chunk>();
+    private long queuedBytes;
+    private long lastSentNanos;
+    private long lastReleaseNanos;
+    private boolean sourceClosed;
+    private boolean sinkClosed;
+    private boolean sinkBlocked;
+
+    Pipe(SocketChannel source, SocketChannel sink, NetworkConditions conditions, AtomicLong bytes,
+         CommandCounter commandCounter, AtomicLong commands) {
+        this.source = source;
+        this.sink = sink;
+        this.conditions = conditions;
+        this.bytes = bytes;
+        this.commandCounter = commandCounter;
+        this.commands = commands;
+        this.lastSentNanos = System.nanoTime();
+        this.lastReleaseNanos = lastSentNanos;
+    }
+
+    void read(ByteBuffer buffer, long now, Random random) throws IOException {
+        buffer.clear();
+        final int read = source.read(buffer);
+        if (read < 0) {
+            sourceClosed = true;
+            return;
+        }
+        if (read == 0) {
+            return;
+        }
+        final byte[] data = new byte[read];
+        buffer.flip();
+        buffer.get(data);
+        bytes.addAndGet(read);
+        if (commandCounter != null) {
+            commands.addAndGet(commandCounter.accept(data, 0, read));
+        }
+        queue.add(new Chunk(ByteBuffer.wrap(data), releaseTime(read, now, random)));
+        queuedBytes += read;
+    }
+
+    // data is serialized at the configured bandwidth, then travels for latency plus jitter, and never
+    // overtakes data read before it
+    private long releaseTime(int length, long now, Random random) {
+        long sent = now;
+        final long bandwidth = conditions.bandwidth();
+        if (bandwidth > 0) {
+            sent = later(now, lastSentNanos) + length * TimeUnit.SECONDS.toNanos(1) / bandwidth;
+            lastSentNanos = sent;
+        }
+        final long jitter = conditions.jitterNanos();
+        final long delay = conditions.latencyNanos() + (jitter > 0 ? (long) (random.nextDouble() * jitter) : 0L);
+        final long release = sent + delay;
+        lastReleaseNanos = later(release, lastReleaseNanos);
+        return lastReleaseNanos;
+    }
+
+    /**
+     * Writes every chunk which is due.
+     *
+     * @return time the next queued chunk becomes due, or {@link #NO_DEADLINE} when nothing waits for time
+     */
+    long flush(long now) throws IOException {
+        final long stalledUntil = conditions.stalledUntilNanos();
+        while (!queue.isEmpty()) {
+            final Chunk head = queue.peek();
+            final long due = later(head.releaseNanos, stalledUntil);
+            if (due - now > 0) {
+                sinkBlocked = false;
+                return due;
+            }
+            queuedBytes -= sink.write(head.data);
+            if (head.data.hasRemaining()) {
+                sinkBlocked = true;
+                return NO_DEADLINE;
+            }
+            queue.poll();
+        }
+        sinkBlocked = false;
+        if (sourceClosed && !sinkClosed) {
+            sink.socket().shutdownOutput();
+            sinkClosed = true;
+        }
+        return NO_DEADLINE;
+    }
+
+    boolean wantsRead() {
+        return !sourceClosed && queuedBytes < MAX_QUEUED_BYTES;
+    }
+
+    boolean wantsWrite() {
+        return sinkBlocked;
+    }
+
+    boolean isDone() {
+        return sinkClosed;
+    }
+
+    static long later(long first, long second) {
+        return first - second > 0 ? first : second;
+    }
+
+    private static class Chunk {
+        private final ByteBuffer data;
+        private final long releaseNanos;
+
+        private Chunk(ByteBuffer data, long releaseNanos) {
+            this.data = data;
+            this.releaseNanos = releaseNanos;
+        }
+    }
+}
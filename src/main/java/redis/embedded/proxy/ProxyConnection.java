@@ -0,0 +1,103 @@
+package redis.embedded.proxy;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Random;
+
+/**
+ * A client connection and its connection to the proxied instance, with a {@link Pipe} for each direction.
+ * The connection to the instance is established without blocking; the client is not read from until it completes.
+ */
+class ProxyConnection {
+    private final SocketChannel client;
+    private final SocketChannel server;
+    private final Pipe upstream;
+    private final Pipe downstream;
+    private SelectionKey clientKey;
+    private SelectionKey serverKey;
+    private boolean connected;
+
+    ProxyConnection(SocketChannel client, SocketChannel server, Pipe upstream, Pipe downstream) {
+        this.client = client;
+        this.server = server;
+        this.upstream = upstream;
+        this.downstream = downstream;
+    }
+
+    void register(Selector selector) throws IOException {
+        connected = !server.isConnectionPending();
+        clientKey = client.register(selector, connected ? SelectionKey.OP_READ : 0, this);
+        serverKey = server.register(selector, connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, this);
+    }
+
+    /**
+     * Completes the connection to the proxied instance once the selector reports it connectable.
+     */
+    void finishConnect() throws IOException {
+        if (server.finishConnect()) {
+            connected = true;
+            updateInterest();
+        }
+    }
+
+    void read(SelectionKey key, ByteBuffer buffer, long now, Random random) throws IOException {
+        if (key == clientKey) {
+            upstream.read(buffer, now, random);
+        } else {
+            downstream.read(buffer, now, random);
+        }
+    }
+
+    /**
+     * @return earliest time queued data becomes due, or {@link Pipe#NO_DEADLINE}
+     */
+    long flush(long now) throws IOException {
+        final long upstreamDue = upstream.flush(now);
+        final long downstreamDue = downstream.flush(now);
+        if (upstreamDue == Pipe.NO_DEADLINE) {
+            return downstreamDue;
+        }
+        if (downstreamDue == Pipe.NO_DEADLINE) {
+            return upstreamDue;
+        }
+        return upstreamDue - downstreamDue < 0 ? upstreamDue : downstreamDue;
+    }
+
+    void updateInterest() {
+        if (!connected) {
+            return;
+        }
+        clientKey.interestOps((upstream.wantsRead() ? SelectionKey.OP_READ : 0)
+                | (downstream.wantsWrite() ? SelectionKey.OP_WRITE : 0));
+        serverKey.interestOps((downstream.wantsRead() ? SelectionKey.OP_READ : 0)
+                | (upstream.wantsWrite() ? SelectionKey.OP_WRITE : 0));
+    }
+
+    boolean isDone() {
+        return upstream.isDone() && downstream.isDone();
+    }
+
+    /**
+     * @param reset whether to abort both sides with a TCP reset instead of an orderly close
+     */
+    void close(boolean reset) {
+        close(client, reset);
+        close(server, reset);
+    }
+
+    private static void close(SocketChannel channel, boolean reset) {
+        try {
+            if (reset) {
+                final Socket socket = channel.socket();
+                socket.setSoLinger(true, 0);
+            }
+            channel.close();
+        } catch (IOException e) {
+            // already gone
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package redis.embedded.proxy;
+
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TCP proxy in front of a local port which applies {@link NetworkConditions} to all traffic and counts bytes
+ * and commands. All connections are served by a single selector thread.
+ */
+public class RedisProxy {
+    private static final String LOCALHOST = "127.0.0.1";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long STOP_TIMEOUT_MILLIS = 5000L;
+
+    private final NetworkConditions conditions;
+    private final int listenPort;
+
+    private final AtomicLong bytesToServer = new AtomicLong();
+    private final AtomicLong bytesToClient = new AtomicLong();
+    private final AtomicLong commands = new AtomicLong();
+    private final AtomicLong acceptedConnections = new AtomicLong();
+    private final AtomicBoolean resetRequested = new AtomicBoolean();
+    private final Set<ProxyConnection> connections = new HashSet<ProxyConnection>();
+    private volatile int openConnections;
+
+    private final Runnable wakeup = new Runnable() {
+        @Override
+        public void run() {
+            final Selector current = selector;
+            if (current != null) {
+                current.wakeup();
+            }
+        }
+    };
+
+    private volatile Selector selector;
+    private volatile boolean running;
+    private ServerSocketChannel serverChannel;
+    private Thread thread;
+    private int targetPort;
+    private int port;
+
+    public RedisProxy(NetworkConditions conditions) {
+        this(conditions, 0);
+    }
+
+    /**
+     * @param listenPort port to accept clients on, {@code 0} for an ephemeral one
+     */
+    public RedisProxy(NetworkConditions conditions, int listenPort) {
+        this.conditions = conditions;
+        this.listenPort = listenPort;
+    }
+
+    /**
+     * Starts accepting clients and forwarding them to the given port on localhost.
+     */
+    public synchronized void start(int targetPort) throws IOException {
+        if (running) {
+            throw new EmbeddedRedisException("Proxy is already running on port " + port);
+        }
+        this.targetPort = targetPort;
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.socket().setReuseAddress(true);
+            serverChannel.socket().bind(new InetSocketAddress(LOCALHOST, listenPort));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            serverChannel.close();
+            selector.close();
+            throw e;
+        }
+        port = serverChannel.socket().getLocalPort();
+        running = true;
+        conditions.addListener(wakeup);
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                serve();
+            }
+        }, "embedded-redis-proxy-" + port);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        conditions.removeListener(wakeup);
+        selector.wakeup();
+        try {
+            thread.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            // nothing left to release
+        }
+    }
+
+    public boolean isActive() {
+        return running;
+    }
+
+    /**
+     * Port clients connect to; the listen port given on construction, or the ephemeral one picked on start.
+     */
+    public int port() {
+        return port;
+    }
+
+    public int targetPort() {
+        return targetPort;
+    }
+
+    public NetworkConditions conditions() {
+        return conditions;
+    }
+
+    /**
+     * Aborts every open connection with a TCP reset, as a crashing middlebox would. New connections are
+     * accepted as usual.
+     */
+    public void resetConnections() {
+        resetRequested.set(true);
+        wakeup.run();
+    }
+
+    public long bytesToServer() {
+        return bytesToServer.get();
+    }
+
+    public long bytesToClient() {
+        return bytesToClient.get();
+    }
+
+    /**
+     * Number of commands clients sent through the proxy.
+     */
+    public long commands() {
+        return commands.get();
+    }
+
+    public long acceptedConnections() {
+        return acceptedConnections.get();
+    }
+
+    public int openConnections() {
+        return openConnections;
+    }
+
+    public void resetCounters() {
+        bytesToServer.set(0);
+        bytesToClient.set(0);
+        commands.set(0);
+        acceptedConnections.set(0);
+    }
+
+    private void serve() {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        final Random random = new Random();
+        try {
+            while (running) {
+                if (resetRequested.getAndSet(false)) {
+                    closeAll(true);
+                }
+                final long next = flushAll(System.nanoTime());
+                selector.select(selectTimeoutMillis(next, System.nanoTime()));
+                final long now = System.nanoTime();
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    final ProxyConnection connection = (ProxyConnection) key.attachment();
+                    try {
+                        if (key.isConnectable()) {
+                            connection.finishConnect();
+                        } else if (key.isReadable()) {
+                            connection.read(key, buffer, now, random);
+                        }
+                    } catch (IOException e) {
+                        connection.close(false);
+                        connections.remove(connection);
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException e) {
+            running = false;
+        } finally {
+            closeAll(false);
+        }
+    }
+
+    private long flushAll(long now) {
+        long next = Pipe.NO_DEADLINE;
+        for (Iterator<ProxyConnection> it = connections.iterator(); it.hasNext(); ) {
+            final ProxyConnection connection = it.next();
+            try {
+                final long due = connection.flush(now);
+                if (connection.isDone()) {
+                    connection.close(false);
+                    it.remove();
+                    continue;
+                }
+                connection.updateInterest();
+                if (due != Pipe.NO_DEADLINE && (next == Pipe.NO_DEADLINE || due - next < 0)) {
+                    next = due;
+                }
+            } catch (IOException e) {
+                connection.close(false);
+                it.remove();
+            }
+        }
+        openConnections = connections.size();
+        return next;
+    }
+
+    // select(0) blocks until an event; anything due sooner than a millisecond still waits one
+    private static long selectTimeoutMillis(long next, long now) {
+        if (next == Pipe.NO_DEADLINE) {
+            return 0L;
+        }
+        return Math.max(1L, TimeUnit.NANOSECONDS.toMillis(next - now + TimeUnit.MILLISECONDS.toNanos(1) - 1));
+    }
+
+    private void accept() throws IOException {
+        final SocketChannel client = serverChannel.accept();
+        if (client == null) {
+            return;
+        }
+        SocketChannel server = null;
+        try {
+            server = SocketChannel.open();
+            for (SocketChannel channel : new SocketChannel[]{client, server}) {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+            }
+            server.connect(new InetSocketAddress(LOCALHOST, targetPort));
+            final ProxyConnection connection = new ProxyConnection(client, server,
+                    new Pipe(client, server, conditions, bytesToServer, new CommandCounter(), commands),
+                    new Pipe(server, client, conditions, bytesToClient, null, null));
+            connection.register(selector);
+            connections.add(connection);
+            acceptedConnections.incrementAndGet();
+        } catch (IOException e) {
+            // only this client is affected; the proxy keeps serving the others
+            close(client);
+            close(server);
+        }
+    }
+
+    private static void close(SocketChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // already gone
+        }
+    }
+
+    private void closeAll(boolean reset) {
+        for (ProxyConnection connection : connections) {
+            connection.close(reset);
+        }
+        connections.clear();
+        openConnections = 0;
+    }
+}
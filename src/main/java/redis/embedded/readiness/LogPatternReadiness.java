@@ -0,0 +1,31 @@
+package redis.embedded.readiness;
+
+import redis.embedded.InstanceLog;
+import redis.embedded.ReadinessStrategy;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Waits for the instance specific "ready" banner in the output of the process.
+ */
+public class LogPatternReadiness implements ReadinessStrategy {
+
+    @Override
+    public void awaitReady(Process redisProcess, InstanceLog log, int port, Pattern readyPattern, long timeoutMillis) {
+        try {
+            if (log.awaitLine(readyPattern, timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddedRedisException("Interrupted while waiting for redis instance", e);
+        }
+        if (log.isClosed()) {
+            //Something goes wrong. Stream is ended before server was activated.
+            throw new EmbeddedRedisException("Can't start redis server. Check logs for details.");
+        }
+        throw new EmbeddedRedisException("Redis instance did not become ready within " + timeoutMillis + " ms");
+    }
+}
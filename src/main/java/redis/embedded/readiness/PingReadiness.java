@@ -0,0 +1,93 @@
+package redis.embedded.readiness;
+
+import redis.embedded.ControlConnection;
+import redis.embedded.InstanceLog;
+import redis.embedded.ReadinessStrategy;
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.util.InfoUtil;
+import redis.embedded.util.ProcessUtil;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Actively probes the instance port with a RESP {@code PING}, polling with exponential backoff,
+ * so readiness does not depend on the log format of a particular redis version. Instances that
+ * do not listen on TCP fall back to {@link LogPatternReadiness}. A {@code PONG} only counts once
+ * {@code INFO server} reports the id of the started process, so a foreign server already bound to
+ * the port is never mistaken for the new instance.
+ */
+public class PingReadiness implements ReadinessStrategy {
+    private static final String LOCALHOST = "127.0.0.1";
+    private static final String PROCESS_ID_FIELD = "process_id";
+
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final ReadinessStrategy fallback = new LogPatternReadiness();
+
+    public PingReadiness() {
+        this(2L, 100L);
+    }
+
+    public PingReadiness(long initialBackoffMillis, long maxBackoffMillis) {
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    @Override
+    public void awaitReady(Process redisProcess, InstanceLog log, int port, Pattern readyPattern, long timeoutMillis) {
+        if (port <= 0) {
+            fallback.awaitReady(redisProcess, log, port, readyPattern, timeoutMillis);
+            return;
+        }
+
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long backoff = initialBackoffMillis;
+        try {
+            while (!ping(redisProcess, port, backoff)) {
+                if (ProcessUtil.hasExited(redisProcess)) {
+                    throw new EmbeddedRedisException("Can't start redis server. Check logs for details.");
+                }
+                final long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    throw new EmbeddedRedisException("Redis instance did not become ready within " + timeoutMillis + " ms");
+                }
+                TimeUnit.MILLISECONDS.sleep(Math.min(backoff, remaining));
+                backoff = Math.min(backoff * 2, maxBackoffMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddedRedisException("Interrupted while waiting for redis instance", e);
+        }
+    }
+
+    // Anything but +PONG (e.g. -LOADING while a dataset is being loaded) means not ready yet.
+    private boolean ping(Process redisProcess, int port, long timeoutMillis) {
+        ControlConnection connection = null;
+        try {
+            connection = new ControlConnection(LOCALHOST, port, (int) Math.max(timeoutMillis, 50L));
+            return "PONG".equals(connection.execute("PING")) && isServedBy(redisProcess, connection);
+        } catch (IOException e) {
+            return false;
+        } catch (EmbeddedRedisException e) {
+            return false;
+        } finally {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+
+    private boolean isServedBy(Process redisProcess, ControlConnection connection) throws IOException {
+        final long pid = ProcessUtil.pid(redisProcess);
+        if (pid <= 0) {
+            return !ProcessUtil.hasExited(redisProcess);
+        }
+        final String processId = InfoUtil.field(connection.executeForString("INFO", "server"), PROCESS_ID_FIELD);
+        if (processId != null) {
+            return Long.parseLong(processId) == pid;
+        }
+        return !ProcessUtil.hasExited(redisProcess);
+    }
+}
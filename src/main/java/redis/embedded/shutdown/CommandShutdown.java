@@ -0,0 +1,66 @@
+package redis.embedded.shutdown;
+
+import redis.embedded.ControlConnection;
+import redis.embedded.ShutdownStrategy;
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.util.ProcessUtil;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends {@code SHUTDOWN NOSAVE} (or {@code SHUTDOWN SAVE}) over the wire, so the instance exits without
+ * dumping its dataset, and escalates to {@code SIGTERM} and then {@code SIGKILL} when the process has not
+ * exited within the timeout. Instances that do not listen on TCP go straight to the signals.
+ */
+public class CommandShutdown implements ShutdownStrategy {
+    private static final String LOCALHOST = "127.0.0.1";
+
+    private final boolean save;
+    private final ShutdownStrategy fallback = new SignalShutdown();
+
+    private CommandShutdown(boolean save) {
+        this.save = save;
+    }
+
+    public static CommandShutdown noSave() {
+        return new CommandShutdown(false);
+    }
+
+    public static CommandShutdown save() {
+        return new CommandShutdown(true);
+    }
+
+    @Override
+    public void shutdown(Process redisProcess, int port, long timeoutMillis) {
+        if (port > 0 && sendShutdown(port, timeoutMillis)) {
+            try {
+                if (ProcessUtil.waitFor(redisProcess, timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EmbeddedRedisException("Failed to stop redis instance", e);
+            }
+        }
+        fallback.shutdown(redisProcess, port, timeoutMillis);
+    }
+
+    // redis closes the connection instead of replying when SHUTDOWN succeeds
+    private boolean sendShutdown(int port, long timeoutMillis) {
+        ControlConnection connection = null;
+        try {
+            connection = new ControlConnection(LOCALHOST, port, (int) Math.min(timeoutMillis, Integer.MAX_VALUE));
+            connection.execute("SHUTDOWN", save ? "SAVE" : "NOSAVE");
+            return false;
+        } catch (IOException e) {
+            return connection != null;
+        } catch (EmbeddedRedisException e) {
+            return false;
+        } finally {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package redis.embedded.shutdown;
+
+import redis.embedded.ShutdownStrategy;
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.util.ProcessUtil;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends {@code SIGTERM} and escalates to {@code SIGKILL} when the process has not exited within the timeout.
+ * Depending on its configuration, redis saves its dataset on {@code SIGTERM}.
+ */
+public class SignalShutdown implements ShutdownStrategy {
+
+    @Override
+    public void shutdown(Process redisProcess, int port, long timeoutMillis) {
+        try {
+            redisProcess.destroy();
+            if (ProcessUtil.waitFor(redisProcess, timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+            ProcessUtil.kill(redisProcess);
+            redisProcess.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddedRedisException("Failed to stop redis instance", e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package redis.embedded.traffic;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Streams the commands of a file written by {@link CaptureWriter}, so captures of any size replay in constant
+ * memory. Timestamps are relative to the first command.
+ */
+class CaptureReader implements Closeable {
+    private final InputStream in;
+    private long micros;
+
+    CaptureReader(File file) throws IOException {
+        in = new BufferedInputStream(new FileInputStream(file), 64 * 1024);
+        final byte[] magic = new byte[CaptureWriter.MAGIC.length];
+        try {
+            IOUtils.readFully(in, magic);
+            if (!Arrays.equals(magic, CaptureWriter.MAGIC) || in.read() != CaptureWriter.VERSION) {
+                throw new IOException("Not a traffic capture: " + file);
+            }
+        } catch (IOException e) {
+            IOUtils.closeQuietly(in);
+            throw e;
+        }
+    }
+
+    /**
+     * @return the next command, or {@code null} at the end of the capture
+     */
+    CapturedCommand next() throws IOException {
+        final int first = in.read();
+        if (first < 0) {
+            return null;
+        }
+        micros += readVarLong(first);
+        final int client = (int) readVarLong(in.read());
+        final int db = (int) readVarLong(in.read());
+        final byte[][] args = new byte[(int) readVarLong(in.read())][];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = new byte[(int) readVarLong(in.read())];
+            IOUtils.readFully(in, args[i]);
+        }
+        return new CapturedCommand(micros, client, db, args);
+    }
+
+    private long readVarLong(int b) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (b < 0) {
+                throw new EOFException("Truncated traffic capture");
+            }
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            b = in.read();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,58 @@
+package redis.embedded.traffic;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the capture format: a {@code ERCAP} magic and version byte, then one record per command made of
+ * unsigned varints for the time since the previous command in micros, the client index, the database and the
+ * argument count, each argument as a varint length followed by its bytes. Clients are numbered in order of
+ * appearance, so a typical command costs its arguments plus about six bytes.
+ */
+class CaptureWriter implements Closeable {
+    static final byte[] MAGIC = {'E', 'R', 'C', 'A', 'P'};
+    static final int VERSION = 1;
+
+    private final OutputStream out;
+    private long previousMicros = -1;
+
+    CaptureWriter(File file) throws IOException {
+        out = new BufferedOutputStream(new FileOutputStream(file), 64 * 1024);
+        out.write(MAGIC);
+        out.write(VERSION);
+    }
+
+    void write(CapturedCommand command) throws IOException {
+        final long delta = previousMicros < 0 ? 0 : Math.max(0, command.timestampMicros - previousMicros);
+        previousMicros = command.timestampMicros;
+        writeVarLong(delta);
+        writeVarLong(command.client);
+        writeVarLong(command.db);
+        writeVarLong(command.args.length);
+        for (byte[] arg : command.args) {
+            writeVarLong(arg.length);
+            out.write(arg);
+        }
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
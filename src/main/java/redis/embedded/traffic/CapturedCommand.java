@@ -0,0 +1,18 @@
+package redis.embedded.traffic;
+
+/**
+ * One command of a capture: when it was executed, by which client, against which database.
+ */
+final class CapturedCommand {
+    final long timestampMicros;
+    final int client;
+    final int db;
+    final byte[][] args;
+
+    CapturedCommand(long timestampMicros, int client, int db, byte[][] args) {
+        this.timestampMicros = timestampMicros;
+        this.client = client;
+        this.db = db;
+        this.args = args;
+    }
+}
@@ -0,0 +1,119 @@
+package redis.embedded.traffic;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One line of {@code MONITOR} output, such as {@code 1339518083.107412 [0 127.0.0.1:60866] "set" "k" "v"}.
+ * Arguments are quoted with C-style escapes and {@code \xHH} for non-printable bytes, which are decoded back
+ * into the exact bytes the client sent.
+ */
+final class MonitorLine {
+    final long timestampMicros;
+    final int db;
+    final String client;
+    final byte[][] args;
+
+    private MonitorLine(long timestampMicros, int db, String client, byte[][] args) {
+        this.timestampMicros = timestampMicros;
+        this.db = db;
+        this.client = client;
+        this.args = args;
+    }
+
+    /**
+     * Whether the command was issued by a Lua script. {@code MONITOR} reports these in addition to the
+     * {@code EVAL} or {@code EVALSHA} which ran the script, so replaying both would apply them twice.
+     */
+    boolean isScripted() {
+        return "lua".equals(client);
+    }
+
+    /**
+     * @return the parsed line, or {@code null} for anything which is not a command line
+     */
+    static MonitorLine parse(String line) {
+        final int space = line.indexOf(' ');
+        final int dot = line.indexOf('.');
+        if (space < 0 || dot < 0 || dot > space || !isDigits(line, 0, dot) || !isDigits(line, dot + 1, space)) {
+            return null;
+        }
+        final long seconds = Long.parseLong(line.substring(0, dot));
+        final String fraction = (line.substring(dot + 1, space) + "000000").substring(0, 6);
+        final long micros = seconds * 1000000L + Long.parseLong(fraction);
+
+        int position = space + 1;
+        int db = 0;
+        String client = "";
+        if (position < line.length() && line.charAt(position) == '[') {
+            final int end = line.indexOf(']', position);
+            final int separator = line.indexOf(' ', position);
+            if (end < 0 || separator < 0 || separator > end || !isDigits(line, position + 1, separator)) {
+                return null;
+            }
+            db = Integer.parseInt(line.substring(position + 1, separator));
+            client = line.substring(separator + 1, end);
+            position = end + 2;
+        }
+
+        final List<byte[]> args = new ArrayList<byte[]>();
+        final ByteArrayOutputStream arg = new ByteArrayOutputStream();
+        while (position < line.length()) {
+            if (line.charAt(position) != '"') {
+                return null;
+            }
+            position++;
+            arg.reset();
+            while (position < line.length() && line.charAt(position) != '"') {
+                char c = line.charAt(position++);
+                if (c == '\\' && position < line.length()) {
+                    c = line.charAt(position++);
+                    switch (c) {
+                        case 'n':
+                            arg.write('\n');
+                            break;
+                        case 'r':
+                            arg.write('\r');
+                            break;
+                        case 't':
+                            arg.write('\t');
+                            break;
+                        case 'a':
+                            arg.write(7);
+                            break;
+                        case 'b':
+                            arg.write('\b');
+                            break;
+                        case 'x':
+                            arg.write(Integer.parseInt(line.substring(position, position + 2), 16));
+                            position += 2;
+                            break;
+                        default:
+                            arg.write(c);
+                    }
+                } else {
+                    arg.write(c);
+                }
+            }
+            args.add(arg.toByteArray());
+            position += 2;
+        }
+        if (args.isEmpty()) {
+            return null;
+        }
+        return new MonitorLine(micros, db, client, args.toArray(new byte[args.size()][]));
+    }
+
+    private static boolean isDigits(String line, int from, int to) {
+        if (from >= to) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            if (!Character.isDigit(line.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
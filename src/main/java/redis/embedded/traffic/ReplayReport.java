@@ -0,0 +1,84 @@
+package redis.embedded.traffic;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a {@link TrafficReplayer} run: how many commands were replayed, how fast, and how long each took.
+ */
+public final class ReplayReport {
+    private final long commands;
+    private final long errors;
+    private final long skipped;
+    private final long elapsedNanos;
+    private final long[] sortedLatencyNanos;
+
+    ReplayReport(long commands, long errors, long skipped, long elapsedNanos, long[] sortedLatencyNanos) {
+        this.commands = commands;
+        this.errors = errors;
+        this.skipped = skipped;
+        this.elapsedNanos = elapsedNanos;
+        this.sortedLatencyNanos = sortedLatencyNanos;
+    }
+
+    /**
+     * Number of commands sent, including those which got an error reply.
+     */
+    public long commands() {
+        return commands;
+    }
+
+    /**
+     * Number of commands the target answered with an error, e.g. because it does not support them.
+     */
+    public long errors() {
+        return errors;
+    }
+
+    /**
+     * Number of captured commands which were not replayed because they would break the replay connection,
+     * such as {@code SUBSCRIBE}, {@code MONITOR} or {@code SHUTDOWN}.
+     */
+    public long skipped() {
+        return skipped;
+    }
+
+    public long elapsed(TimeUnit unit) {
+        return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Commands per second over the whole replay.
+     */
+    public double throughput() {
+        return elapsedNanos == 0 ? 0 : commands * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Latency below which the given percentage of commands completed, e.g. {@code latency(99.9, MICROSECONDS)}.
+     * For timed replays latency counts from when a command was due, so time spent queued behind a slow command
+     * is included rather than hidden.
+     */
+    public long latency(double percentile, TimeUnit unit) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        if (sortedLatencyNanos.length == 0) {
+            return 0;
+        }
+        final int rank = (int) Math.ceil(percentile / 100 * sortedLatencyNanos.length);
+        return unit.convert(sortedLatencyNanos[Math.max(0, rank - 1)], TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "ReplayReport{commands=" + commands
+                + ", errors=" + errors
+                + ", skipped=" + skipped
+                + ", elapsed=" + elapsed(TimeUnit.MILLISECONDS) + "ms"
+                + ", throughput=" + Math.round(throughput()) + "/s"
+                + ", p50=" + latency(50, TimeUnit.MICROSECONDS) + "us"
+                + ", p99=" + latency(99, TimeUnit.MICROSECONDS) + "us"
+                + ", p99.9=" + latency(99.9, TimeUnit.MICROSECONDS) + "us"
+                + ", max=" + latency(100, TimeUnit.MICROSECONDS) + "us}";
+    }
+}
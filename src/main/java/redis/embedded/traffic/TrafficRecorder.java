@@ -0,0 +1,199 @@
+package redis.embedded.traffic;
+
+import com.google.common.base.Charsets;
+import redis.embedded.ControlConnection;
+import redis.embedded.Redis;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records every command a running instance executes, through {@code MONITOR}, into a compact capture file
+ * which {@link TrafficReplayer} can play back against any {@link Redis}.
+ * <p>
+ * {@code MONITOR} costs the instance noticeable throughput, so benchmark the replay, not the recorded run.
+ */
+public class TrafficRecorder implements Closeable {
+    private static final String LOCALHOST = "127.0.0.1";
+    private static final long STOP_TIMEOUT_MILLIS = 5000L;
+    private static final String MARKER_PREFIX = "embedded-redis-recorder-stop-";
+
+    private final int port;
+    private final File file;
+    private final AtomicLong recordedCommands = new AtomicLong();
+    private final Map<String, Integer> clients = new HashMap<String, Integer>();
+
+    private ControlConnection monitor;
+    private CaptureWriter writer;
+    private Thread thread;
+    private CountDownLatch stopped;
+    private volatile byte[] marker;
+    private volatile IOException failure;
+
+    public TrafficRecorder(int port, File file) {
+        this.port = port;
+        this.file = file;
+    }
+
+    /**
+     * Starts recording the first port of the given instance.
+     */
+    public static TrafficRecorder attach(Redis redis, File file) throws IOException {
+        final TrafficRecorder recorder = new TrafficRecorder(redis.ports().get(0), file);
+        recorder.start();
+        return recorder;
+    }
+
+    public synchronized void start() throws IOException {
+        if (thread != null) {
+            throw new EmbeddedRedisException("Recorder is already attached to port " + port);
+        }
+        writer = new CaptureWriter(file);
+        try {
+            // no read timeout: an idle instance produces no output at all
+            monitor = new ControlConnection(LOCALHOST, port, 0);
+            monitor.execute("MONITOR");
+        } catch (IOException e) {
+            closeMonitor();
+            closeWriter();
+            throw e;
+        }
+        recordedCommands.set(0);
+        clients.clear();
+        marker = null;
+        failure = null;
+        stopped = new CountDownLatch(1);
+        final ControlConnection connection = monitor;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                record(connection);
+            }
+        }, "embedded-redis-recorder-" + port);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops recording once every command the instance executed before this call has been written, and
+     * closes the capture file.
+     *
+     * @return number of recorded commands
+     */
+    public synchronized long stop() throws IOException {
+        if (thread == null) {
+            return recordedCommands.get();
+        }
+        // a command sent after all others shows up in the stream after them, so seeing it means nothing is lost
+        final String token = MARKER_PREFIX + System.nanoTime();
+        marker = token.getBytes(Charsets.UTF_8);
+        try {
+            final ControlConnection connection = new ControlConnection(port);
+            try {
+                connection.execute("ECHO", token);
+            } finally {
+                connection.close();
+            }
+            stopped.await(STOP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeMonitor();
+            try {
+                thread.join(STOP_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+            closeWriter();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return recordedCommands.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        stop();
+    }
+
+    public boolean isRecording() {
+        return thread != null;
+    }
+
+    public long recordedCommands() {
+        return recordedCommands.get();
+    }
+
+    public File file() {
+        return file;
+    }
+
+    private void record(ControlConnection connection) {
+        try {
+            while (true) {
+                final Object reply = connection.receive();
+                if (!(reply instanceof String)) {
+                    continue;
+                }
+                final MonitorLine line = MonitorLine.parse((String) reply);
+                if (line == null || line.isScripted()) {
+                    continue;
+                }
+                if (isMarker(line)) {
+                    break;
+                }
+                writer.write(new CapturedCommand(line.timestampMicros, client(line.client), line.db, line.args));
+                recordedCommands.incrementAndGet();
+            }
+            writer.flush();
+        } catch (IOException e) {
+            // the monitor connection is closed when stop() gives up waiting for the marker
+            if (marker == null) {
+                failure = e;
+            }
+        } finally {
+            stopped.countDown();
+        }
+    }
+
+    private boolean isMarker(MonitorLine line) {
+        final byte[] expected = marker;
+        return expected != null && line.args.length == 2 && Arrays.equals(line.args[1], expected);
+    }
+
+    private int client(String address) {
+        Integer index = clients.get(address);
+        if (index == null) {
+            index = clients.size();
+            clients.put(address, index);
+        }
+        return index;
+    }
+
+    private void closeMonitor() {
+        if (monitor != null) {
+            monitor.close();
+            monitor = null;
+        }
+    }
+
+    private void closeWriter() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package redis.embedded.traffic;
+
+import com.google.common.base.Charsets;
+import redis.embedded.ControlConnection;
+import redis.embedded.Redis;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays a capture written by {@link TrafficRecorder} back against an instance, at the recorded pace, scaled
+ * by a factor, or as fast as the target answers.
+ * <p>
+ * Commands are spread over the given number of connections by recorded client, so each client's commands stay
+ * in order and on one connection, and run in the database they were recorded in.
+ * <pre>
+ * ReplayReport report = new TrafficReplayer(capture).speed(4).concurrency(8).replay(redisServer);
+ * report.latency(99, TimeUnit.MICROSECONDS);
+ * </pre>
+ */
+public class TrafficReplayer {
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final Set<String> SKIPPED = new HashSet<String>(Arrays.asList(
+            "SELECT", "MONITOR", "SUBSCRIBE", "PSUBSCRIBE", "UNSUBSCRIBE", "PUNSUBSCRIBE", "QUIT", "SHUTDOWN",
+            "SYNC", "PSYNC", "REPLCONF", "SLAVEOF", "DEBUG", "BLPOP", "BRPOP", "BRPOPLPUSH"));
+
+    private final File capture;
+    private double speed = 1.0;
+    private int concurrency = 1;
+
+    public TrafficReplayer(File capture) {
+        this.capture = capture;
+    }
+
+    /**
+     * Replays faster ({@code > 1}) or slower ({@code < 1}) than recorded; {@code 1} keeps the recorded pace.
+     */
+    public TrafficReplayer speed(double factor) {
+        if (factor <= 0) {
+            throw new IllegalArgumentException("Speed factor must be positive: " + factor);
+        }
+        this.speed = factor;
+        return this;
+    }
+
+    /**
+     * Sends every command as soon as its connection is free, ignoring recorded timing.
+     */
+    public TrafficReplayer maxSpeed() {
+        this.speed = Double.POSITIVE_INFINITY;
+        return this;
+    }
+
+    public TrafficReplayer concurrency(int connections) {
+        if (connections < 1) {
+            throw new IllegalArgumentException("Replay needs at least one connection: " + connections);
+        }
+        this.concurrency = connections;
+        return this;
+    }
+
+    /**
+     * Replays against the first port of the given instance.
+     */
+    public ReplayReport replay(Redis target) throws IOException {
+        return replay(target.ports().get(0));
+    }
+
+    public ReplayReport replay(int port) throws IOException {
+        final List<Worker> workers = new ArrayList<Worker>(concurrency);
+        final List<Thread> threads = new ArrayList<Thread>(concurrency);
+        final CaptureReader reader = new CaptureReader(capture);
+        long skipped = 0;
+        final long started;
+        try {
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(new Worker(new ControlConnection(port)));
+            }
+            for (int i = 0; i < concurrency; i++) {
+                final Thread thread = new Thread(workers.get(i), "embedded-redis-replay-" + i);
+                thread.setDaemon(true);
+                thread.start();
+                threads.add(thread);
+            }
+            started = System.nanoTime();
+            CapturedCommand command;
+            while ((command = reader.next()) != null) {
+                if (SKIPPED.contains(new String(command.args[0], Charsets.US_ASCII).toUpperCase())) {
+                    skipped++;
+                    continue;
+                }
+                final long due = Double.isInfinite(speed)
+                        ? 0 : started + (long) (command.timestampMicros * 1000 / speed);
+                for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+                workers.get(command.client % concurrency).submit(new Scheduled(command, due));
+            }
+        } finally {
+            reader.close();
+            for (Worker worker : workers) {
+                worker.submit(Scheduled.END);
+            }
+            for (Thread thread : threads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            for (Worker worker : workers) {
+                worker.connection.close();
+            }
+        }
+        final long elapsed = System.nanoTime() - started;
+        return report(workers, skipped, elapsed);
+    }
+
+    private static ReplayReport report(List<Worker> workers, long skipped, long elapsed) {
+        int total = 0;
+        long errors = 0;
+        for (Worker worker : workers) {
+            if (worker.failure != null) {
+                throw new EmbeddedRedisException("Replay connection failed", worker.failure);
+            }
+            total += worker.count;
+            errors += worker.errors;
+        }
+        final long[] latencies = new long[total];
+        int offset = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            offset += worker.count;
+        }
+        Arrays.sort(latencies);
+        return new ReplayReport(total, errors, skipped, elapsed, latencies);
+    }
+
+    private static final class Scheduled {
+        static final Scheduled END = new Scheduled(null, 0);
+
+        final CapturedCommand command;
+        final long dueNanos;
+
+        Scheduled(CapturedCommand command, long dueNanos) {
+            this.command = command;
+            this.dueNanos = dueNanos;
+        }
+    }
+
+    private static final class Worker implements Runnable {
+        private final BlockingQueue<Scheduled> queue = new ArrayBlockingQueue<Scheduled>(QUEUE_CAPACITY);
+        private final ControlConnection connection;
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+        private int db;
+        private volatile IOException failure;
+
+        Worker(ControlConnection connection) {
+            this.connection = connection;
+        }
+
+        void submit(Scheduled scheduled) {
+            try {
+                queue.put(scheduled);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EmbeddedRedisException("Interrupted while replaying", e);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                final Scheduled scheduled;
+                try {
+                    scheduled = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (scheduled == Scheduled.END) {
+                    return;
+                }
+                // after a failure the queue is still drained so the dispatcher never blocks
+                if (failure == null) {
+                    execute(scheduled);
+                }
+            }
+        }
+
+        private void execute(Scheduled scheduled) {
+            try {
+                if (scheduled.command.db != db) {
+                    connection.execute("SELECT", Integer.toString(scheduled.command.db));
+                    db = scheduled.command.db;
+                }
+                final long sent = System.nanoTime();
+                try {
+                    connection.execute(scheduled.command.args);
+                } catch (EmbeddedRedisException e) {
+                    errors++;
+                }
+                final long done = System.nanoTime();
+                record(done - (scheduled.dueNanos > 0 ? Math.min(scheduled.dueNanos, sent) : sent));
+            } catch (IOException e) {
+                failure = e;
+            } catch (EmbeddedRedisException e) {
+                // SELECT refused, e.g. a cluster node; keep replaying in the current database
+                db = scheduled.command.db;
+            }
+        }
+
+        private void record(long latencyNanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package redis.embedded.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ConfigUtil {
+
+    /**
+     * Turns a {@code redis.conf} line into equivalent command line arguments, e.g. {@code save 900 1}
+     * into {@code --save 900 1}. Quoting follows the config file rules, so {@code save ""} yields an empty
+     * argument. Blank lines and comments yield no arguments.
+     */
+    public static List<String> toArgs(String configLine) {
+        final List<String> tokens = tokenize(configLine.trim());
+        if (tokens.isEmpty() || tokens.get(0).startsWith("#")) {
+            return Collections.emptyList();
+        }
+        tokens.set(0, "--" + tokens.get(0));
+        return tokens;
+    }
+
+    private static List<String> tokenize(String line) {
+        final List<String> tokens = new ArrayList<String>();
+        int i = 0;
+        while (i < line.length()) {
+            final char c = line.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            final StringBuilder token = new StringBuilder();
+            if (c == '"' || c == '\'') {
+                i++;
+                while (i < line.length() && line.charAt(i) != c) {
+                    if (line.charAt(i) == '\\' && i + 1 < line.length()) {
+                        i = c == '"' ? unescape(line, i + 1, token) : unescapeQuote(line, i + 1, token);
+                    } else {
+                        token.append(line.charAt(i++));
+                    }
+                }
+                if (i == line.length()) {
+                    throw new IllegalArgumentException("Unbalanced quotes in configuration line: " + line);
+                }
+                i++;
+            } else {
+                while (i < line.length() && !Character.isWhitespace(line.charAt(i))) {
+                    token.append(line.charAt(i++));
+                }
+            }
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    // the escapes of redis' sdssplitargs inside double quotes; returns the index after the escape
+    private static int unescape(String line, int i, StringBuilder token) {
+        final char c = line.charAt(i);
+        if (c == 'x' && i + 2 < line.length() && isHexDigit(line.charAt(i + 1)) && isHexDigit(line.charAt(i + 2))) {
+            token.append((char) Integer.parseInt(line.substring(i + 1, i + 3), 16));
+            return i + 3;
+        }
+        switch (c) {
+            case 'n':
+                token.append('\n');
+                break;
+            case 'r':
+                token.append('\r');
+                break;
+            case 't':
+                token.append('\t');
+                break;
+            case 'b':
+                token.append('\b');
+                break;
+            case 'a':
+                token.append('\u0007');
+                break;
+            default:
+                token.append(c);
+        }
+        return i + 1;
+    }
+
+    // single quotes only know \'
+    private static int unescapeQuote(String line, int i, StringBuilder token) {
+        if (line.charAt(i) == '\'') {
+            token.append('\'');
+            return i + 1;
+        }
+        token.append('\\');
+        return i;
+    }
+
+    private static boolean isHexDigit(char c) {
+        return Character.digit(c, 16) >= 0;
+    }
+}
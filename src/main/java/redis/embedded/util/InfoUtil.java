@@ -0,0 +1,20 @@
+package redis.embedded.util;
+
+/**
+ * Reads fields of {@code INFO} and {@code CLUSTER INFO} replies, which are {@code name:value} lines.
+ */
+public class InfoUtil {
+
+    /**
+     * @return the trimmed value of the field, or {@code null} when the reply does not contain it
+     */
+    public static String field(String info, String field) {
+        final String prefix = field + ":";
+        for (String line : info.split("\r?\n")) {
+            if (line.startsWith(prefix)) {
+                return line.substring(prefix.length()).trim();
+            }
+        }
+        return null;
+    }
+}
@@ -1,23 +1,155 @@
 package redis.embedded.util;
 
+import com.google.common.hash.Hashing;
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.channels.FileLock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class JarUtil {
+    public static final String CACHE_DIR_PROPERTY = "embedded-redis.cache.dir";
+
+    private static final String LOCK_FILENAME = ".lock";
+    private static final Map<String, Extracted> extracted = new ConcurrentHashMap<String, Extracted>();
 
     public static File extractExecutableFromJar(String executable) throws IOException {
+        return extractExecutableFromJar(executable, OsArchitecture.detect());
+    }
+
+    /**
+     * Extracts the executable into a persistent cache directory keyed by the resource content hash
+     * and the target os/architecture, so the copy is shared by every instance and every JVM on the host.
+     * Falls back to a private temporary copy when the cache directory is not writable.
+     * <p>
+     * Extracted copies are remembered per cache directory and checked before reuse, so a copy deleted or
+     * altered since, e.g. by a tmp cleaner, is extracted again.
+     */
+    public static File extractExecutableFromJar(String executable, OsArchitecture osArch) throws IOException {
+        final File cacheDir = cacheDir();
+        final String key = cacheDir.getAbsolutePath() + "/" + osArch + "/" + executable;
+        Extracted entry = extracted.get(key);
+        if (entry == null || !entry.isValid()) {
+            synchronized (JarUtil.class) {
+                entry = extracted.get(key);
+                if (entry == null || !entry.isValid()) {
+                    entry = extractToCache(executable, osArch, cacheDir);
+                    extracted.put(key, entry);
+                }
+            }
+        }
+        return entry.command;
+    }
+
+    private static Extracted extractToCache(String executable, OsArchitecture osArch, File cacheDir)
+            throws IOException {
+        final URL resource = Resources.getResource(executable);
+        final String hash = Resources.asByteSource(resource).hash(Hashing.sha256()).toString();
+        if (!(cacheDir.isDirectory() || cacheDir.mkdirs()) || !cacheDir.canWrite()) {
+            return new Extracted(extractToTempDir(resource, executable), hash);
+        }
+
+        final File entryDir = new File(cacheDir, hash + "-" + osArch.os() + "-" + osArch.arch());
+        if (!entryDir.isDirectory() && !entryDir.mkdirs()) {
+            return new Extracted(extractToTempDir(resource, executable), hash);
+        }
+
+        final File command = new File(entryDir, new File(executable).getName());
+        if (isUsable(command) && hash.equals(hash(command))) {
+            return new Extracted(command, hash);
+        }
+
+        final RandomAccessFile lockFile = new RandomAccessFile(new File(entryDir, LOCK_FILENAME), "rw");
+        try {
+            final FileLock lock = lockFile.getChannel().lock();
+            try {
+                if (!isUsable(command) || !hash.equals(hash(command))) {
+                    final File partial = File.createTempFile(command.getName(), ".part", entryDir);
+                    FileUtils.copyURLToFile(resource, partial);
+                    partial.setExecutable(true);
+                    if (!partial.renameTo(command)) {
+                        FileUtils.deleteQuietly(command);
+                        Files.move(partial, command);
+                    }
+                }
+            } finally {
+                lock.release();
+            }
+        } finally {
+            IOUtils.closeQuietly(lockFile);
+        }
+        return new Extracted(command, hash);
+    }
+
+    private static boolean isUsable(File command) {
+        return command.isFile() && (command.canExecute() || command.setExecutable(true));
+    }
+
+    private static String hash(File file) throws IOException {
+        return Files.asByteSource(file).hash(Hashing.sha256()).toString();
+    }
+
+    private static File cacheDir() {
+        final String configured = System.getProperty(CACHE_DIR_PROPERTY);
+        if (configured != null) {
+            return new File(configured);
+        }
+        return new File(new File(System.getProperty("user.home"), ".cache"), "embedded-redis");
+    }
+
+    private static File extractToTempDir(URL resource, String executable) throws IOException {
         File tmpDir = Files.createTempDir();
         tmpDir.deleteOnExit();
 
         File command = new File(tmpDir, executable);
-        FileUtils.copyURLToFile(Resources.getResource(executable), command);
+        FileUtils.copyURLToFile(resource, command);
         command.deleteOnExit();
         command.setExecutable(true);
 
         return command;
     }
+
+    /**
+     * An extracted copy with the content hash it was verified against. The hash is only recomputed when the
+     * file's size or modification time changed since.
+     */
+    private static final class Extracted {
+        private final File command;
+        private final String hash;
+        private long length;
+        private long lastModified;
+
+        private Extracted(File command, String hash) {
+            this.command = command;
+            this.hash = hash;
+            this.length = command.length();
+            this.lastModified = command.lastModified();
+        }
+
+        private synchronized boolean isValid() {
+            if (!isUsable(command)) {
+                return false;
+            }
+            if (command.length() == length && command.lastModified() == lastModified) {
+                return true;
+            }
+            try {
+                if (!hash.equals(hash(command))) {
+                    return false;
+                }
+            } catch (IOException e) {
+                return false;
+            }
+            length = command.length();
+            lastModified = command.lastModified();
+            return true;
+        }
+    }
 }
@@ -0,0 +1,45 @@
+package redis.embedded.util;
+
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.util.List;
+
+public class MemoryUtil {
+    private static final String SUN_OS_BEAN = "com.sun.management.OperatingSystemMXBean";
+    private static final String MEMINFO = "/proc/meminfo";
+
+    /**
+     * Physical memory of the host in bytes, or {@code -1} when it cannot be determined.
+     */
+    public static long totalPhysicalMemory() {
+        final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        try {
+            final Method method = Class.forName(SUN_OS_BEAN).getMethod("getTotalPhysicalMemorySize");
+            return ((Number) method.invoke(os)).longValue();
+        } catch (Exception e) {
+            return fromMeminfo();
+        }
+    }
+
+    private static long fromMeminfo() {
+        try {
+            final List<String> lines = Files.readLines(new File(MEMINFO), Charset.forName("US-ASCII"));
+            for (String line : lines) {
+                if (line.startsWith("MemTotal:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (IOException e) {
+            // not on Linux
+        } catch (NumberFormatException e) {
+            // unexpected format
+        }
+        return -1L;
+    }
+}
@@ -13,13 +13,29 @@ public class OsArchitecture {
     public static final OsArchitecture MAC_OS_X_x86 = new OsArchitecture(OS.MAC_OS_X, Architecture.x86);
     public static final OsArchitecture MAC_OS_X_x86_64 = new OsArchitecture(OS.MAC_OS_X, Architecture.x86_64);
 
+    private static volatile OsArchitecture detected;
+
     private final OS os;
     private final Architecture arch;
-    
+
+    /**
+     * Detects the current os/architecture pair. Detection may fork a process, so the result
+     * is computed once and reused for the life of the JVM.
+     */
     public static OsArchitecture detect() {
-        OS os = OSDetector.getOS();
-        Architecture arch = OSDetector.getArchitecture();
-        return new OsArchitecture(os, arch);
+        OsArchitecture result = detected;
+        if (result == null) {
+            synchronized (OsArchitecture.class) {
+                result = detected;
+                if (result == null) {
+                    OS os = OSDetector.getOS();
+                    Architecture arch = OSDetector.getArchitecture();
+                    result = new OsArchitecture(os, arch);
+                    detected = result;
+                }
+            }
+        }
+        return result;
     }
 
     public OsArchitecture(OS os, Architecture arch) {
@@ -55,4 +71,9 @@ public class OsArchitecture {
         result = 31 * result + arch.hashCode();
         return result;
     }
+
+    @Override
+    public String toString() {
+        return os + "_" + arch;
+    }
 }
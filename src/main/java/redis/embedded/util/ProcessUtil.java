@@ -0,0 +1,212 @@
+package redis.embedded.util;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+public class ProcessUtil {
+    private static final long MAX_POLL_INTERVAL_MILLIS = 10L;
+    private static final File PROC = new File("/proc");
+    private static final int STAT_START_TIME_INDEX = 19;
+
+    public static boolean hasExited(Process process) {
+        try {
+            process.exitValue();
+            return true;
+        } catch (IllegalThreadStateException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Waits up to the timeout for the process to exit.
+     *
+     * @return {@code true} when the process has exited
+     */
+    public static boolean waitFor(Process process, long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long pollInterval = 1L;
+        while (!hasExited(process)) {
+            final long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(Math.min(pollInterval, remaining));
+            pollInterval = Math.min(pollInterval * 2, MAX_POLL_INTERVAL_MILLIS);
+        }
+        return true;
+    }
+
+    /**
+     * Operating system id of the process, or {@code -1} when the JVM does not expose it.
+     */
+    public static long pid(Process process) {
+        try {
+            // Java 9+
+            final Method pid = Process.class.getMethod("pid");
+            return ((Number) pid.invoke(process)).longValue();
+        } catch (Exception e) {
+            // fall through to the UNIXProcess field of older JVMs
+        }
+        try {
+            final Field pid = process.getClass().getDeclaredField("pid");
+            pid.setAccessible(true);
+            return ((Number) pid.get(process)).longValue();
+        } catch (Exception e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Kills the process with {@code SIGKILL}, or {@code taskkill /F} on Windows, falling back to
+     * {@link Process#destroy()} when its id is unknown.
+     */
+    public static void kill(Process process) {
+        final long pid = pid(process);
+        if (pid <= 0 || !kill(pid)) {
+            process.destroy();
+        }
+    }
+
+    /**
+     * Kills the process with the given id with {@code SIGKILL}, or {@code taskkill /F} on Windows.
+     *
+     * @return {@code false} when the kill command could not be run or failed, e.g. because no such process exists
+     */
+    public static boolean kill(long pid) {
+        final String[] command = OsArchitecture.detect().os() == OS.WINDOWS
+                ? new String[]{"taskkill", "/F", "/PID", Long.toString(pid)}
+                : new String[]{"kill", "-9", Long.toString(pid)};
+        try {
+            return new ProcessBuilder(command).redirectErrorStream(true).start().waitFor() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Sends the named signal, e.g. {@code STOP} or {@code CONT}, to the process with the given id. Unix only.
+     *
+     * @return {@code false} when the kill command could not be run or failed
+     */
+    public static boolean signal(long pid, String signal) {
+        try {
+            return new ProcessBuilder("kill", "-" + signal, Long.toString(pid))
+                    .redirectErrorStream(true).start().waitFor() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Whether a process with the given id is running. Uses {@code /proc} where available and
+     * {@code kill -0} otherwise; always {@code true} on Windows, where it cannot be told cheaply.
+     */
+    public static boolean isAlive(long pid) {
+        if (OsArchitecture.detect().os() == OS.WINDOWS) {
+            return true;
+        }
+        if (PROC.isDirectory()) {
+            return new File(PROC, Long.toString(pid)).exists();
+        }
+        try {
+            return new ProcessBuilder("kill", "-0", Long.toString(pid))
+                    .redirectErrorStream(true).start().waitFor() == 0;
+        } catch (IOException e) {
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        }
+    }
+
+    /**
+     * Command line of the process with the given id, read from {@code /proc} or, where there is none, from
+     * {@code ps}. {@code null} when it cannot be determined, e.g. on Windows or when no such process exists.
+     */
+    public static String commandLine(long pid) {
+        if (PROC.isDirectory()) {
+            final File cmdline = new File(new File(PROC, Long.toString(pid)), "cmdline");
+            try {
+                return Files.toString(cmdline, Charsets.UTF_8).replace('\0', ' ').trim();
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        if (OsArchitecture.detect().os() == OS.WINDOWS) {
+            return null;
+        }
+        try {
+            final Process ps = new ProcessBuilder("ps", "-o", "command=", "-p", Long.toString(pid))
+                    .redirectErrorStream(true).start();
+            ps.getOutputStream().close();
+            final String output = new String(ByteStreams.toByteArray(ps.getInputStream()), Charsets.UTF_8).trim();
+            return ps.waitFor() == 0 && !output.isEmpty() ? output : null;
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Opaque start time of the process with the given id, read from {@code /proc/<pid>/stat} or, where there
+     * is none, from {@code ps}. Only meaningful for comparing against an earlier value to tell whether the pid
+     * has been reused since. {@code null} when it cannot be determined, e.g. on Windows or when no such process
+     * exists.
+     */
+    public static String startTime(long pid) {
+        if (PROC.isDirectory()) {
+            final File stat = new File(new File(PROC, Long.toString(pid)), "stat");
+            try {
+                // the command name in parentheses may contain spaces; starttime is the 20th field after it
+                final String content = Files.toString(stat, Charsets.UTF_8);
+                final String[] fields = content.substring(content.lastIndexOf(')') + 1).trim().split(" ");
+                return fields.length > STAT_START_TIME_INDEX ? fields[STAT_START_TIME_INDEX] : null;
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        if (OsArchitecture.detect().os() == OS.WINDOWS) {
+            return null;
+        }
+        try {
+            final Process ps = new ProcessBuilder("ps", "-o", "lstart=", "-p", Long.toString(pid))
+                    .redirectErrorStream(true).start();
+            ps.getOutputStream().close();
+            final String output = new String(ByteStreams.toByteArray(ps.getInputStream()), Charsets.UTF_8).trim();
+            return ps.waitFor() == 0 && !output.isEmpty() ? output : null;
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Id of the running JVM, or {@code -1} when it cannot be determined.
+     */
+    public static long currentPid() {
+        final String name = ManagementFactory.getRuntimeMXBean().getName();
+        try {
+            return Long.parseLong(name.substring(0, name.indexOf('@')));
+        } catch (RuntimeException e) {
+            return -1L;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package redis.embedded;
+
+import com.google.common.base.Strings;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ControlConnectionTest {
+    private RedisServer redisServer;
+    private ControlConnection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        redisServer = RedisServer.builder().port(6395).build();
+        redisServer.start();
+        connection = new ControlConnection(6395);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.close();
+        redisServer.stop();
+    }
+
+    @Test
+    public void shouldParseEveryReplyType() throws Exception {
+        //when
+        final Object status = connection.execute("SET", "key", "za\u017c\u00f3\u0142\u0107");
+        final Object bulk = connection.execute("GET", "key");
+        final Object missing = connection.execute("GET", "missing");
+        final Object integer = connection.execute("INCRBY", "counter", "-42");
+        final Object multiBulk = connection.execute("MGET", "key", "missing");
+
+        //then
+        assertEquals("OK", status);
+        assertEquals("za\u017c\u00f3\u0142\u0107", bulk);
+        assertNull(missing);
+        assertEquals(-42L, integer);
+        assertEquals(Arrays.asList("za\u017c\u00f3\u0142\u0107", null), multiBulk);
+    }
+
+    @Test
+    public void shouldReadRepliesLargerThanItsBuffers() throws Exception {
+        //given
+        final String value = Strings.repeat("0123456789", 10000);
+
+        //when
+        connection.execute("SET", "large", value);
+
+        //then
+        assertEquals(value, connection.execute("GET", "large"));
+        assertEquals("PONG", connection.execute("PING"));
+    }
+
+    @Test
+    public void shouldPipelineCommands() throws Exception {
+        //given
+        for (int i = 0; i < 1000; i++) {
+            connection.send("RPUSH", "list", Integer.toString(i));
+        }
+
+        //when
+        final List<Object> replies = connection.sync();
+
+        //then
+        assertEquals(1000, replies.size());
+        assertEquals(1000L, replies.get(999));
+        assertEquals(1000L, connection.execute("LLEN", "list"));
+    }
+
+    @Test
+    public void shouldConsumeAllPipelinedRepliesBeforeReportingAnError() throws Exception {
+        //given
+        connection.send("SET", "key", "value");
+        connection.send("INCR", "key");
+        connection.send("GET", "key");
+
+        //when
+        try {
+            connection.sync();
+            fail("Pipeline should have failed");
+        } catch (EmbeddedRedisException e) {
+            //then
+            assertTrue(e.getMessage().contains("not an integer"));
+        }
+        assertEquals("value", connection.execute("GET", "key"));
+    }
+
+    @Test
+    public void shouldDecodeLinesLargerThanItsBuffersAsUtf8() throws Exception {
+        //given
+        final String command = Strings.repeat("za\u017c\u00f3\u0142\u0107", 2000);
+
+        //when
+        try {
+            connection.execute(command);
+            fail("Unknown command should have failed");
+        } catch (EmbeddedRedisException e) {
+            //then
+            assertTrue(e.getMessage().contains(command));
+        }
+        assertEquals("PONG", connection.execute("PING"));
+    }
+}
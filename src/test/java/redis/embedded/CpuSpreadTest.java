@@ -0,0 +1,52 @@
+package redis.embedded;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class CpuSpreadTest {
+
+    @Test
+    public void shouldKeepReservedCpusForClients() throws Exception {
+        //given
+        CpuSpread spread = new CpuSpread(Arrays.asList(0, 1, 2, 3), 2);
+
+        //when
+        //then
+        assertEquals(Arrays.asList(0, 1), spread.clientCpus());
+        assertEquals(Collections.singletonList(2), spread.next());
+        assertEquals(Collections.singletonList(3), spread.next());
+        assertEquals(Collections.singletonList(2), spread.next());
+    }
+
+    @Test
+    public void shouldShareAllCpusWhenNoneLeftAfterReservation() throws Exception {
+        //given
+        CpuSpread spread = new CpuSpread(Collections.singletonList(0), 1);
+
+        //when
+        //then
+        assertEquals(Collections.singletonList(0), spread.instanceCpus());
+        assertEquals(Collections.singletonList(0), spread.next());
+    }
+
+    @Test
+    public void shouldSpreadOverAllowedCpusOnly() throws Exception {
+        //given
+        CpuSpread spread = new CpuSpread(CpuSpread.parseCpuList("4-6,9\n"), 1);
+
+        //when
+        //then
+        assertEquals(Collections.singletonList(4), spread.clientCpus());
+        assertEquals(Arrays.asList(5, 6, 9), spread.instanceCpus());
+    }
+
+    @Test
+    public void shouldReadAllowedCpus() throws Exception {
+        assertFalse(CpuSpread.allowedCpus().isEmpty());
+    }
+}
@@ -0,0 +1,256 @@
+package redis.embedded;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class InProcessRedisServerTest {
+    private static final int PORT = 6396;
+
+    private InProcessRedisServer redisServer;
+    private Jedis jedis;
+
+    @Before
+    public void setUp() throws Exception {
+        redisServer = RedisServer.builder().port(PORT).buildInProcess();
+        redisServer.start();
+        jedis = new Jedis("localhost", PORT);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        jedis.close();
+        redisServer.stop();
+    }
+
+    @Test
+    public void shouldStartWithoutForkingAndServeStrings() throws Exception {
+        //given
+        final InProcessRedisServer other = new InProcessRedisServer(0);
+
+        //when
+        final long started = System.nanoTime();
+        other.start();
+        final long startupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        try {
+            jedis.set("abc", "1");
+            jedis.mset("def", "2", "ghi", "x");
+
+            //then
+            assertTrue("startup took " + startupMillis + "ms", startupMillis < 1000);
+            assertTrue(other.isActive());
+            assertTrue(other.ports().get(0) > 0);
+            assertEquals("1", jedis.get("abc"));
+            assertEquals(Arrays.asList("1", "2", null), jedis.mget("abc", "def", "xyz"));
+            assertEquals(Long.valueOf(12), jedis.incrBy("abc", 11));
+            assertEquals(Long.valueOf(4), jedis.append("abc", "ab"));
+            assertEquals("2a", jedis.getrange("abc", 1, 2));
+            assertNull(jedis.get("missing"));
+        } finally {
+            other.stop();
+        }
+        assertFalse(other.isActive());
+    }
+
+    @Test
+    public void shouldReplyWithRedisErrors() throws Exception {
+        //given
+        jedis.set("abc", "x");
+
+        //when
+        final String notAnInteger = errorOf(new Runnable() {
+            @Override
+            public void run() {
+                jedis.incr("abc");
+            }
+        });
+        final String wrongType = errorOf(new Runnable() {
+            @Override
+            public void run() {
+                jedis.lpush("abc", "1");
+            }
+        });
+
+        //then
+        assertEquals("ERR value is not an integer or out of range", notAnInteger);
+        assertTrue(wrongType.startsWith("WRONGTYPE"));
+    }
+
+    @Test
+    public void shouldServeHashesListsSetsAndSortedSets() throws Exception {
+        //when
+        jedis.hset("hash", "a", "1");
+        jedis.hincrBy("hash", "b", 5);
+        jedis.rpush("list", "a", "b", "c");
+        jedis.lpush("list", "z");
+        jedis.sadd("set1", "a", "b", "c");
+        jedis.sadd("set2", "b", "c", "d");
+        jedis.zadd("zset", 3, "c");
+        jedis.zadd("zset", 1, "a");
+        jedis.zadd("zset", 2, "b");
+
+        //then
+        assertEquals("5", jedis.hget("hash", "b"));
+        assertEquals(Long.valueOf(2), jedis.hlen("hash"));
+        assertEquals(Arrays.asList("z", "a", "b", "c"), jedis.lrange("list", 0, -1));
+        assertEquals("c", jedis.rpop("list"));
+        assertEquals(new LinkedHashSet<String>(Arrays.asList("b", "c")), jedis.sinter("set1", "set2"));
+        assertEquals(Arrays.asList("a", "b", "c"), Arrays.asList(jedis.zrange("zset", 0, -1).toArray()));
+        assertEquals(Arrays.asList("c", "b"), Arrays.asList(jedis.zrevrangeByScore("zset", "+inf", "(1").toArray()));
+        assertEquals(Long.valueOf(2), jedis.zrank("zset", "c"));
+        assertEquals(Double.valueOf(2.5), jedis.zincrby("zset", 0.5, "b"));
+        assertEquals("list", jedis.type("list"));
+        assertEquals(5, jedis.keys("*").size());
+        assertEquals(2, jedis.keys("set?").size());
+    }
+
+    @Test
+    public void shouldExpireKeys() throws Exception {
+        //given
+        jedis.psetex("short", 50, "1");
+        jedis.set("long", "1");
+        jedis.expire("long", 100);
+
+        //when
+        Thread.sleep(200);
+
+        //then
+        assertFalse(jedis.exists("short"));
+        assertEquals(Long.valueOf(1), jedis.dbSize());
+        assertTrue(jedis.ttl("long") > 90);
+        assertEquals(Long.valueOf(1), jedis.persist("long"));
+        assertEquals(Long.valueOf(-1), jedis.ttl("long"));
+        assertEquals(Long.valueOf(-2), jedis.ttl("short"));
+    }
+
+    @Test
+    public void shouldRunTransactionsAtomically() throws Exception {
+        //given
+        final Transaction transaction = jedis.multi();
+
+        //when
+        transaction.set("abc", "1");
+        transaction.incr("abc");
+        transaction.get("abc");
+        final List<Object> replies = transaction.exec();
+
+        //then
+        assertEquals(3, replies.size());
+        assertEquals("2", jedis.get("abc"));
+    }
+
+    @Test
+    public void shouldDeliverPublishedMessagesToChannelAndPatternSubscribers() throws Exception {
+        //given
+        final CountDownLatch subscribed = new CountDownLatch(2);
+        final CountDownLatch received = new CountDownLatch(2);
+        final List<String> messages = new CopyOnWriteArrayList<String>();
+        final JedisPubSub listener = new JedisPubSub() {
+            @Override
+            public void onMessage(String channel, String message) {
+                messages.add(channel + ":" + message);
+                received.countDown();
+            }
+
+            @Override
+            public void onPMessage(String pattern, String channel, String message) {
+                messages.add(pattern + ":" + channel + ":" + message);
+                received.countDown();
+            }
+
+            @Override
+            public void onSubscribe(String channel, int subscribedChannels) {
+                subscribed.countDown();
+            }
+
+            @Override
+            public void onPSubscribe(String pattern, int subscribedChannels) {
+                subscribed.countDown();
+            }
+
+            @Override
+            public void onUnsubscribe(String channel, int subscribedChannels) {
+            }
+
+            @Override
+            public void onPUnsubscribe(String pattern, int subscribedChannels) {
+            }
+        };
+        final Jedis subscriber = new Jedis("localhost", PORT);
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                subscriber.subscribe(listener, "news");
+            }
+        });
+        thread.start();
+        assertTrue(awaitOne(subscribed));
+        listener.psubscribe("n*");
+        assertTrue(subscribed.await(5, TimeUnit.SECONDS));
+
+        //when
+        final long receivers = jedis.publish("news", "hello");
+
+        //then
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        listener.unsubscribe();
+        listener.punsubscribe();
+        thread.join(5000);
+        subscriber.close();
+        assertEquals(2, receivers);
+        assertTrue(messages.contains("news:hello"));
+        assertTrue(messages.contains("n*:news:hello"));
+    }
+
+    @Test
+    public void shouldRefuseUnknownCommands() throws Exception {
+        //when
+        final String unknown = errorOf(new Runnable() {
+            @Override
+            public void run() {
+                jedis.eval("return 1");
+            }
+        });
+
+        //then
+        assertEquals("ERR unknown command 'EVAL'", unknown);
+        assertEquals("PONG", jedis.ping());
+        assertTrue(jedis.info().contains("embedded_engine:inprocess"));
+    }
+
+    @Test(expected = EmbeddedRedisException.class)
+    public void shouldNotStartOnATakenPort() throws Exception {
+        new InProcessRedisServer(PORT).start();
+    }
+
+    private static boolean awaitOne(CountDownLatch latch) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (latch.getCount() == 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return latch.getCount() < 2;
+    }
+
+    private static String errorOf(Runnable command) {
+        try {
+            command.run();
+        } catch (JedisDataException e) {
+            return e.getMessage();
+        }
+        throw new AssertionError("Command did not fail");
+    }
+}
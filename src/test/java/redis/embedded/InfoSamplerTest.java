@@ -0,0 +1,35 @@
+package redis.embedded;
+
+import org.junit.Test;
+
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class InfoSamplerTest {
+
+    @Test(timeout = 2000L)
+    public void stalledInstanceShouldNotBlockReadersOrStop() throws Exception {
+        //given
+        final ServerSocket stalled = new ServerSocket(0);
+        final InfoSampler sampler = new InfoSampler(1000L, 10);
+        try {
+            sampler.start(stalled.getLocalPort());
+            TimeUnit.MILLISECONDS.sleep(100);
+
+            //when
+            final long begin = System.nanoTime();
+            final InfoSnapshot latest = sampler.latest();
+            sampler.stop();
+            final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+
+            //then
+            assertNull(latest);
+            assertTrue("took " + elapsedMillis + " ms", elapsedMillis < 500);
+        } finally {
+            stalled.close();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package redis.embedded;
+
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import redis.embedded.util.OS;
+import redis.embedded.util.OsArchitecture;
+import redis.embedded.util.ProcessUtil;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class InstanceRegistryTest {
+    private File registryDir;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(OsArchitecture.detect().os() != OS.WINDOWS);
+        registryDir = Files.createTempDir();
+        System.setProperty(InstanceRegistry.REGISTRY_DIR_PROPERTY, registryDir.getAbsolutePath());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        System.clearProperty(InstanceRegistry.REGISTRY_DIR_PROPERTY);
+        if (registryDir != null) {
+            FileUtils.deleteDirectory(registryDir);
+        }
+    }
+
+    @Test
+    public void shouldRecordInstanceWhileItRuns() throws Exception {
+        //given
+        RedisServer redisServer = RedisServer.builder().port(6400).build();
+
+        //when
+        redisServer.start();
+        String[] whileRunning = registryDir.list();
+        redisServer.stop();
+
+        //then
+        assertEquals(1, whileRunning.length);
+        assertEquals(0, registryDir.list().length);
+    }
+
+    @Test
+    public void shouldReapInstancesOfDeadOwners() throws Exception {
+        //given
+        Process owner = new ProcessBuilder("true").start();
+        owner.waitFor();
+        Process orphan = new ProcessBuilder(RedisExecProvider.defaultProvider().get().getAbsolutePath(),
+                "--port", "6401").start();
+        awaitExec(orphan);
+        writeRecord(ProcessUtil.pid(orphan), ProcessUtil.pid(owner));
+
+        try {
+            //when
+            int reaped = InstanceRegistry.reapOrphans();
+
+            //then
+            assertEquals(1, reaped);
+            assertTrue(ProcessUtil.waitFor(orphan, 5, TimeUnit.SECONDS));
+            assertEquals(0, registryDir.list().length);
+        } finally {
+            ProcessUtil.kill(orphan);
+            orphan.waitFor();
+        }
+    }
+
+    @Test
+    public void shouldLeaveInstancesOfLiveOwners() throws Exception {
+        //given
+        Process instance = new ProcessBuilder(RedisExecProvider.defaultProvider().get().getAbsolutePath(),
+                "--port", "6402").start();
+        awaitExec(instance);
+        writeRecord(ProcessUtil.pid(instance), ProcessUtil.currentPid());
+
+        try {
+            //when
+            int reaped = InstanceRegistry.reapOrphans();
+
+            //then
+            assertEquals(0, reaped);
+            assertFalse(ProcessUtil.hasExited(instance));
+            assertEquals(1, registryDir.list().length);
+        } finally {
+            ProcessUtil.kill(instance);
+            instance.waitFor();
+        }
+    }
+
+    @Test
+    public void shouldReapInstancesWhoseOwnerPidWasReused() throws Exception {
+        //given
+        Process orphan = new ProcessBuilder(RedisExecProvider.defaultProvider().get().getAbsolutePath(),
+                "--port", "6403").start();
+        awaitExec(orphan);
+        writeRecord(ProcessUtil.pid(orphan), ProcessUtil.currentPid(), "0");
+
+        try {
+            //when
+            int reaped = InstanceRegistry.reapOrphans();
+
+            //then
+            assertEquals(1, reaped);
+            assertTrue(ProcessUtil.waitFor(orphan, 5, TimeUnit.SECONDS));
+        } finally {
+            ProcessUtil.kill(orphan);
+            orphan.waitFor();
+        }
+    }
+
+    // the reaper only kills processes whose command line names redis, which a just forked child may not do yet
+    private void awaitExec(Process process) throws InterruptedException {
+        final long pid = ProcessUtil.pid(process);
+        for (int i = 0; i < 500; i++) {
+            final String commandLine = ProcessUtil.commandLine(pid);
+            if (commandLine == null || commandLine.contains("redis")) {
+                return;
+            }
+            Thread.sleep(10L);
+        }
+    }
+
+    private void writeRecord(long pid, long ownerPid) throws Exception {
+        writeRecord(pid, ownerPid, ProcessUtil.startTime(ownerPid));
+    }
+
+    private void writeRecord(long pid, long ownerPid, String ownerStartTime) throws Exception {
+        Properties record = new Properties();
+        record.setProperty("pid", Long.toString(pid));
+        record.setProperty("port", "0");
+        record.setProperty("owner.pid", Long.toString(ownerPid));
+        if (ownerStartTime != null) {
+            record.setProperty("owner.start", ownerStartTime);
+        }
+        OutputStream out = new FileOutputStream(new File(registryDir, pid + ".instance"));
+        try {
+            record.store(out, null);
+        } finally {
+            out.close();
+        }
+    }
+}
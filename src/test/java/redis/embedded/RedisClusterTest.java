@@ -1,19 +1,31 @@
 package redis.embedded;
 
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.junit.Before;
 import org.junit.Test;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisSentinelPool;
+import redis.embedded.exceptions.ClusterLifecycleException;
+import redis.embedded.ports.ReservingPortProvider;
 import redis.embedded.util.JedisUtil;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 public class RedisClusterTest {
@@ -71,6 +83,110 @@ public class RedisClusterTest {
         }
     }
 
+    @Test
+    public void startAsyncShouldStartEntireCluster() throws Exception {
+        //given
+        final List<Redis> sentinels = Arrays.asList(sentinel1, sentinel2);
+        final List<Redis> servers = Arrays.asList(master1, master2);
+        instance = new RedisCluster(sentinels, servers);
+
+        //when
+        instance.startAsync(MoreExecutors.directExecutor()).get();
+
+        //then
+        for(Redis s : sentinels) {
+            verify(s).start();
+        }
+        for(Redis s : servers) {
+            verify(s).start();
+        }
+    }
+
+    @Test
+    public void concurrentStartAndStopShouldHandleEntireCluster() throws Exception {
+        //given
+        final List<Redis> sentinels = Arrays.asList(sentinel1, sentinel2);
+        final List<Redis> servers = Arrays.asList(master1, master2);
+        instance = new RedisCluster(sentinels, servers, servers, Collections.<Redis>emptyList(), 4);
+
+        //when
+        instance.start();
+        instance.stop();
+
+        //then
+        for(Redis s : sentinels) {
+            verify(s).start();
+            verify(s).stop();
+        }
+        for(Redis s : servers) {
+            verify(s).start();
+            verify(s).stop();
+        }
+    }
+
+    @Test
+    public void concurrentStartShouldStopStartedNodesWhenOneFails() throws Exception {
+        //given
+        doThrow(new RuntimeException("boom")).when(master2).start();
+        final List<Redis> sentinels = Arrays.asList(sentinel1, sentinel2);
+        final List<Redis> servers = Arrays.asList(master1, master2);
+        instance = new RedisCluster(sentinels, servers, servers, Collections.<Redis>emptyList(), 4);
+
+        //when
+        try {
+            instance.start();
+            fail("Start should have failed");
+        } catch (ClusterLifecycleException e) {
+            //then
+            assertEquals(1, e.getFailures().size());
+        }
+        verify(master1).stop();
+        verify(sentinel1, never()).start();
+        verify(sentinel2, never()).start();
+    }
+
+    @Test
+    public void sequentialStartShouldStopStartedNodesWhenOneFails() throws Exception {
+        //given
+        doThrow(new RuntimeException("boom")).when(master2).start();
+        given(master1.isActive()).willReturn(true);
+        final List<Redis> sentinels = Arrays.asList(sentinel1, sentinel2);
+        final List<Redis> servers = Arrays.asList(master1, master2);
+        instance = new RedisCluster(sentinels, servers);
+
+        //when
+        try {
+            instance.start();
+            fail("Start should have failed");
+        } catch (RuntimeException e) {
+            //then
+            assertEquals("boom", e.getMessage());
+        }
+        verify(master1).stop();
+        verify(sentinel1, never()).start();
+    }
+
+    @Test
+    public void concurrentStopShouldStopRemainingNodesWhenOneFails() throws Exception {
+        //given
+        doThrow(new RuntimeException("boom")).when(sentinel1).stop();
+        final List<Redis> sentinels = Arrays.asList(sentinel1, sentinel2);
+        final List<Redis> servers = Arrays.asList(master1, master2);
+        instance = new RedisCluster(sentinels, servers, servers, Collections.<Redis>emptyList(), 2);
+
+        //when
+        try {
+            instance.stop();
+            fail("Stop should have failed");
+        } catch (ClusterLifecycleException e) {
+            //then
+            assertEquals(1, e.getFailures().size());
+        }
+        verify(sentinel2).stop();
+        verify(master1).stop();
+        verify(master2).stop();
+    }
+
     @Test
     public void isActiveShouldCheckEntireClusterIfAllActive() throws Exception {
         //given
@@ -268,6 +384,38 @@ public class RedisClusterTest {
         }
     }
 
+    @Test
+    public void testSimpleOperationsAfterConcurrentRunWithThreeSentinelsTwoMastersTwoSlavesPerMasterEphemeralCluster() throws Exception {
+        //given
+        final String master1 = "master1";
+        final String master2 = "master2";
+        final RedisCluster cluster = RedisCluster.builder().ephemeral().sentinelCount(3).quorumSize(2)
+                .lifecycleParallelism(4)
+                .replicationGroup(master1, 2)
+                .replicationGroup(master2, 2)
+                .build();
+        cluster.start();
+        final Set<String> sentinelHosts = JedisUtil.sentinelHosts(cluster);
+
+        //when
+        JedisSentinelPool pool1 = null;
+        JedisSentinelPool pool2 = null;
+        Jedis jedis1 = null;
+        Jedis jedis2 = null;
+        try {
+            pool1 = new JedisSentinelPool(master1, sentinelHosts);
+            pool2 = new JedisSentinelPool(master2, sentinelHosts);
+            jedis1 = testPool(pool1);
+            jedis2 = testPool(pool2);
+        } finally {
+            if (jedis1 != null)
+                pool1.returnResource(jedis1);
+            if (jedis2 != null)
+                pool2.returnResource(jedis2);
+            cluster.stop();
+        }
+    }
+
     private Jedis testPool(JedisSentinelPool pool) {
         Jedis jedis;
         jedis = pool.getResource();
@@ -279,4 +427,135 @@ public class RedisClusterTest {
         assertEquals(null, jedis.mget("xyz").get(0));
         return jedis;
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldSplitMemoryBudgetAcrossServers() throws Exception {
+        //given
+        final RedisCluster cluster = RedisCluster.builder().ephemeral()
+                .memoryBudget(300L * 1024 * 1024)
+                .evictionPolicy(EvictionPolicy.VOLATILE_TTL)
+                .replicationGroup("master1", 1)
+                .replicationGroup("master2", 0)
+                .build();
+
+        //when
+        final Collection<Long> limits = cluster.memoryLimits().values();
+
+        //then
+        assertEquals(Arrays.asList(100L * 1024 * 1024, 100L * 1024 * 1024, 100L * 1024 * 1024),
+                new ArrayList<Long>(limits));
+        assertEquals(EvictionPolicy.VOLATILE_TTL, ((RedisServer) cluster.servers().get(0)).evictionPolicy());
+    }
+
+    @Test
+    public void shouldTakeWholeTopologyFromOneReservedBlock() throws Exception {
+        //given
+        final RedisCluster cluster = RedisCluster.builder()
+                .reservedPorts(new ReservingPortProvider(31300, 31399))
+                .sentinelCount(2)
+                .replicationGroup("master1", 1)
+                .replicationGroup("master2", 1)
+                .build();
+
+        //when
+        final List<Integer> ports = new ArrayList<Integer>(cluster.ports());
+        Collections.sort(ports);
+
+        //then
+        assertEquals(6, ports.size());
+        assertEquals(ports.get(0) + 5, (int) ports.get(5));
+        for (Integer port : ports) {
+            ReservingPortProvider.release(port);
+        }
+    }
+
+    @Test
+    public void shouldReturnFromStartOnceSlavesAndSentinelsHaveSynced() throws Exception {
+        //given
+        final RedisCluster cluster = RedisCluster.builder().ephemeral().sentinelCount(2)
+                .replicationSyncTimeout(30, TimeUnit.SECONDS)
+                .replicationGroup("master1", 2)
+                .build();
+
+        //when
+        cluster.start();
+        try {
+            //then
+            for (Redis slave : cluster.slaves()) {
+                Jedis jedis = new Jedis("localhost", slave.ports().get(0));
+                try {
+                    assertTrue(jedis.info("replication").contains("master_link_status:up"));
+                } finally {
+                    jedis.close();
+                }
+            }
+            for (Redis sentinel : cluster.sentinels()) {
+                Jedis jedis = new Jedis("localhost", sentinel.ports().get(0));
+                try {
+                    assertEquals(2, jedis.sentinelSlaves("master1").size());
+                } finally {
+                    jedis.close();
+                }
+            }
+            final Map<Redis, Long> syncTimes = cluster.replicationSyncTimes(TimeUnit.MILLISECONDS);
+            assertEquals(4, syncTimes.size());
+            assertTrue(syncTimes.keySet().containsAll(cluster.slaves()));
+        } finally {
+            cluster.stop();
+        }
+    }
+
+    @Test
+    public void shouldMeasureFailoverAfterMasterIsKilled() throws Exception {
+        //given
+        final RedisCluster cluster = RedisCluster.builder().ephemeral()
+                .withSentinelBuilder(new RedisSentinelBuilder().downAfterMilliseconds(1000L).failoverTimeout(5000L))
+                .replicationSyncTimeout(30, TimeUnit.SECONDS)
+                .replicationGroup("master1", 1)
+                .build();
+        cluster.start();
+        final Redis oldMaster = cluster.currentMaster("master1");
+
+        try {
+            //when
+            final FailoverReport report = cluster.failover("master1", FailoverTrigger.KILL_MASTER, 30, TimeUnit.SECONDS);
+
+            //then
+            assertEquals(cluster.slaves().get(0), cluster.currentMaster("master1"));
+            assertEquals((int) oldMaster.ports().get(0), report.oldMasterPort());
+            assertEquals((int) cluster.slaves().get(0).ports().get(0), report.newMasterPort());
+            assertTrue(report.detectionTime(TimeUnit.MILLISECONDS) >= 1000L);
+            assertTrue(report.writeOutageTime(TimeUnit.MILLISECONDS) >= report.detectionTime(TimeUnit.MILLISECONDS));
+        } finally {
+            cluster.stop();
+        }
+    }
+
+    @Test
+    public void shouldFailOverOnSentinelCommand() throws Exception {
+        //given
+        final RedisCluster cluster = RedisCluster.builder().ephemeral()
+                .withSentinelBuilder(new RedisSentinelBuilder().failoverTimeout(5000L))
+                .replicationSyncTimeout(30, TimeUnit.SECONDS)
+                .replicationGroup("master1", 1)
+                .build();
+        cluster.start();
+
+        try {
+            //when
+            final FailoverReport report = cluster.failover("master1", FailoverTrigger.SENTINEL_FAILOVER, 30, TimeUnit.SECONDS);
+
+            //then
+            assertEquals(cluster.slaves().get(0), cluster.currentMaster("master1"));
+            assertEquals(0L, report.detectionTime(TimeUnit.NANOSECONDS));
+            final Jedis jedis = new Jedis("localhost", report.newMasterPort());
+            try {
+                assertEquals("OK", jedis.set("abc", "1"));
+            } finally {
+                jedis.close();
+            }
+        } finally {
+            cluster.stop();
+        }
+    }
+}
@@ -5,9 +5,12 @@ import org.junit.Test;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisSentinelPool;
 
+import java.io.File;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class RedisSentinelTest {
     private RedisSentinel sentinel;
@@ -37,6 +40,21 @@ public class RedisSentinelTest {
         sentinel.stop();
     }
 
+    @Test
+    public void shouldWriteConfigIntoWorkingDirectoryAndRemoveItOnStop() throws Exception {
+        sentinel = RedisSentinel.builder().build();
+        sentinel.start();
+
+        final File config = new File(sentinel.workingDirectory(), "sentinel.conf");
+        try {
+            assertTrue(config.isFile());
+        } finally {
+            sentinel.stop();
+        }
+
+        assertFalse(config.exists());
+    }
+
     @Test
     public void testSimpleOperationsAfterRun() throws Exception {
         //given
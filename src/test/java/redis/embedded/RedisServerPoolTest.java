@@ -0,0 +1,102 @@
+package redis.embedded;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RedisServerPoolTest {
+    private RedisServerPool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        pool = RedisServerPool.builder().size(2).build();
+        pool.start();
+    }
+
+    @Test
+    public void leasedServerShouldBeCleanAfterRelease() throws Exception {
+        //given
+        RedisServer server = pool.lease(10, TimeUnit.SECONDS);
+        Jedis jedis = new Jedis("localhost", server.ports().get(0));
+        jedis.set("abc", "1");
+        jedis.close();
+        pool.release(server);
+
+        //when
+        RedisServer first = pool.lease(10, TimeUnit.SECONDS);
+        RedisServer second = pool.lease(10, TimeUnit.SECONDS);
+
+        //then
+        for (RedisServer s : new RedisServer[]{first, second}) {
+            jedis = new Jedis("localhost", s.ports().get(0));
+            assertNull(jedis.get("abc"));
+            jedis.close();
+        }
+        pool.release(first);
+        pool.release(second);
+        assertEquals(3, pool.metrics().leases());
+    }
+
+    @Test
+    public void deadServerShouldBeReplaced() throws Exception {
+        //given
+        RedisServer server = pool.lease(10, TimeUnit.SECONDS);
+        server.stop();
+
+        //when
+        pool.release(server);
+        RedisServer first = pool.lease(10, TimeUnit.SECONDS);
+        RedisServer second = pool.lease(10, TimeUnit.SECONDS);
+
+        //then
+        assertTrue(first.isActive());
+        assertTrue(second.isActive());
+        assertEquals(1, pool.metrics().replacements());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectDoubleRelease() throws Exception {
+        //given
+        RedisServer server = pool.lease(10, TimeUnit.SECONDS);
+        pool.release(server);
+
+        //when
+        pool.release(server);
+    }
+
+    @Test(timeout = 20000L)
+    public void leaseShouldFailOnceNoServerCanBeStarted() throws Exception {
+        //given
+        final RedisServerPool broken = RedisServerPool.builder()
+                .withServerBuilder(RedisServer.builder().setting("no-such-directive yes"))
+                .size(1)
+                .build();
+        broken.start();
+
+        //when
+        try {
+            broken.lease();
+            fail("Lease should have failed");
+        } catch (EmbeddedRedisException e) {
+            //then
+            assertNotNull(e.getCause());
+        } finally {
+            broken.stop();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.stop();
+    }
+}
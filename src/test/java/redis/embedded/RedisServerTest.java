@@ -1,13 +1,30 @@
 package redis.embedded;
 
+import com.google.common.base.Predicate;
+import com.google.common.io.Files;
 import com.google.common.io.Resources;
+import org.apache.commons.io.FileUtils;
+import org.junit.Assume;
 import org.junit.Test;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.embedded.exceptions.EmbeddedRedisException;
 import redis.embedded.exceptions.RedisBuildingException;
+import redis.embedded.ports.ReservingPortProvider;
+import redis.embedded.readiness.LogPatternReadiness;
+import redis.embedded.readiness.PingReadiness;
+import redis.embedded.shutdown.CommandShutdown;
 import redis.embedded.util.Architecture;
 import redis.embedded.util.OS;
 
+import java.io.File;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
 import static org.junit.Assert.*;
 
 public class RedisServerTest {
@@ -90,6 +107,360 @@ public class RedisServerTest {
         assertFalse(redisServer.isActive());
     }
 
+    @Test
+    public void shouldStartWithPingReadiness() throws Exception {
+        redisServer = RedisServer.builder()
+                .port(6379)
+                .readinessStrategy(new PingReadiness())
+                .build();
+        redisServer.start();
+        try {
+            Jedis jedis = new Jedis("localhost", 6379);
+            assertEquals("PONG", jedis.ping());
+            jedis.close();
+        } finally {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    public void shouldNotMistakeForeignServerForReadyInstance() throws Exception {
+        final RedisServer foreign = new RedisServer(6379);
+        foreign.start();
+        redisServer = RedisServer.builder()
+                .port(6379)
+                .readinessStrategy(new PingReadiness())
+                .build();
+        try {
+            redisServer.start();
+            fail("Start should have failed on the taken port");
+        } catch (EmbeddedRedisException e) {
+            assertFalse(redisServer.isActive());
+        } finally {
+            foreign.stop();
+        }
+    }
+
+    @Test
+    public void shouldFailFastAndReleasePortWhenNotReadyWithinTimeout() throws Exception {
+        final ReadinessStrategy neverReady = new ReadinessStrategy() {
+            @Override
+            public void awaitReady(Process redisProcess, InstanceLog log, int port, Pattern readyPattern,
+                                   long timeoutMillis) {
+                new LogPatternReadiness().awaitReady(redisProcess, log, port, Pattern.compile("never"), timeoutMillis);
+            }
+        };
+        redisServer = RedisServer.builder()
+                .port(6379)
+                .readinessStrategy(neverReady)
+                .startupTimeout(300, TimeUnit.MILLISECONDS)
+                .build();
+        try {
+            redisServer.start();
+            fail("Start should have timed out");
+        } catch (EmbeddedRedisException e) {
+            assertFalse(redisServer.isActive());
+        }
+
+        redisServer = new RedisServer(6379);
+        redisServer.start();
+        redisServer.stop();
+    }
+
+    @Test
+    public void shouldLoadDatasetFromCapturedRdbFixture() throws Exception {
+        redisServer = new RedisServer(6379);
+        redisServer.start();
+        final File fixtureFile = File.createTempFile("embedded-redis-fixture", ".rdb");
+        fixtureFile.deleteOnExit();
+        final RdbFixture fixture;
+        try {
+            Jedis jedis = new Jedis("localhost", 6379);
+            jedis.mset("abc", "1", "def", "2");
+            jedis.close();
+            fixture = RdbFixture.capture(redisServer, fixtureFile);
+        } finally {
+            redisServer.stop();
+        }
+
+        redisServer = RedisServer.builder()
+                .port(6380)
+                .rdbFixture(fixture)
+                .build();
+        redisServer.start();
+        try {
+            Jedis jedis = new Jedis("localhost", 6380);
+            assertEquals("1", jedis.get("abc"));
+            assertEquals("2", jedis.get("def"));
+            jedis.close();
+        } finally {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    public void shouldStartAndStopAsynchronously() throws Exception {
+        redisServer = new RedisServer(6379);
+
+        assertSame(redisServer, redisServer.startAsync().get(10, TimeUnit.SECONDS));
+        assertTrue(redisServer.isActive());
+
+        redisServer.stopAsync().get(10, TimeUnit.SECONDS);
+        assertFalse(redisServer.isActive());
+    }
+
+    @Test
+    public void shouldKeepRecentLogLinesAndWriteLogFile() throws Exception {
+        final File logDirectory = Files.createTempDir();
+        redisServer = RedisServer.builder()
+                .port(6379)
+                .logBufferLines(100)
+                .logDirectory(logDirectory)
+                .build();
+        redisServer.start();
+        redisServer.stop();
+
+        final List<String> lines = redisServer.recentLogLines();
+        assertFalse(lines.isEmpty());
+        assertTrue(lines.size() <= 100);
+        final File logFile = new File(logDirectory, "redis-server-6379.log");
+        assertTrue(logFile.isFile());
+        assertTrue(FileUtils.readFileToString(logFile).contains("ready to accept connections"));
+        FileUtils.deleteQuietly(logDirectory);
+    }
+
+    @Test
+    public void shouldSampleInfoWhileRunning() throws Exception {
+        redisServer = RedisServer.builder()
+                .port(6379)
+                .infoSampling(10, TimeUnit.MILLISECONDS)
+                .build();
+        final List<InfoSnapshot> received = new CopyOnWriteArrayList<InfoSnapshot>();
+        redisServer.infoSampler().addListener(new InfoListener() {
+            @Override
+            public void onSample(InfoSnapshot snapshot) {
+                received.add(snapshot);
+            }
+        });
+        redisServer.start();
+
+        final Jedis jedis = new Jedis("localhost", 6379);
+        final InfoSnapshot snapshot;
+        try {
+            jedis.set("abc", "1");
+            jedis.get("abc");
+            jedis.get("missing");
+            snapshot = redisServer.infoSampler().await(new Predicate<InfoSnapshot>() {
+                @Override
+                public boolean apply(InfoSnapshot input) {
+                    return input.keyspaceHits() >= 1 && input.keyspaceMisses() >= 1;
+                }
+            }, 5, TimeUnit.SECONDS);
+        } finally {
+            jedis.close();
+            redisServer.stop();
+        }
+
+        assertEquals("master", snapshot.role());
+        assertTrue(snapshot.usedMemory() > 0);
+        assertTrue(snapshot.connectedClients() >= 1);
+        assertTrue(received.contains(snapshot));
+        final int sampled = redisServer.infoSampler().snapshots().size();
+        Thread.sleep(50L);
+        assertEquals(sampled, redisServer.infoSampler().snapshots().size());
+    }
+
+    @Test
+    public void shouldListenOnUnixSocketOnly() throws Exception {
+        redisServer = RedisServer.builder()
+                .unixSocket()
+                .unixSocketPerm(0700)
+                .disableTcp()
+                .build();
+        redisServer.start();
+
+        try {
+            assertTrue(redisServer.isActive());
+            assertTrue(redisServer.ports().isEmpty());
+            assertTrue(redisServer.unixSocket().exists());
+            assertEquals(redisServer.workingDirectory(), redisServer.unixSocket().getParentFile());
+        } finally {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    public void shouldKeepUnixSocketWhenBuilderIsReset() throws Exception {
+        final RedisServerBuilder builder = RedisServer.builder().port(6379).unixSocket();
+        builder.reset();
+        redisServer = builder.build();
+        redisServer.start();
+
+        try {
+            assertTrue(redisServer.unixSocket().exists());
+        } finally {
+            redisServer.stop();
+        }
+    }
+
+    @Test(expected = RedisBuildingException.class)
+    public void shouldRejectInfoSamplingWithoutTcp() throws Exception {
+        redisServer = RedisServer.builder()
+                .unixSocket()
+                .disableTcp()
+                .infoSampling(100, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Test
+    public void shouldKeepPersistenceFilesInPrivateWorkingDirectory() throws Exception {
+        final File root = Files.createTempDir();
+        redisServer = RedisServer.builder()
+                .port(6379)
+                .workingDirectory(root)
+                .persistence(Persistence.AOF_EVERYSEC)
+                .build();
+        redisServer.start();
+
+        final File workingDirectory = redisServer.workingDirectory();
+        try {
+            assertEquals(root, workingDirectory.getParentFile());
+            assertTrue(new File(workingDirectory, "appendonly.aof").isFile());
+        } finally {
+            redisServer.stop();
+        }
+
+        assertNull(redisServer.workingDirectory());
+        assertFalse(workingDirectory.exists());
+        FileUtils.deleteQuietly(root);
+    }
+
+    @Test
+    public void shouldPinProcessToCpus() throws Exception {
+        final File taskset = new File("/usr/bin/taskset");
+        Assume.assumeTrue(taskset.canExecute());
+        redisServer = RedisServer.builder()
+                .port(6379)
+                .cpuAffinity(0)
+                .build();
+        redisServer.start();
+
+        final String status;
+        final ControlConnection connection = new ControlConnection(6379);
+        try {
+            final String info = connection.executeForString("INFO", "server");
+            final String pid = info.substring(info.indexOf("process_id:") + "process_id:".length()).split("\\r?\\n")[0].trim();
+            status = FileUtils.readFileToString(new File("/proc/" + pid + "/status"));
+        } finally {
+            connection.close();
+            redisServer.stop();
+        }
+
+        assertEquals(Arrays.asList(0), redisServer.cpuAffinity());
+        assertTrue(status.matches("(?s).*Cpus_allowed_list:\\s+0\\n.*"));
+    }
+
+    @Test
+    public void shouldApplyMemoryLimitAndEvictionPolicy() throws Exception {
+        redisServer = RedisServer.builder()
+                .port(6379)
+                .maxMemory(16 * 1024 * 1024)
+                .evictionPolicy(EvictionPolicy.ALLKEYS_LRU)
+                .build();
+        redisServer.start();
+
+        final ControlConnection connection = new ControlConnection(6379);
+        try {
+            assertEquals(Arrays.<Object>asList("maxmemory", Long.toString(16 * 1024 * 1024)),
+                    connection.execute("CONFIG", "GET", "maxmemory"));
+            assertEquals(Arrays.<Object>asList("maxmemory-policy", "allkeys-lru"),
+                    connection.execute("CONFIG", "GET", "maxmemory-policy"));
+        } finally {
+            connection.close();
+            redisServer.stop();
+        }
+        assertEquals(16 * 1024 * 1024, redisServer.maxMemory());
+    }
+
+    @Test
+    public void shouldMoveToAnotherReservedPortWhenPortIsTaken() throws Exception {
+        redisServer = RedisServer.builder()
+                .reservedPort(new ReservingPortProvider(31200, 31299))
+                .build();
+        final int reservedPort = redisServer.ports().get(0);
+        final ServerSocket squatter = new ServerSocket(reservedPort);
+
+        try {
+            redisServer.start();
+            assertTrue(redisServer.isActive());
+            assertFalse(redisServer.ports().contains(reservedPort));
+            assertFalse(ReservingPortProvider.isReserved(reservedPort));
+        } finally {
+            squatter.close();
+            redisServer.stop();
+        }
+        assertFalse(ReservingPortProvider.isReserved(redisServer.ports().get(0)));
+    }
+
+    @Test
+    public void shouldRebindPortGivenAsSetting() throws Exception {
+        redisServer = RedisServer.builder()
+                .reservedPort(new ReservingPortProvider(31200, 31299))
+                .setting("port 6379")
+                .build();
+        final ServerSocket squatter = new ServerSocket(redisServer.ports().get(0));
+
+        try {
+            redisServer.start();
+            final Jedis jedis = new Jedis("localhost", redisServer.ports().get(0));
+            assertEquals("PONG", jedis.ping());
+            jedis.close();
+        } finally {
+            squatter.close();
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    public void shouldStopWithoutSavingByDefault() throws Exception {
+        redisServer = RedisServer.builder()
+                .port(6379)
+                .persistence(Persistence.RDB)
+                .build();
+        redisServer.start();
+        writeKey(6379);
+
+        redisServer.stop();
+
+        assertFalse(redisServer.isActive());
+        assertTrue(redisServer.lastStopTime(TimeUnit.MILLISECONDS) >= 0);
+        assertFalse(redisServer.recentLogLines().toString().contains("DB saved on disk"));
+    }
+
+    @Test
+    public void shouldSaveOnStopWhenAsked() throws Exception {
+        redisServer = RedisServer.builder()
+                .port(6379)
+                .persistence(Persistence.RDB)
+                .shutdownStrategy(CommandShutdown.save())
+                .build();
+        redisServer.start();
+        writeKey(6379);
+
+        redisServer.stop();
+
+        assertTrue(redisServer.recentLogLines().toString().contains("DB saved on disk"));
+    }
+
+    private static void writeKey(int port) {
+        final Jedis jedis = new Jedis("localhost", port);
+        try {
+            jedis.set("abc", "1");
+        } finally {
+            jedis.close();
+        }
+    }
+
     @Test
     public void shouldOverrideDefaultExecutable() throws Exception {
         RedisExecProvider customProvider = RedisExecProvider.defaultProvider()
@@ -116,4 +487,15 @@ public class RedisServerTest {
                 .redisExecProvider(buggyProvider)
                 .build();
     }
+
+    @Test(expected = RedisBuildingException.class)
+    public void shouldRejectRdbFixtureWithAppendOnlyPersistence() throws Exception {
+        final File fixtureFile = File.createTempFile("embedded-redis-fixture", ".rdb");
+        fixtureFile.deleteOnExit();
+
+        redisServer = RedisServer.builder()
+                .rdbFixture(fixtureFile)
+                .persistence(Persistence.AOF_EVERYSEC)
+                .build();
+    }
 }
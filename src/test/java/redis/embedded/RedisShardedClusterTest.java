@@ -0,0 +1,102 @@
+package redis.embedded;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.embedded.util.OS;
+
+import java.io.File;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Needs a redis 3.0+ executable, which is not bundled. Point the {@code embedded-redis.cluster.executable}
+ * system property at one to run these tests; they are skipped otherwise.
+ */
+public class RedisShardedClusterTest {
+    private static final String EXECUTABLE_PROPERTY = "embedded-redis.cluster.executable";
+    private static final Pattern VERSION = Pattern.compile("v=(\\d+)\\.");
+
+    private RedisShardedCluster cluster;
+
+    @Before
+    public void setUp() throws Exception {
+        RedisExecProvider execProvider = RedisExecProvider.defaultProvider();
+        final String executable = System.getProperty(EXECUTABLE_PROPERTY);
+        if (executable != null) {
+            execProvider = execProvider.override(OS.UNIX, executable).override(OS.MAC_OS_X, executable);
+        }
+        Assume.assumeTrue(supportsCluster(execProvider.get()));
+
+        cluster = RedisShardedCluster.builder()
+                .withServerBuilder(new RedisServerBuilder().redisExecProvider(execProvider))
+                .masters(3)
+                .replicasPerMaster(1)
+                .startingPort(7100)
+                .build();
+    }
+
+    @Test
+    public void shouldServeEveryKeyFromTheMasterOwningItsSlot() throws Exception {
+        //given
+        cluster.start();
+
+        //when
+        final Redis owner = cluster.masterForKey("user:1000");
+        final Jedis jedis = new Jedis("localhost", owner.ports().get(0));
+        try {
+            jedis.set("user:1000", "1");
+
+            //then
+            assertEquals("1", jedis.get("user:1000"));
+            assertTrue(jedis.clusterInfo().contains("cluster_state:ok"));
+        } finally {
+            jedis.close();
+        }
+        assertEquals(3, cluster.masters().size());
+        assertEquals(3, cluster.replicas().size());
+    }
+
+    @Test
+    public void shouldReformClusterAfterRestart() throws Exception {
+        //given
+        cluster.start();
+        cluster.stop();
+
+        //when
+        cluster.start();
+
+        //then
+        assertTrue(cluster.isActive());
+        final Jedis jedis = new Jedis("localhost", cluster.masters().get(0).ports().get(0));
+        try {
+            assertTrue(jedis.clusterInfo().contains("cluster_state:ok"));
+        } finally {
+            jedis.close();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (cluster != null && cluster.isActive()) {
+            cluster.stop();
+        }
+    }
+
+    private static boolean supportsCluster(File executable) throws Exception {
+        final Process process = new ProcessBuilder(executable.getAbsolutePath(), "--version")
+                .redirectErrorStream(true)
+                .start();
+        final String output = new String(ByteStreams.toByteArray(process.getInputStream()), Charsets.UTF_8);
+        process.waitFor();
+        final Matcher version = VERSION.matcher(output);
+        return version.find() && Integer.parseInt(version.group(1)) >= 3;
+    }
+}
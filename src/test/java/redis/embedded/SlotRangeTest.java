@@ -0,0 +1,41 @@
+package redis.embedded;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SlotRangeTest {
+
+    @Test
+    public void shouldComputeSlotsLikeRedisCluster() throws Exception {
+        assertEquals(12182, SlotRange.slotOf("foo"));
+        assertEquals(12539, SlotRange.slotOf("key"));
+        assertEquals(0, SlotRange.slotOf(""));
+    }
+
+    @Test
+    public void shouldHashOnlyTheHashTag() throws Exception {
+        assertEquals(SlotRange.slotOf("user1000"), SlotRange.slotOf("{user1000}.following"));
+        assertEquals(SlotRange.slotOf("{user1000}.following"), SlotRange.slotOf("{user1000}.followers"));
+        assertEquals(SlotRange.slotOf("foo{}{bar}"), SlotRange.slotOf(new byte[]{'f', 'o', 'o', '{', '}', '{', 'b', 'a', 'r', '}'}));
+        assertTrue(SlotRange.slotOf("foo{}{bar}") != SlotRange.slotOf("bar"));
+    }
+
+    @Test
+    public void shouldAssignEverySlotToExactlyOneMaster() throws Exception {
+        //given
+        RedisShardedCluster cluster = RedisShardedCluster.builder().masters(3).startingPort(7100).build();
+
+        //when
+        int covered = 0;
+        for (SlotRange range : cluster.slotRanges().values()) {
+            covered += range.size();
+        }
+
+        //then
+        assertEquals(SlotRange.SLOT_COUNT, covered);
+        assertEquals(cluster.masters().get(0), cluster.masterForSlot(0));
+        assertEquals(cluster.masters().get(2), cluster.masterForSlot(SlotRange.SLOT_COUNT - 1));
+    }
+}
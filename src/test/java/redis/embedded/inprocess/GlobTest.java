@@ -0,0 +1,39 @@
+package redis.embedded.inprocess;
+
+import com.google.common.base.Charsets;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GlobTest {
+
+    @Test
+    public void shouldMatchWildcards() {
+        assertTrue(matches("*", ""));
+        assertTrue(matches("user:*", "user:42"));
+        assertTrue(matches("h?llo", "hello"));
+        assertTrue(matches("*:*:end", "a:b:c:end"));
+        assertFalse(matches("h?llo", "hllo"));
+        assertFalse(matches("user:*", "users"));
+    }
+
+    @Test
+    public void shouldMatchCharacterClasses() {
+        assertTrue(matches("h[ae]llo", "hallo"));
+        assertTrue(matches("key[0-9]", "key7"));
+        assertTrue(matches("key[^0-9]", "keyx"));
+        assertFalse(matches("h[ae]llo", "hillo"));
+        assertFalse(matches("key[^0-9]", "key7"));
+    }
+
+    @Test
+    public void shouldMatchEscapedCharactersLiterally() {
+        assertTrue(matches("a\\*b", "a*b"));
+        assertFalse(matches("a\\*b", "axb"));
+    }
+
+    private static boolean matches(String pattern, String text) {
+        return Glob.matches(pattern.getBytes(Charsets.UTF_8), text.getBytes(Charsets.UTF_8));
+    }
+}
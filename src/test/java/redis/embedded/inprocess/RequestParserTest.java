@@ -0,0 +1,57 @@
+package redis.embedded.inprocess;
+
+import com.google.common.base.Charsets;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RequestParserTest {
+
+    @Test
+    public void shouldParsePipelinedArraysSplitAcrossReads() {
+        //given
+        final RequestParser parser = new RequestParser();
+
+        //when
+        parser.append(bytes("*2\r\n$3\r\nGET\r\n$3\r\nab"));
+        final List<byte[][]> incomplete = parser.commands();
+        parser.append(bytes("c\r\n*1\r\n$4\r\nPING\r\n"));
+        final List<byte[][]> complete = parser.commands();
+
+        //then
+        assertTrue(incomplete.isEmpty());
+        assertEquals(2, complete.size());
+        assertEquals("abc", new String(complete.get(0)[1], Charsets.UTF_8));
+        assertEquals("PING", new String(complete.get(1)[0], Charsets.UTF_8));
+    }
+
+    @Test
+    public void shouldParseInlineCommands() {
+        //given
+        final RequestParser parser = new RequestParser();
+
+        //when
+        parser.append(bytes("SET  key value\r\n\r\nPING\n"));
+        final List<byte[][]> commands = parser.commands();
+
+        //then
+        assertEquals(2, commands.size());
+        assertEquals(3, commands.get(0).length);
+        assertEquals("value", new String(commands.get(0)[2], Charsets.UTF_8));
+    }
+
+    @Test(expected = CommandException.class)
+    public void shouldRejectMalformedLengths() {
+        final RequestParser parser = new RequestParser();
+        parser.append(bytes("*1\r\n$x\r\n"));
+        parser.commands();
+    }
+
+    private static ByteBuffer bytes(String data) {
+        return ByteBuffer.wrap(data.getBytes(Charsets.UTF_8));
+    }
+}
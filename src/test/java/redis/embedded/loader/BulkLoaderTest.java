@@ -0,0 +1,171 @@
+package redis.embedded.loader;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import redis.clients.jedis.Jedis;
+import redis.embedded.InProcessRedisServer;
+import redis.embedded.Redis;
+import redis.embedded.RedisCluster;
+import redis.embedded.RedisServer;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BulkLoaderTest {
+    private static final int PORT = 6398;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldPipelineGeneratedRecordsWithinTheWindow() throws Exception {
+        //given
+        final RedisServer redisServer = RedisServer.builder().port(PORT).build();
+        redisServer.start();
+        final KeyValueGenerator generator = new KeyValueGenerator(20000)
+                .cardinality(1000)
+                .valueSize(ValueSize.uniform(10, 100))
+                .seed(42);
+
+        //when
+        final LoadReport report;
+        final Jedis jedis = new Jedis("localhost", PORT);
+        try {
+            report = new BulkLoader(generator).window(500).load(redisServer);
+
+            //then
+            assertEquals(Long.valueOf(1000), jedis.dbSize());
+            final int size = jedis.get("key:999").length();
+            assertTrue(size >= 10 && size <= 100);
+        } finally {
+            jedis.close();
+            redisServer.stop();
+        }
+        assertEquals(20000, report.records());
+        assertEquals(20000, report.commands());
+        assertEquals(0, report.errors());
+        assertNull(report.firstError());
+        assertTrue(report.bytes() > 20000 * 10);
+        assertTrue(report.rate() > 0);
+    }
+
+    @Test
+    public void shouldLoadCsvAndJsonLines() throws Exception {
+        //given
+        final File csv = folder.newFile("data.csv");
+        Files.write("plain,1\n\n\"quoted,key\",\"say \"\"hi\"\"\"\nmulti,\"a\nb\",60\n", csv, Charsets.UTF_8);
+        final File json = folder.newFile("data.jsonl");
+        Files.write("{\"key\": \"user:1\", \"value\": {\"name\": \"Ann\", \"age\": 42}, \"ttl\": 60}\n"
+                + "{\"key\": \"queue\", \"value\": [\"a\", \"b\\u0021\"]}\n"
+                + "{\"key\": \"count\", \"value\": 7}\n", json, Charsets.UTF_8);
+        final InProcessRedisServer redisServer = new InProcessRedisServer(0);
+        redisServer.start();
+
+        //when
+        final Jedis jedis = new Jedis("localhost", redisServer.ports().get(0));
+        try {
+            final LoadReport csvReport = new BulkLoader(new CsvRecordSource(csv)).load(redisServer);
+            final LoadReport jsonReport = new BulkLoader(new JsonLinesRecordSource(json)).load(redisServer);
+
+            //then
+            assertEquals(3, csvReport.commands());
+            assertEquals(4, jsonReport.commands());
+            assertEquals("1", jedis.get("plain"));
+            assertEquals("say \"hi\"", jedis.get("quoted,key"));
+            assertEquals("a\nb", jedis.get("multi"));
+            assertTrue(jedis.ttl("multi") > 0);
+            assertEquals("Ann", jedis.hget("user:1", "name"));
+            assertEquals("42", jedis.hget("user:1", "age"));
+            assertTrue(jedis.ttl("user:1") > 0);
+            assertEquals(Arrays.asList("a", "b!"), jedis.lrange("queue", 0, -1));
+            assertEquals("7", jedis.get("count"));
+        } finally {
+            jedis.close();
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    public void shouldCountErrorRepliesAndKeepLoading() throws Exception {
+        //given
+        final InProcessRedisServer redisServer = new InProcessRedisServer(0);
+        redisServer.start();
+        final List<byte[][]> commands = Arrays.asList(
+                command("SET", "abc", "x"), command("INCR", "abc"), command("SET", "def", "1"));
+
+        //when
+        final LoadReport report;
+        try {
+            report = new BulkLoader(source(commands)).load(redisServer);
+        } finally {
+            redisServer.stop();
+        }
+
+        //then
+        assertEquals(3, report.commands());
+        assertEquals(1, report.errors());
+        assertEquals("ERR value is not an integer or out of range", report.firstError());
+    }
+
+    @Test
+    public void shouldLoadEveryMasterOfAReplicatedClusterInParallel() throws Exception {
+        //given
+        final RedisCluster cluster = RedisCluster.builder().ephemeral().sentinelCount(1)
+                .replicationGroup("first", 0)
+                .replicationGroup("second", 0)
+                .build();
+        cluster.start();
+
+        //when
+        final LoadReport report;
+        try {
+            report = new BulkLoader(new KeyValueGenerator(1000)).load(cluster);
+
+            //then
+            for (Redis master : cluster.masters()) {
+                final Jedis jedis = new Jedis("localhost", master.ports().get(0));
+                try {
+                    assertEquals(Long.valueOf(1000), jedis.dbSize());
+                } finally {
+                    jedis.close();
+                }
+            }
+        } finally {
+            cluster.stop();
+        }
+        assertEquals(1000, report.records());
+        assertEquals(2000, report.commands());
+        assertEquals(2, report.commandsPerPort().size());
+    }
+
+    private static byte[][] command(String... args) {
+        final byte[][] command = new byte[args.length][];
+        for (int i = 0; i < args.length; i++) {
+            command[i] = args[i].getBytes(Charsets.UTF_8);
+        }
+        return command;
+    }
+
+    private static RecordSource source(List<byte[][]> commands) {
+        final Iterator<byte[][]> it = commands.iterator();
+        return new RecordSource() {
+            @Override
+            public byte[][] next() {
+                return it.hasNext() ? it.next() : null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package redis.embedded.ports;
+
+import org.junit.Test;
+
+import java.net.ServerSocket;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReservingPortProviderTest {
+
+    @Test
+    public void providersShouldNeverShareReservedPorts() throws Exception {
+        //given
+        final ReservingPortProvider first = new ReservingPortProvider(31000, 31009);
+        final ReservingPortProvider second = new ReservingPortProvider(31000, 31009);
+
+        //when
+        final Set<Integer> ports = new HashSet<Integer>();
+        for (int i = 0; i < 5; i++) {
+            ports.add(first.next());
+            ports.add(second.next());
+        }
+
+        //then
+        assertEquals(10, ports.size());
+        for (Integer port : ports) {
+            ReservingPortProvider.release(port);
+        }
+    }
+
+    @Test
+    public void shouldReserveContiguousBlockSkippingPortsInUse() throws Exception {
+        //given
+        final ServerSocket taken = new ServerSocket(31102);
+        final ReservingPortProvider provider = new ReservingPortProvider(31100, 31109);
+
+        //when
+        final List<Integer> block;
+        try {
+            block = provider.reserveBlock(4);
+        } finally {
+            taken.close();
+        }
+
+        //then
+        assertEquals(4, block.size());
+        assertFalse(block.contains(31102));
+        for (int i = 1; i < block.size(); i++) {
+            assertEquals(block.get(0) + i, (int) block.get(i));
+        }
+        for (Integer port : block) {
+            assertTrue(ReservingPortProvider.isReserved(port));
+            ReservingPortProvider.release(port);
+            assertFalse(ReservingPortProvider.isReserved(port));
+        }
+    }
+}
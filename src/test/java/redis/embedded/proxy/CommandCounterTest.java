@@ -0,0 +1,37 @@
+package redis.embedded.proxy;
+
+import com.google.common.base.Charsets;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class CommandCounterTest {
+
+    @Test
+    public void shouldCountPipelinedArrayCommands() throws Exception {
+        //given
+        final byte[] pipeline = "*1\r\n$4\r\nPING\r\n*3\r\n$3\r\nSET\r\n$3\r\nabc\r\n$1\r\n1\r\n".getBytes(Charsets.UTF_8);
+
+        //when
+        final int commands = new CommandCounter().accept(pipeline, 0, pipeline.length);
+
+        //then
+        assertEquals(2, commands);
+    }
+
+    @Test
+    public void shouldCountCommandsSplitAcrossReads() throws Exception {
+        //given
+        final byte[] command = "*2\r\n$3\r\nGET\r\n$10\r\n0123\r\n6789\r\nPING\r\n".getBytes(Charsets.UTF_8);
+        final CommandCounter counter = new CommandCounter();
+
+        //when
+        int commands = 0;
+        for (int i = 0; i < command.length; i++) {
+            commands += counter.accept(command, i, 1);
+        }
+
+        //then
+        assertEquals(2, commands);
+    }
+}
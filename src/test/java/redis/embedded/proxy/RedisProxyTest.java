@@ -0,0 +1,140 @@
+package redis.embedded.proxy;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RedisProxyTest {
+    private NetworkConditions conditions;
+    private RedisServer redisServer;
+
+    @Before
+    public void setUp() throws Exception {
+        conditions = new NetworkConditions();
+        redisServer = RedisServer.builder().port(6390).proxy(conditions).build();
+        redisServer.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        redisServer.stop();
+    }
+
+    @Test
+    public void shouldForwardCommandsAndCountThem() throws Exception {
+        //given
+        final RedisProxy proxy = redisServer.proxy();
+        final Jedis jedis = new Jedis("localhost", proxy.port());
+
+        //when
+        try {
+            jedis.set("abc", "1");
+            jedis.get("abc");
+        } finally {
+            jedis.close();
+        }
+
+        //then
+        assertEquals(2, proxy.commands());
+        assertTrue(proxy.bytesToServer() > 0);
+        assertTrue(proxy.bytesToClient() > 0);
+        assertEquals(1, proxy.acceptedConnections());
+    }
+
+    @Test
+    public void shouldDelayEachDirectionByLatency() throws Exception {
+        //given
+        final Jedis jedis = new Jedis("localhost", redisServer.proxy().port());
+        jedis.ping();
+        conditions.latency(50, TimeUnit.MILLISECONDS);
+
+        //when
+        final long started = System.nanoTime();
+        try {
+            jedis.ping();
+        } finally {
+            jedis.close();
+        }
+        final long roundTrip = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        //then
+        assertTrue("Round trip took " + roundTrip + " ms", roundTrip >= 100L);
+    }
+
+    @Test
+    public void shouldHoldBackDataWhileStalled() throws Exception {
+        //given
+        final Jedis jedis = new Jedis("localhost", redisServer.proxy().port());
+        jedis.ping();
+
+        //when
+        conditions.stall(200, TimeUnit.MILLISECONDS);
+        final long started = System.nanoTime();
+        try {
+            jedis.ping();
+        } finally {
+            jedis.close();
+        }
+
+        //then
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) >= 150L);
+    }
+
+    @Test
+    public void shouldResetOpenConnections() throws Exception {
+        //given
+        final Jedis jedis = new Jedis("localhost", redisServer.proxy().port());
+        jedis.ping();
+
+        //when
+        redisServer.proxy().resetConnections();
+        Thread.sleep(100L);
+
+        //then
+        try {
+            jedis.ping();
+            fail("Connection should have been reset");
+        } catch (JedisConnectionException expected) {
+        }
+        assertEquals(0, redisServer.proxy().openConnections());
+    }
+
+    @Test(timeout = 5000L)
+    public void shouldDropOnlyClientWhoseUpstreamIsUnreachable() throws Exception {
+        //given
+        final ServerSocket unused = new ServerSocket(0);
+        final int closedPort = unused.getLocalPort();
+        unused.close();
+        final RedisProxy proxy = new RedisProxy(new NetworkConditions());
+        proxy.start(closedPort);
+
+        //when
+        final Socket client = new Socket("localhost", proxy.port());
+        final int read;
+        try {
+            read = client.getInputStream().read();
+        } finally {
+            client.close();
+        }
+
+        //then
+        try {
+            assertEquals(-1, read);
+            assertTrue(proxy.isActive());
+            assertEquals(1, proxy.acceptedConnections());
+        } finally {
+            proxy.stop();
+        }
+    }
+}
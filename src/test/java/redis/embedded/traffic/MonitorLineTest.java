@@ -0,0 +1,45 @@
+package redis.embedded.traffic;
+
+import com.google.common.base.Charsets;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MonitorLineTest {
+
+    @Test
+    public void shouldParseTimestampDatabaseClientAndArguments() {
+        //when
+        final MonitorLine line = MonitorLine.parse("1339518083.107412 [3 127.0.0.1:60866] \"set\" \"key\" \"value\"");
+
+        //then
+        assertEquals(1339518083107412L, line.timestampMicros);
+        assertEquals(3, line.db);
+        assertEquals("127.0.0.1:60866", line.client);
+        assertFalse(line.isScripted());
+        assertEquals(3, line.args.length);
+        assertEquals("value", new String(line.args[2], Charsets.UTF_8));
+    }
+
+    @Test
+    public void shouldDecodeEscapedBytes() {
+        //when
+        final MonitorLine line = MonitorLine.parse("1.000001 [0 lua] \"set\" \"a\\\"b\" \"\\xff\\x00\\r\\n\"");
+
+        //then
+        assertEquals("lua", line.client);
+        assertTrue(line.isScripted());
+        assertArrayEquals("a\"b".getBytes(Charsets.UTF_8), line.args[1]);
+        assertArrayEquals(new byte[]{(byte) 0xff, 0, '\r', '\n'}, line.args[2]);
+    }
+
+    @Test
+    public void shouldIgnoreLinesWhichAreNotCommands() {
+        assertNull(MonitorLine.parse("OK"));
+        assertNull(MonitorLine.parse("1339518083.107412 [0 127.0.0.1:60866]"));
+    }
+}
@@ -0,0 +1,137 @@
+package redis.embedded.traffic;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import redis.clients.jedis.Jedis;
+import redis.embedded.InProcessRedisServer;
+import redis.embedded.RedisServer;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TrafficRecorderTest {
+    private static final int PORT = 6397;
+    private static final int SCRIPTING_TARGET_PORT = 6399;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private RedisServer redisServer;
+    private InProcessRedisServer target;
+
+    @Before
+    public void setUp() throws Exception {
+        redisServer = RedisServer.builder().port(PORT).build();
+        redisServer.start();
+        target = new InProcessRedisServer(0);
+        target.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        target.stop();
+        redisServer.stop();
+    }
+
+    @Test
+    public void shouldRecordCommandsAndReplayThemAgainstAnotherInstance() throws Exception {
+        //given
+        final File capture = folder.newFile("capture.bin");
+        final TrafficRecorder recorder = TrafficRecorder.attach(redisServer, capture);
+        final Jedis jedis = new Jedis("localhost", PORT);
+        try {
+            jedis.set("abc", "1");
+            jedis.incr("abc");
+            jedis.set("binary".getBytes("UTF-8"), new byte[]{0, (byte) 0xff, '"'});
+            jedis.select(1);
+            jedis.rpush("list", "a", "b");
+        } finally {
+            jedis.close();
+        }
+        final long recorded = recorder.stop();
+
+        //when
+        final ReplayReport report = new TrafficReplayer(capture).maxSpeed().concurrency(2).replay(target);
+
+        //then
+        assertEquals(5, recorded);
+        assertEquals(4, report.commands());
+        assertEquals(1, report.skipped());
+        assertEquals(0, report.errors());
+        assertTrue(report.throughput() > 0);
+        assertTrue(report.latency(50, TimeUnit.NANOSECONDS) <= report.latency(100, TimeUnit.NANOSECONDS));
+        final Jedis replayed = new Jedis("localhost", target.ports().get(0));
+        try {
+            assertEquals("2", replayed.get("abc"));
+            assertArrayEquals(new byte[]{0, (byte) 0xff, '"'}, replayed.get("binary".getBytes("UTF-8")));
+            replayed.select(1);
+            assertEquals(Long.valueOf(2), replayed.llen("list"));
+        } finally {
+            replayed.close();
+        }
+    }
+
+    @Test
+    public void shouldNotRecordCommandsIssuedByScripts() throws Exception {
+        //given
+        final File capture = folder.newFile("scripted.bin");
+        final TrafficRecorder recorder = TrafficRecorder.attach(redisServer, capture);
+        final Jedis jedis = new Jedis("localhost", PORT);
+        try {
+            jedis.eval("return redis.call('incr', KEYS[1])", 1, "k");
+        } finally {
+            jedis.close();
+        }
+        final long recorded = recorder.stop();
+        final RedisServer scriptingTarget = RedisServer.builder().port(SCRIPTING_TARGET_PORT).build();
+        scriptingTarget.start();
+
+        //when
+        try {
+            new TrafficReplayer(capture).maxSpeed().replay(scriptingTarget);
+
+            //then
+            assertEquals(1, recorded);
+            final Jedis replayed = new Jedis("localhost", SCRIPTING_TARGET_PORT);
+            try {
+                assertEquals("1", replayed.get("k"));
+            } finally {
+                replayed.close();
+            }
+        } finally {
+            scriptingTarget.stop();
+        }
+    }
+
+    @Test
+    public void shouldKeepTheRecordedPaceScaledBySpeed() throws Exception {
+        //given
+        final File capture = folder.newFile("paced.bin");
+        final TrafficRecorder recorder = TrafficRecorder.attach(redisServer, capture);
+        final Jedis jedis = new Jedis("localhost", PORT);
+        try {
+            jedis.set("abc", "1");
+            Thread.sleep(400);
+            jedis.set("abc", "2");
+        } finally {
+            jedis.close();
+        }
+        recorder.stop();
+
+        //when
+        final ReplayReport recordedPace = new TrafficReplayer(capture).replay(target);
+        final ReplayReport fourTimesFaster = new TrafficReplayer(capture).speed(4).replay(target);
+
+        //then
+        assertTrue(recordedPace.toString(), recordedPace.elapsed(TimeUnit.MILLISECONDS) >= 390);
+        assertTrue(fourTimesFaster.toString(), fourTimesFaster.elapsed(TimeUnit.MILLISECONDS) >= 95);
+        assertTrue(fourTimesFaster.toString(), fourTimesFaster.elapsed(TimeUnit.MILLISECONDS) < 300);
+    }
+}
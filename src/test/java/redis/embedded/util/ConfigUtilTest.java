@@ -0,0 +1,43 @@
+package redis.embedded.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConfigUtilTest {
+
+    @Test
+    public void shouldTurnConfigLineIntoArguments() throws Exception {
+        assertEquals(Arrays.asList("--save", "900", "1"), ConfigUtil.toArgs("save 900 1"));
+        assertEquals(Arrays.asList("--appendonly", "no"), ConfigUtil.toArgs("  appendonly   no "));
+    }
+
+    @Test
+    public void shouldHonourQuotes() throws Exception {
+        assertEquals(Arrays.asList("--save", ""), ConfigUtil.toArgs("save \"\""));
+        assertEquals(Arrays.asList("--requirepass", "with space"), ConfigUtil.toArgs("requirepass 'with space'"));
+        assertEquals(Arrays.asList("--requirepass", "a\"b"), ConfigUtil.toArgs("requirepass \"a\\\"b\""));
+    }
+
+    @Test
+    public void shouldDecodeEscapesInQuotes() throws Exception {
+        assertEquals(Arrays.asList("--notify", "a\nb\r\t\b\u0007"), ConfigUtil.toArgs("notify \"a\\nb\\r\\t\\b\\a\""));
+        assertEquals(Arrays.asList("--requirepass", "A-\u00ff"), ConfigUtil.toArgs("requirepass \"\\x41-\\xff\""));
+        assertEquals(Arrays.asList("--requirepass", "\\xZ1"), ConfigUtil.toArgs("requirepass \"\\\\xZ1\""));
+        assertEquals(Arrays.asList("--requirepass", "it's \\n"), ConfigUtil.toArgs("requirepass 'it\\'s \\n'"));
+    }
+
+    @Test
+    public void shouldIgnoreBlankLinesAndComments() throws Exception {
+        assertEquals(Collections.emptyList(), ConfigUtil.toArgs(""));
+        assertEquals(Collections.emptyList(), ConfigUtil.toArgs("# appendonly yes"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnbalancedQuotes() throws Exception {
+        ConfigUtil.toArgs("requirepass \"secret");
+    }
+}
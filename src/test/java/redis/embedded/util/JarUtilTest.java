@@ -0,0 +1,86 @@
+package redis.embedded.util;
+
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JarUtilTest {
+
+    private File cacheDir;
+
+    @Before
+    public void setUp() throws Exception {
+        cacheDir = Files.createTempDir();
+        System.setProperty(JarUtil.CACHE_DIR_PROPERTY, cacheDir.getAbsolutePath());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        System.clearProperty(JarUtil.CACHE_DIR_PROPERTY);
+        FileUtils.deleteQuietly(cacheDir);
+    }
+
+    @Test
+    public void extractShouldReuseCachedExecutable() throws Exception {
+        //given
+        final OsArchitecture osArch = OsArchitecture.UNIX_x86;
+
+        //when
+        final File first = JarUtil.extractExecutableFromJar("redis-server-2.8.19-32", osArch);
+        final File second = JarUtil.extractExecutableFromJar("redis-server-2.8.19-32", osArch);
+
+        //then
+        assertTrue(first.isFile());
+        assertTrue(first.canExecute());
+        assertEquals(cacheDir.getAbsoluteFile(), first.getParentFile().getParentFile().getAbsoluteFile());
+        assertSame(first, second);
+    }
+
+    @Test
+    public void extractShouldReplaceDeletedCacheEntry() throws Exception {
+        //given
+        final OsArchitecture osArch = OsArchitecture.UNIX_x86;
+        final File first = JarUtil.extractExecutableFromJar("redis-server-2.8.19-32", osArch);
+        FileUtils.deleteDirectory(cacheDir);
+
+        //when
+        final File second = JarUtil.extractExecutableFromJar("redis-server-2.8.19-32", osArch);
+
+        //then
+        assertEquals(first, second);
+        assertTrue(second.isFile());
+        assertTrue(second.canExecute());
+    }
+
+    @Test
+    public void extractShouldFollowCacheDirProperty() throws Exception {
+        //given
+        final OsArchitecture osArch = OsArchitecture.UNIX_x86;
+        JarUtil.extractExecutableFromJar("redis-server-2.8.19-32", osArch);
+        final File otherCacheDir = Files.createTempDir();
+        System.setProperty(JarUtil.CACHE_DIR_PROPERTY, otherCacheDir.getAbsolutePath());
+
+        //when
+        try {
+            final File command = JarUtil.extractExecutableFromJar("redis-server-2.8.19-32", osArch);
+
+            //then
+            assertEquals(otherCacheDir.getAbsoluteFile(), command.getParentFile().getParentFile().getAbsoluteFile());
+        } finally {
+            FileUtils.deleteQuietly(otherCacheDir);
+        }
+    }
+
+    @Test
+    public void detectShouldBeMemoized() throws Exception {
+        assertSame(OsArchitecture.detect(), OsArchitecture.detect());
+    }
+}
@@ -0,0 +1,72 @@
+package redis.embedded.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ProcessUtilTest {
+
+    @Test
+    public void killShouldReportSuccess() throws Exception {
+        //given
+        final Process process = new ProcessBuilder("sleep", "60").start();
+
+        //when
+        final boolean killed = ProcessUtil.kill(ProcessUtil.pid(process));
+
+        //then
+        assertTrue(killed);
+        process.waitFor();
+    }
+
+    @Test
+    public void killShouldReportMissingProcess() throws Exception {
+        assertFalse(ProcessUtil.kill(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void commandLineShouldNameTheProgram() throws Exception {
+        //given
+        final Process process = new ProcessBuilder("sleep", "60").start();
+
+        //when
+        // a just forked child still shows the JVM's command line until it has exec'ed
+        String commandLine = ProcessUtil.commandLine(ProcessUtil.pid(process));
+        for (int i = 0; i < 100 && commandLine != null && !commandLine.startsWith("sleep"); i++) {
+            Thread.sleep(10);
+            commandLine = ProcessUtil.commandLine(ProcessUtil.pid(process));
+        }
+
+        //then
+        ProcessUtil.kill(process);
+        assertTrue(commandLine, commandLine.startsWith("sleep"));
+    }
+
+    @Test
+    public void commandLineShouldBeNullForMissingProcess() throws Exception {
+        assertNull(ProcessUtil.commandLine(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void startTimeShouldBeStableForRunningProcess() throws Exception {
+        //given
+        final long pid = ProcessUtil.currentPid();
+
+        //when
+        final String first = ProcessUtil.startTime(pid);
+        final String second = ProcessUtil.startTime(pid);
+
+        //then
+        assertNotNull(first);
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void startTimeShouldBeNullForMissingProcess() throws Exception {
+        assertNull(ProcessUtil.startTime(Integer.MAX_VALUE));
+    }
+}